@@ -116,6 +116,14 @@ public enum Card {
 	
 	private int evaluation;
 
+	private static final Card[] BY_EVALUATION = new Card[53];
+
+	static {
+		for (Card card : values()) {
+			BY_EVALUATION[card.evaluation] = card;
+		}
+	}
+
 	private Card(Rank rank, Suit suit, int evaluation) {
 		this.rank = rank;
 		this.suit = suit;
@@ -144,6 +152,23 @@ public enum Card {
 		return evaluation;
 	}
 
+	/**
+	 * Return the bit of this card in a 52 bit card mask, bit {@code getEvaluation() - 1}.
+	 * @return long mask
+	 * */
+	public long getMask(){
+		return 1L << (evaluation - 1);
+	}
+
+	/**
+	 * Return the card with the given evaluation index.
+	 * @param evaluation index from 1 to 52, see {@link #getEvaluation()}
+	 * @return Card card
+	 * */
+	public static Card fromEvaluation(int evaluation){
+		return BY_EVALUATION[evaluation];
+	}
+
 	/**
 	 * Returns the name of the card.
 	 * 
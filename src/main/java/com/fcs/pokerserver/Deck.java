@@ -19,21 +19,30 @@ THE SOFTWARE.
 */
 package com.fcs.pokerserver;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Standard deck of cards for poker. 52 Cards. 13 Clubs, Diamonds, Spades, and Hearts.
+ * <p>
+ * The cards are kept as ordinals in a byte array that is reused from hand to hand. Shuffling is an in place
+ * Fisher-Yates shuffle driven by a {@link DeckRandom}, and dealing moves a cursor, so neither allocates.
+ * The cards dealt from a shuffled deck are handed to the {@link FairnessMonitor} when the deck is put back
+ * together for the next hand.
  * @category com > fcs > pokerserver
  */
 public class Deck {
-	private List<Card> cards;
+	private static final Card[] CARDS = Card.values();
+
+	private byte[] cards;
+	private int size;
+	private int cursor;
+	private boolean monitored;
+	private final DeckRandom random;
 	
 
 	/**
-	 * Simple call constructor with no shuffle.
+	 * Simple call constructor, the deck is shuffled.
 	 * */
 	public Deck(){
 		this(true);
@@ -44,6 +53,15 @@ public class Deck {
 	 * Call constructor with 2 options: shuffle(true) or not shuffle(flase)
 	 * */
 	public Deck(boolean shuffle){
+		this(DeckRandom.secure(), shuffle);
+	}
+
+	/**
+	 * Call constructor with the source of randomness used for every shuffle.
+	 * @param DeckRandom random, boolean shuffle
+	 * */
+	public Deck(DeckRandom random, boolean shuffle){
+		this.random = random;
 		initDeck();
 		if(shuffle){
 			shuffleDeck();
@@ -52,26 +70,58 @@ public class Deck {
 	
 
 	/**
-	 * Create the Deck with cards.
+	 * Create the Deck with cards, dealt in the given order.
 	 * */
 	public Deck(List<Card> cards){
-		this.cards = cards;
+		this.random = DeckRandom.secure();
+		this.cards = new byte[Math.max(cards.size(), CARDS.length)];
+		for (int i = 0; i < cards.size(); i++) {
+			this.cards[i] = (byte) cards.get(i).ordinal();
+		}
+		this.size = cards.size();
+		this.cursor = 0;
 	}
 	
 	/**
 	 * Create and Init for Deck.
-	 * Add 52 cards in the deck.
+	 * Put the 52 cards back in the deck, in order.
 	 * */
 	public void initDeck(){
-		cards = new LinkedList<Card>();
-		cards.addAll(Arrays.asList(Card.values()));
+		if (monitored && cursor > 0) {
+			FairnessMonitor.recordDeal(cards, cursor);
+		}
+		monitored = false;
+		if (cards == null || cards.length < CARDS.length) {
+			cards = new byte[CARDS.length];
+		}
+		for (int i = 0; i < CARDS.length; i++) {
+			cards[i] = (byte) i;
+		}
+		size = CARDS.length;
+		cursor = 0;
 	}
 	
 	/**
 	 * Shuffle Deck used to randomize a deck of playing cards to provide an element of chance in card games.
+	 * Only the cards that were not dealt yet are shuffled.
 	 * */
 	public void shuffleDeck(){
-		Collections.shuffle(cards);
+		shuffleDeck(random);
+	}
+
+	/**
+	 * Shuffle the cards that were not dealt yet with the given source of randomness.
+	 * @param DeckRandom random
+	 * */
+	public void shuffleDeck(DeckRandom random){
+		monitored = true;
+		byte[] deck = cards;
+		for (int i = size - 1; i > cursor; i--) {
+			int j = cursor + random.nextInt(i - cursor + 1);
+			byte card = deck[i];
+			deck[i] = deck[j];
+			deck[j] = card;
+		}
 	}
 	
 
@@ -81,14 +131,29 @@ public class Deck {
 	 *  
 	 * */
 	public Card dealCard(){
-		return cards.remove(0);
+		if (cursor >= size) {
+			throw new IllegalStateException("No card left in the deck");
+		}
+		return CARDS[cards[cursor++]];
+	}
+
+	/**
+	 * Return the number of cards not dealt yet.
+	 * @return int remaining
+	 * */
+	public int remaining(){
+		return size - cursor;
 	}
 	
 	/**
-	 * Return all of cards of Deck
-	 * @return cards
+	 * Return the cards of Deck that were not dealt yet, in dealing order
+	 * @return cards new list
 	 * */
 	public List<Card> exportDeck(){
-		return cards;
+		List<Card> list = new ArrayList<Card>(size - cursor);
+		for (int i = cursor; i < size; i++) {
+			list.add(CARDS[cards[i]]);
+		}
+		return list;
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
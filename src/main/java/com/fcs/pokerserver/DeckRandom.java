@@ -0,0 +1,51 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.fcs.pokerserver;
+
+/**
+ * Source of randomness used by {@link Deck} to shuffle.
+ * @category com > fcs > pokerserver
+ */
+public interface DeckRandom {
+
+	/**
+	 * Return a uniformly distributed value.
+	 * @param bound upper bound, exclusive, must be positive
+	 * @return int value from 0 to bound - 1
+	 * */
+	int nextInt(int bound);
+
+	/**
+	 * Return the shared cryptographically strong source, safe to use from any thread.
+	 * @return DeckRandom secure source
+	 * */
+	static DeckRandom secure() {
+		return SecureDeckRandom.INSTANCE;
+	}
+
+	/**
+	 * Return a fast reproducible source for simulations and tests, to be used by one thread at a time.
+	 * @param seed seed of the sequence
+	 * @return DeckRandom seeded source
+	 * */
+	static DeckRandom seeded(long seed) {
+		return new SeededDeckRandom(seed);
+	}
+}
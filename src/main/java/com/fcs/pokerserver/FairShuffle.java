@@ -0,0 +1,215 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.fcs.pokerserver;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Provably fair shuffle of one hand.
+ * <p>
+ * The server seed comes from a {@link SeedChain} and is committed to by its SHA-256 before the hand is dealt.
+ * The deck is shuffled with the Fisher-Yates shuffle of {@link Deck}, starting from the cards in
+ * {@link Card#values()} order, with {@code j} drawn for {@code i} from 51 down to 1. The random values are read
+ * from the stream {@code HMAC-SHA256(serverSeed, clientSeed + ":" + nonce + ":" + block)} for block 0, 1, ...,
+ * four bytes at a time as big endian integers with the sign bit cleared, rejecting values at or above the
+ * largest multiple of the bound. Once the hand is over the seed is revealed, and anyone can check it against
+ * the commitment with {@link #verify(String, String)} and replay the deck with {@link #deal(String, String, long)}.
+ * @category com > fcs > pokerserver
+ */
+public final class FairShuffle {
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+	});
+
+	private static final ThreadLocal<Mac> HMAC = ThreadLocal.withInitial(() -> {
+		try {
+			return Mac.getInstance("HmacSHA256");
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+	});
+
+	private final byte[] serverSeed;
+	private final byte[] commitment;
+	private final String clientSeed;
+	private final long nonce;
+
+	FairShuffle(byte[] serverSeed, byte[] commitment, String clientSeed, long nonce) {
+		this.serverSeed = serverSeed;
+		this.commitment = commitment;
+		this.clientSeed = clientSeed;
+		this.nonce = nonce;
+	}
+
+	/**
+	 * Return the SHA-256 of the server seed, to be published before the hand is dealt.
+	 * @return String hex commitment
+	 * */
+	public String getCommitment() {
+		return toHex(commitment);
+	}
+
+	/**
+	 * Return the server seed. Only reveal it once the hand is over.
+	 * @return String hex seed
+	 * */
+	public String getServerSeed() {
+		return toHex(serverSeed);
+	}
+
+	/**
+	 * Return the client seeds mixed into the shuffle.
+	 * @return String client seed
+	 * */
+	public String getClientSeed() {
+		return clientSeed;
+	}
+
+	/**
+	 * Return the number making the shuffle unique when the same seeds are used again.
+	 * @return long nonce
+	 * */
+	public long getNonce() {
+		return nonce;
+	}
+
+	/**
+	 * Return the random stream of the hand, for {@link Deck#shuffleDeck(DeckRandom)}.
+	 * @return DeckRandom stream
+	 * */
+	public DeckRandom random() {
+		return new HashStream(serverSeed, clientSeed, nonce);
+	}
+
+	/**
+	 * Check that a revealed server seed matches the commitment published before the hand.
+	 * @param serverSeed hex seed
+	 * @param commitment hex commitment
+	 * @return boolean true when the SHA-256 of the seed is the commitment
+	 * */
+	public static boolean verify(String serverSeed, String commitment) {
+		return MessageDigest.isEqual(sha256(fromHex(serverSeed)), fromHex(commitment));
+	}
+
+	/**
+	 * Replay the deck of a hand from its revealed seeds.
+	 * @param serverSeed hex seed
+	 * @param clientSeed client seed
+	 * @param nonce nonce of the hand
+	 * @return List<Card> the cards in dealing order
+	 * */
+	public static List<Card> deal(String serverSeed, String clientSeed, long nonce) {
+		return new Deck(new HashStream(fromHex(serverSeed), clientSeed, nonce), true).exportDeck();
+	}
+
+	static byte[] sha256(byte[] data) {
+		return SHA256.get().digest(data);
+	}
+
+	static String toHex(byte[] bytes) {
+		char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[2 * i] = HEX[(bytes[i] >> 4) & 0xF];
+			chars[2 * i + 1] = HEX[bytes[i] & 0xF];
+		}
+		return new String(chars);
+	}
+
+	static byte[] fromHex(String hex) {
+		if (hex.length() % 2 != 0) {
+			throw new IllegalArgumentException("Odd length hex: " + hex);
+		}
+		byte[] bytes = new byte[hex.length() / 2];
+		for (int i = 0; i < bytes.length; i++) {
+			int high = Character.digit(hex.charAt(2 * i), 16);
+			int low = Character.digit(hex.charAt(2 * i + 1), 16);
+			if (high < 0 || low < 0) {
+				throw new IllegalArgumentException("Not a hex string: " + hex);
+			}
+			bytes[i] = (byte) (high << 4 | low);
+		}
+		return bytes;
+	}
+
+	@Override
+	public String toString() {
+		return "commitment: " + getCommitment() + " client seed: " + clientSeed + " nonce: " + nonce;
+	}
+
+	/**
+	 * HMAC-SHA256 blocks of the seeds, read four bytes at a time.
+	 */
+	private static class HashStream implements DeckRandom {
+		private final SecretKeySpec key;
+		private final String prefix;
+		private byte[] block = new byte[0];
+		private int position;
+		private long counter;
+
+		HashStream(byte[] serverSeed, String clientSeed, long nonce) {
+			this.key = new SecretKeySpec(Arrays.copyOf(serverSeed, serverSeed.length), "HmacSHA256");
+			this.prefix = clientSeed + ":" + nonce + ":";
+		}
+
+		@Override
+		public int nextInt(int bound) {
+			if (bound <= 0) {
+				throw new IllegalArgumentException("Bound must be positive: " + bound);
+			}
+			int limit = Integer.MAX_VALUE - Integer.MAX_VALUE % bound;
+			int value;
+			do {
+				value = nextWord() & Integer.MAX_VALUE;
+			} while (value >= limit);
+			return value % bound;
+		}
+
+		private int nextWord() {
+			if (position + 4 > block.length) {
+				Mac mac = HMAC.get();
+				try {
+					mac.init(key);
+				} catch (GeneralSecurityException e) {
+					throw new IllegalStateException(e);
+				}
+				block = mac.doFinal((prefix + counter++).getBytes(StandardCharsets.UTF_8));
+				position = 0;
+			}
+			int value = (block[position] & 0xFF) << 24 | (block[position + 1] & 0xFF) << 16
+					| (block[position + 2] & 0xFF) << 8 | (block[position + 3] & 0xFF);
+			position += 4;
+			return value;
+		}
+	}
+}
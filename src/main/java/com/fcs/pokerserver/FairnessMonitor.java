@@ -0,0 +1,376 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.fcs.pokerserver;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Streaming statistics of the cards dealt by every {@link Deck}, as evidence that the shuffle is uniform.
+ * <p>
+ * A deck hands its dealt cards over when it is put back together for the next hand, so dealing a card costs
+ * nothing and recording a hand is one counter increment per dealt card, in an array owned by the dealing thread.
+ * The monitor keeps how often every card was dealt at every position and, per deck, a Wald-Wolfowitz runs test
+ * of cards from the lower and upper half of {@link Card#values()}. Chi-square statistics are turned into z scores
+ * with the Wilson-Hilferty approximation. Every {@code pokerserver.fairness.interval} decks (100,000 by default)
+ * the counts since the previous check are tested on their own, as a whole and position by position, so drift
+ * shows up even after a long run of fair hands, and a z score above {@code pokerserver.fairness.threshold} (5 by default) raises the alert. Counters
+ * are read without locking, so a report taken while cards are dealt may miss the hands in progress.
+ * Set {@code pokerserver.fairness.monitor} to false to turn the monitor off.
+ *
+ * @category com > fcs > pokerserver
+ */
+public class FairnessMonitor implements FairnessMonitorMBean {
+
+    public static final String MONITOR_PROPERTY = "pokerserver.fairness.monitor";
+    public static final String INTERVAL_PROPERTY = "pokerserver.fairness.interval";
+    public static final String THRESHOLD_PROPERTY = "pokerserver.fairness.threshold";
+
+    private static final int CARDS = 52;
+    private static final int MIN_EXPECTED = 5;
+    private static final Logger logger = Logger.getLogger(FairnessMonitor.class.getName());
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty(MONITOR_PROPERTY, "true"));
+
+    private static class Holder {
+        private static final FairnessMonitor INSTANCE = new FairnessMonitor(Long.getLong(INTERVAL_PROPERTY, 100000L),
+                Double.parseDouble(System.getProperty(THRESHOLD_PROPERTY, "5")), true);
+    }
+
+    private final List<Stripe> stripes = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Stripe> stripe = ThreadLocal.withInitial(this::newStripe);
+    private final AtomicLong decks = new AtomicLong();
+    private final long interval;
+    private final double threshold;
+
+    private long[] checked = new long[CARDS * CARDS];
+    private volatile double windowChiSquareZ;
+    private volatile boolean alert;
+
+    /**
+     * Create new the FairnessMonitor
+     *
+     * @param interval  number of decks between two checks, 0 to only check on demand
+     * @param threshold z score raising the alert
+     * @param register  register the monitor as an MBean
+     */
+    public FairnessMonitor(long interval, double threshold, boolean register) {
+        this.interval = interval;
+        this.threshold = threshold;
+        if (register) registerMBean();
+    }
+
+    /**
+     * Return the monitor shared by all decks.
+     *
+     * @return FairnessMonitor instance
+     */
+    public static FairnessMonitor getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Record the cards dealt from a deck with the shared monitor, when it is enabled.
+     *
+     * @param cards card ordinals in dealing order
+     * @param dealt number of cards dealt
+     */
+    static void recordDeal(byte[] cards, int dealt) {
+        if (ENABLED) getInstance().record(cards, dealt);
+    }
+
+    /**
+     * Record the cards dealt from one deck.
+     *
+     * @param cards card ordinals in dealing order
+     * @param dealt number of cards dealt
+     */
+    public void record(byte[] cards, int dealt) {
+        Stripe s = stripe.get();
+        long[] counts = s.counts;
+        int low = 0;
+        int runs = 0;
+        int previous = -1;
+        for (int position = 0; position < dealt; position++) {
+            int card = cards[position];
+            counts[position * CARDS + card]++;
+            int half = card < CARDS / 2 ? 0 : 1;
+            if (half == 0) low++;
+            if (half != previous) runs++;
+            previous = half;
+        }
+        int high = dealt - low;
+        if (low > 0 && high > 0) {
+            double n = dealt;
+            double product = 2.0 * low * high;
+            s.runsDeviation += runs - (product / n + 1);
+            s.runsVariance += product * (product - n) / (n * n * (n - 1));
+        }
+        s.cards += dealt;
+        long total = decks.incrementAndGet();
+        if (interval > 0 && total % interval == 0) {
+            check();
+        }
+    }
+
+    /**
+     * Test the counts recorded since the previous check, and raise the alert when they drift from uniform.
+     *
+     * @return String summary of the check
+     */
+    public synchronized String check() {
+        long[] counts = counts();
+        long[] window = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            window[i] = counts[i] - checked[i];
+        }
+        checked = counts;
+        windowChiSquareZ = chiSquareZ(window);
+        double windowPositionZ = maxPositionZ(window);
+        double runsZ = getRunsZ();
+        String summary = "decks: " + getDecks() + " window chi-square z: " + format(windowChiSquareZ)
+                + " window max position z: " + format(windowPositionZ) + " chi-square z: " + format(chiSquareZ(counts))
+                + " max position z: " + format(maxPositionZ(counts)) + " runs z: " + format(runsZ);
+        if (Math.abs(windowChiSquareZ) > threshold || windowPositionZ > threshold || Math.abs(runsZ) > threshold) {
+            alert = true;
+            logger.severe("Card distribution drifts from uniform, " + summary);
+        }
+        return summary;
+    }
+
+    /**
+     * Return the number of times each card was dealt at a position.
+     *
+     * @param position dealing position from 0 to 51
+     * @return long[] counts by {@link Card#ordinal()}
+     */
+    public long[] getPositionCounts(int position) {
+        long[] counts = counts();
+        return Arrays.copyOfRange(counts, position * CARDS, (position + 1) * CARDS);
+    }
+
+    public long getDealtCards() {
+        long cards = 0;
+        for (Stripe s : stripes) {
+            cards += s.cards;
+        }
+        return cards;
+    }
+
+    public long getDecks() {
+        return decks.get();
+    }
+
+    /**
+     * Return the z score of the chi-square over all positions with enough deals.
+     */
+    public double getChiSquareZ() {
+        return chiSquareZ(counts());
+    }
+
+    /**
+     * Return the largest z score of the chi-square of a single position.
+     */
+    public double getMaxPositionChiSquareZ() {
+        return maxPositionZ(counts());
+    }
+
+    /**
+     * Return the z score of the runs test over all recorded decks.
+     */
+    public double getRunsZ() {
+        double deviation = 0;
+        double variance = 0;
+        for (Stripe s : stripes) {
+            deviation += s.runsDeviation;
+            variance += s.runsVariance;
+        }
+        return variance > 0 ? deviation / Math.sqrt(variance) : 0;
+    }
+
+    public boolean isAlert() {
+        return alert;
+    }
+
+    /**
+     * Forget every recorded deal and clear the alert.
+     */
+    public synchronized void reset() {
+        for (Stripe s : stripes) {
+            s.clear();
+        }
+        decks.set(0);
+        checked = new long[CARDS * CARDS];
+        windowChiSquareZ = 0;
+        alert = false;
+    }
+
+    private Stripe newStripe() {
+        Stripe s = new Stripe();
+        stripes.add(s);
+        return s;
+    }
+
+    private long[] counts() {
+        long[] counts = new long[CARDS * CARDS];
+        for (Stripe s : stripes) {
+            long[] c = s.counts;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += c[i];
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Chi-square of the positions with at least five expected deals of every card, as a z score.
+     */
+    private static double chiSquareZ(long[] counts) {
+        double chiSquare = 0;
+        int degrees = 0;
+        for (int position = 0; position < CARDS; position++) {
+            double value = positionChiSquare(counts, position);
+            if (value < 0) continue;
+            chiSquare += value;
+            degrees += CARDS - 1;
+        }
+        return degrees == 0 ? 0 : wilsonHilferty(chiSquare, degrees);
+    }
+
+    private static double maxPositionZ(long[] counts) {
+        double max = 0;
+        for (int position = 0; position < CARDS; position++) {
+            double value = positionChiSquare(counts, position);
+            if (value >= 0) max = Math.max(max, wilsonHilferty(value, CARDS - 1));
+        }
+        return max;
+    }
+
+    /**
+     * Chi-square of one position against the uniform distribution, -1 when it has too few deals.
+     */
+    private static double positionChiSquare(long[] counts, int position) {
+        long total = 0;
+        for (int card = 0; card < CARDS; card++) {
+            total += counts[position * CARDS + card];
+        }
+        if (total < (long) MIN_EXPECTED * CARDS) return -1;
+        double expected = (double) total / CARDS;
+        double chiSquare = 0;
+        for (int card = 0; card < CARDS; card++) {
+            double difference = counts[position * CARDS + card] - expected;
+            chiSquare += difference * difference / expected;
+        }
+        return chiSquare;
+    }
+
+    private static double wilsonHilferty(double chiSquare, int degrees) {
+        double variance = 2.0 / (9 * degrees);
+        return (Math.cbrt(chiSquare / degrees) - (1 - variance)) / Math.sqrt(variance);
+    }
+
+    private static String format(double value) {
+        return String.format("%.3f", value);
+    }
+
+    public void registerMBean() {
+        try {
+            MBeanServer sv = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("com.fcs.pokerserver:type=FairnessMonitor");
+            if (!sv.isRegistered(name)) sv.registerMBean(this, name);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public long jmx_getDealtCards() {
+        return getDealtCards();
+    }
+
+    @Override
+    public long jmx_getDecks() {
+        return getDecks();
+    }
+
+    @Override
+    public double jmx_getChiSquareZ() {
+        return getChiSquareZ();
+    }
+
+    @Override
+    public double jmx_getMaxPositionChiSquareZ() {
+        return getMaxPositionChiSquareZ();
+    }
+
+    @Override
+    public double jmx_getRunsZ() {
+        return getRunsZ();
+    }
+
+    @Override
+    public double jmx_getWindowChiSquareZ() {
+        return windowChiSquareZ;
+    }
+
+    @Override
+    public boolean jmx_isAlert() {
+        return isAlert();
+    }
+
+    @Override
+    public String jmx_getPositionFrequencies(int position) {
+        return Arrays.toString(getPositionCounts(position));
+    }
+
+    @Override
+    public String jmx_check() {
+        return check();
+    }
+
+    @Override
+    public void jmx_reset() {
+        reset();
+    }
+
+    /**
+     * Counters of one dealing thread.
+     */
+    private static class Stripe {
+        private final long[] counts = new long[CARDS * CARDS];
+        private long cards;
+        private double runsDeviation;
+        private double runsVariance;
+
+        void clear() {
+            Arrays.fill(counts, 0);
+            cards = 0;
+            runsDeviation = 0;
+            runsVariance = 0;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.fcs.pokerserver;
+
+public interface FairnessMonitorMBean {
+    public long jmx_getDealtCards();
+
+    public long jmx_getDecks();
+
+    public double jmx_getChiSquareZ();
+
+    public double jmx_getMaxPositionChiSquareZ();
+
+    public double jmx_getRunsZ();
+
+    public double jmx_getWindowChiSquareZ();
+
+    public boolean jmx_isAlert();
+
+    public String jmx_getPositionFrequencies(int position);
+
+    public String jmx_check();
+
+    public void jmx_reset();
+}
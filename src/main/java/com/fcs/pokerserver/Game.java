@@ -28,14 +28,21 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 
+import com.fcs.pokerserver.automation.HashedWheelTimer;
 import com.fcs.pokerserver.events.*;
 import com.fcs.pokerserver.holder.Board;
+import com.fcs.pokerserver.holder.BoardEvaluation;
+import com.fcs.pokerserver.holder.EquityCalculator;
+import com.fcs.pokerserver.holder.EquityResult;
 import com.fcs.pokerserver.holder.Hand;
+import com.fcs.pokerserver.holder.HandEvaluator;
+import com.fcs.pokerserver.holder.HandProgress;
 import com.fcs.pokerserver.holder.HandRank;
-import com.fcs.pokerserver.holder.TwoPlusTwoHandEvaluator;
+import com.fcs.pokerserver.holder.PreflopEquity;
 
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
@@ -49,9 +56,11 @@ import javax.management.ObjectName;
 
 public class Game implements AbstractPlayerListener, GameMBean {
 
-    private List<Player> listPlayer = new ArrayList<Player>();
+    private final SeatRing seats;
+    private final List<Player> listPlayer;
     private Board board = new Board();
     private Deck deck = null;
+    private FairShuffle fairShuffle = null;
     private long id;
     private long potBalance = 0;
     private long currentRoundBet = 0;
@@ -63,12 +72,25 @@ public class Game implements AbstractPlayerListener, GameMBean {
     private Player bigBlind;
     private Player smallBlind;
     private Player currentPlayer = null;
+    /**
+     * True while the flop waits for the deal delay of the room, nobody is on turn meanwhile.
+     */
+    private boolean dealing = false;
     private String rank = "";
     /**
      * CODE PREPARING FOR SPLIT POT IN CASE OF MULTIPLE WINNERS.
      */
     private List<Player> winners = new ArrayList<>();
     private List<Hand> bestHands = new ArrayList<>();
+    /**
+     * Evaluator state of every player, advanced as the community cards are dealt.
+     */
+    private Map<Player, HandProgress> handProgress = new HashMap<>();
+    /**
+     * Main and side pots of the hand, fed with every bet, by seat number.
+     */
+    private final PotManager pots = new PotManager();
+    private ShowdownResult showdownResult = null;
 
     private LocalDateTime startTime = null; // meaning not started
 
@@ -111,8 +133,11 @@ public class Game implements AbstractPlayerListener, GameMBean {
      */
     public Game(Room room) {
         this.room = room;
+        this.seats = room.getSeats();
+        this.seats.newHand();
+        this.listPlayer = seats.players();
         this.setId(System.nanoTime());
-        this.deck = new Deck();
+        this.deck = room.getDeck();
         this.deck.initDeck();
         this.deck.shuffleDeck();
         this.setStatus(GameStatus.NOT_STARTED);
@@ -150,6 +175,7 @@ public class Game implements AbstractPlayerListener, GameMBean {
             x.setDidAllIn(false);
             x.setCommandThisTurn(false);
         });
+        this.seats.newStreet();
 
         RoundGameEvent gameEvent = new RoundGameEvent(this, GameAction.WAITTING);
         this.fireEvent(gameEvent);
@@ -175,6 +201,13 @@ public class Game implements AbstractPlayerListener, GameMBean {
             p.setPlayerHand(new Hand());
             p.setRoundBet(0);
         });
+        handProgress.clear();
+        SeedChain seedChain = this.getRoom().getSeedChain();
+        if (seedChain != null) {
+            fairShuffle = seedChain.next(this.getClientSeed(), this.getId());
+            this.deck.initDeck();
+            this.deck.shuffleDeck(fairShuffle.random());
+        }
 //        assert this.listPlayer.size() >= 2;
         //reset command flag.
         this.resetCommandFlag();
@@ -187,6 +220,7 @@ public class Game implements AbstractPlayerListener, GameMBean {
         /**
          * BigBlind will not be count as "Had Action" in his Preflop first bet*/
         this.getBigBlind().setCommandThisTurn(false);
+        this.seats.clearActed(seats.seatOf(this.getBigBlind()));
         // deal 2 card for each player // unordered // begin from master // need to fix to begin from dealer
         for (int i = 0; i < 2; i++) {
             for (Player player : listPlayer) {
@@ -224,9 +258,11 @@ public class Game implements AbstractPlayerListener, GameMBean {
             Card card = this.deck.dealCard();
             getBoard().addCard(card);
         }
+        this.updateHandProgress();
         RoundGameEvent gameEvent = new RoundGameEvent(this, GameAction.FLOP);
         this.fireEvent(gameEvent);
         this.setStatus(GameStatus.FLOP);
+        this.fireAllInEquity();
 
 //        this.setCurrentPlayer(this.getNextPlayer(this.getDealer()));
         this.setCurrentBet(0);
@@ -250,9 +286,11 @@ public class Game implements AbstractPlayerListener, GameMBean {
 //		}
         Card card = this.deck.dealCard();
         this.getBoard().addCard(card);
+        this.updateHandProgress();
         RoundGameEvent gameEvent = new RoundGameEvent(this, GameAction.TURN);
         this.fireEvent(gameEvent);
         this.setStatus(GameStatus.TURN);
+        this.fireAllInEquity();
         //TODO need to check before current player fold or not
 //        this.setCurrentPlayer(this.getNextPlayer(this.getDealer()));
         this.setCurrentBet(0);
@@ -271,9 +309,11 @@ public class Game implements AbstractPlayerListener, GameMBean {
 
         Card card = this.deck.dealCard();
         this.getBoard().addCard(card);
+        this.updateHandProgress();
         RoundGameEvent gameEvent = new RoundGameEvent(this, GameAction.RIVER);
         this.fireEvent(gameEvent);
         this.setStatus(GameStatus.RIVER);
+        this.fireAllInEquity();
         //this.setRound((short) 4);
         this.setCurrentBet(0);
 
@@ -281,40 +321,32 @@ public class Game implements AbstractPlayerListener, GameMBean {
 
     /**
      * Finish the game. Show the winner Player.
+     * <p>
+     * The hands still in the game are ranked once by a {@link ShowdownResolver}, which pays the main pot and the
+     * side pots. The winners of the main pot are announced with the EndGameEvent, every lower rank still winning
+     * a side pot with a SideWinnerGameEvent.
      */
     public void endGame() {
         if (this.getStatus() == GameStatus.END_HAND) return;
-        winners = new ArrayList<>();
-        bestHands = new ArrayList<>();
         this.setStatus(GameStatus.END_HAND);
-        List<Hand> list = new ArrayList<>();
-        for (int i = 0; i < this.getListPlayer().size(); i++) {
-            Player p = this.getListPlayer().get(i);
+
+        BoardEvaluation showdown = HandEvaluator.getInstance().forBoard(this.getBoard());
+        for (Player p : this.getListPlayer()) {
             if (p.isSittingOut()) continue;
-            list.add(p.getPlayerHand());
+            HandProgress progress = getHandProgress(p);
+            if (progress.getCardCount() == 7) showdown.remember(p.getPlayerHand(), progress.getRankValue());
+        }
+        showdownResult = new ShowdownResolver(showdown).resolve(seats.bySeat(), seats.getActive(), pots,
+                seats.getButton() + 1);
+        for (int seat = 0; seat < seats.size(); seat++) {
+            long payout = showdownResult.getPayout(seat);
+            if (payout != 0) seats.get(seat).setBalance(seats.get(seat).getBalance() + payout);
         }
-        Board b1 = this.getBoard();
-        Board b = new Board(b1.getFlopCards().get(0), b1.getFlopCards().get(1), b1.getFlopCards().get(2), b1.getTurnCard(), b1.getRiverCard());
-        this.setBoard(b);
-
-        list.sort(new Comparator<Hand>() {
-            public int compare(Hand o1, Hand o2) {
-                return TwoPlusTwoHandEvaluator.compare(o1, o2, b);
-            }
-        });
-        TwoPlusTwoHandEvaluator evaluator = TwoPlusTwoHandEvaluator.getInstance();
-        Hand highestHand = list.get(list.size() - 1);
-        //Add best hand into list.
-        HandRank highestRank = evaluator.evaluate(b, highestHand);
-        bestHands.add(highestHand);
-
-        //Add Win Player into list Player.
-        Player player = findPlayerFromHand(this.getListPlayer(), highestHand);
-        winners.add(player);
-        /**
-         * Check whether multiple winners case occured*/
-        findCo_Winner(bestHands, winners, list, listPlayer, evaluator, b);
 
+        ShowdownResult.Pot main = showdownResult.getPots().get(0);
+        HandRank highestRank = main.getRank();
+        winners = new ArrayList<>(main.getWinners());
+        bestHands = main.getHands();
 
         //rank of winner player
         System.out.println("GameID: " + this.getId());
@@ -324,58 +356,94 @@ public class Game implements AbstractPlayerListener, GameMBean {
         } else
             rank = highestRank.getHandType().toString();
 
+        EndGameEvent gameEvent = new EndGameEvent(this);
+        gameEvent.setFairShuffle(fairShuffle);
+        gameEvent.setBestHands(bestHands);
+        gameEvent.setRank(String.valueOf(highestRank.getValue()));
+        gameEvent.setPlayerwins(winners);
+        gameEvent.setPot(main);
+        this.fireEvent(gameEvent);
 
-/**
- * Check all-in situation*/
-        if (this.listPlayer.stream().filter(x -> !x.isSittingOut()).anyMatch(x -> x.isDidAllIn())) {
-            //TODO Code split pot here (only 1 winner case-- Need upgrade later).
-            splitSidePot(listPlayer, winners, b, false);
-
-        } else {
-            /**
-             * Temporary add winning money to winner balance (Need enhancement later)
-             * */
-            //Find out the money to be claim for each player.
-            long moneyTobeClaim = this.potBalance / (winners.size());
-            System.out.println("moneyTobeClaim: " + moneyTobeClaim);
-            for (Player p : winners) {
-                p.setBalance(p.getBalance() + moneyTobeClaim);
-            }
-            EndGameEvent gameEvent = new EndGameEvent(this);
-            gameEvent.setBestHands(bestHands);
-            gameEvent.setRank(String.valueOf(highestRank.getValue()));
-            gameEvent.setPlayerwins(winners);
-            this.fireEvent(gameEvent);
+        for (int i = 1; i < showdownResult.getPots().size(); i++) {
+            ShowdownResult.Pot side = showdownResult.getPots().get(i);
+            System.out.println("sidepot: " + side);
+            SideWinnerGameEvent e = new SideWinnerGameEvent(this);
+            e.setWinners(side.getWinners());
+            e.setHands(side.getHands());
+            e.setRank(side.getRank().getHandType().toString());
+            e.setPot(side);
+            this.fireEvent(e);
         }
+    }
 
+    /**
+     * Return the outcome of the showdown.
+     *
+     * @return ShowdownResult result, null until the game ended with a showdown
+     */
+    public ShowdownResult getShowdownResult() {
+        return showdownResult;
     }
 
     /**
-     * Find Co Winners needs:
+     * Return the best hand the player has made with the cards dealt so far.
      *
-     * @param bestHands  List of hands with highest hand already inside
-     * @param winners    List of Winners that have highest-hand winner already inside
-     * @param listHand   List of hands that already sorted (contains best hand as the last element)
-     * @param listPlayer List of Players
-     * @param evaluator  Evaluator used for calculating hand rank
-     * @param b          Board of the game
+     * @param player Player of the game
+     * @return HandRank rank, null before the flop
      */
-    public void findCo_Winner(List<Hand> bestHands, List<Player> winners, List<Hand> listHand, List<Player> listPlayer, TwoPlusTwoHandEvaluator evaluator, Board b) {
-        if (listHand.size() > 1) {
-            Hand highestHand = bestHands.get(0);
-            HandRank highestRank = evaluator.evaluate(b, highestHand);
-            for (int i = listHand.size() - 2; i >= 0; i--) {
-                Hand temp = listHand.get(i);
-                HandRank tempRank = evaluator.evaluate(b, temp);
-                if (tempRank.getValue() < highestRank.getValue()) break;
-                bestHands.add(temp);
-                Player p = findPlayerFromHand(listPlayer, temp);
-                winners.add(p);
-            }
-        } else System.out.println("Co-winner not exist in game " + this.id);
+    public HandRank getHandRank(Player player) {
+        return getHandProgress(player).getHandRank();
+    }
 
+    /**
+     * Return the evaluator state of the player, brought up to date with the current board and hand.
+     *
+     * @param player Player of the game
+     * @return HandProgress progress
+     */
+    public HandProgress getHandProgress(Player player) {
+        HandProgress progress = handProgress.get(player);
+        if (progress == null) {
+            progress = new HandProgress(HandEvaluator.getInstance());
+            handProgress.put(player, progress);
+        }
+        progress.update(this.getBoard(), player.getPlayerHand());
+        return progress;
     }
 
+    /**
+     * Walk the new community card for every player still in the hand.
+     */
+    private void updateHandProgress() {
+        for (Player p : listPlayer) {
+            if (p.isSittingOut()) continue;
+            getHandProgress(p);
+        }
+    }
+
+    /**
+     * Fire the equity of the players still in the pot when all-in players leave no more betting to do.
+     * Heads-up preflop equities come from the {@link PreflopEquity} matrix once it is loaded.
+     */
+    private void fireAllInEquity() {
+        List<Player> players = listPlayer.stream().filter(x -> !x.isSittingOut()).collect(Collectors.toList());
+        if (players.size() < 2 || players.stream().noneMatch(Player::isDidAllIn)) return;
+        if (players.stream().filter(x -> !x.isDidAllIn()).count() > 1) return;
+        if (this.getBoard().cards.size() > 5) return;
+        List<Hand> hands = players.stream().map(Player::getPlayerHand).collect(Collectors.toList());
+        try {
+            PreflopEquity preflop = PreflopEquity.getLoaded();
+            EquityResult equity = preflop != null && hands.size() == 2 && this.getBoard().cards.isEmpty()
+                    ? preflop.calculate(hands)
+                    : EquityCalculator.getInstance().calculate(hands, this.getBoard(), Collections.emptyList());
+            EquityGameEvent e = new EquityGameEvent(this);
+            e.setPlayers(players);
+            e.setEquity(equity);
+            this.fireEvent(e);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Cannot calculate equity in game " + this.id + ": " + e.getMessage());
+        }
+    }
 
     public void endGameSoon(Player p) {
         if (this.getStatus() == GameStatus.END_HAND) return;
@@ -386,6 +454,7 @@ public class Game implements AbstractPlayerListener, GameMBean {
         winners.add(p);
         rank = "endsoon";
         EndGameEvent gameEvent = new EndGameEvent(this);
+        gameEvent.setFairShuffle(fairShuffle);
         gameEvent.setPlayerwins(winners);
         gameEvent.setBestHands(bestHands);
         gameEvent.setRank(rank);
@@ -395,175 +464,28 @@ public class Game implements AbstractPlayerListener, GameMBean {
     }
 
     /**
-     * This is the case of only 1 player win
-     * TODO need upgrade into multiple winners later
+     * Return the seats of the table.
+     *
+     * @return SeatRing seats
      */
-    public void splitSidePot(List<Player> listPlayer, List<Player> winners, Board b, boolean sideWinners) {
-        TwoPlusTwoHandEvaluator evaluator = TwoPlusTwoHandEvaluator.getInstance();
-
-        List<Player> temp_list = new ArrayList<>(listPlayer);
-        temp_list.removeAll(winners);
-
-        //Firstly, Winners should receive their betting money back.
-        for (Player winner : winners) {
-            winner.setBalance(winner.getBalance() + winner.getGameBet());
-
-        }
-        /**
-         * List of co-winner need to be sorted according to their gamebet*/
-        winners.sort(new Comparator<Player>() {
-            @Override
-            public int compare(Player o1, Player o2) {
-                if (o1.getGameBet() > o2.getGameBet()) return 1;
-                if (o1.getGameBet() < o2.getGameBet()) return -1;
-                return 0;
-            }
-        });
-        /**
-         * Logic is :
-         * Find the lowest gamebet winner, find his grant from loser then divide for all co-winners
-         * Remove him from winners list and do similarly until no co-winner left*/
-        /**
-         * Divide winning money for all winners base on lowest bet winner. Stop when no co-winner left */
-        grantForWinners(winners, temp_list);
-
-        if (sideWinners) {
-            SideWinnerGameEvent e = new SideWinnerGameEvent(this);
-            e.setWinners(winners);
-            List<Hand> hands = new ArrayList<>();
-            winners.stream().forEach(x -> hands.add(x.getPlayerHand()));
-            e.setHands(hands);
-            e.setRank(evaluator.evaluate(b, winners.get(0).getPlayerHand()).getHandType().toString());
-            this.fireEvent(e);
-        } else {
-            EndGameEvent gameEvent = new EndGameEvent(this);
-            List<Hand> bestHands = new ArrayList<>();
-            winners.stream().forEach(x -> bestHands.add(x.getPlayerHand()));
-            HandRank highestRank = evaluator.evaluate(b, winners.get(0).getPlayerHand());
-
-            gameEvent.setBestHands(bestHands);
-            gameEvent.setRank(String.valueOf(highestRank.getValue()));
-            gameEvent.setPlayerwins(winners);
-            this.fireEvent(gameEvent);
-        }
-
-        winners = new ArrayList<>();
-
-        /**
-         * Now find the list of players in side pot, side pot contains all players that has gamebet remaining*/
-        List<Player> sidePot = temp_list.stream().filter(x -> x.getGameBet() != 0).collect(Collectors.toList());
-        //Side pot is empty then return
-        if (sidePot.isEmpty()) {
-            return;
-        } else {
-            System.out.println("sidepot: " + sidePot);
-        }
-
-        List<Hand> handlist = new ArrayList<>();
-        sidePot.stream().forEach(x -> handlist.add(x.getPlayerHand()));
-        //Find the winner in side-pot
-        handlist.sort(new Comparator<Hand>() {
-            public int compare(Hand o1, Hand o2) {
-                return TwoPlusTwoHandEvaluator.compare(o1, o2, b);
-            }
-        });
-        List<Hand> bestHands = new ArrayList<>();
-        bestHands.add(handlist.get(handlist.size() - 1));
-        for (int i = 0; i < sidePot.size(); i++) {
-            if (sidePot.get(i).getPlayerHand() == bestHands.get(0)) {
-                winners.add(sidePot.get(i));
-                break;
-            }
-        }
-        /**
-         * using findCo-Winner to add all co-winner into winners list*/
-        findCo_Winner(bestHands, winners, handlist, listPlayer, evaluator, b);
-        splitSidePot(sidePot, winners, b, true);
-
-
+    public SeatRing getSeats() {
+        return seats;
     }
 
     /**
-     * Grants winning money for all co-winner base on lowest gamebet winner
-     * <p>
-     * stop when no co-winner left.
+     * Return the main and side pots of the game.
      *
-     * @param winners   list of winners that already sorted ascending gamebet.
-     * @param temp_list list of losers.
+     * @return PotManager pots
      */
-    private void grantForWinners(List<Player> winners, List<Player> temp_list) {
-        //Filter all losers that has no remaining gamebet, remove all of them.
-        List<Player> temp_list_filtered = temp_list.stream().filter(x -> x.getGameBet() != 0).
-                collect(Collectors.toList());
-        Player lowestWinner = winners.get(0);
-
-
-        // Find the grant that divide for all co-winners.
-        long grantMoneyForAll = 0;
-        for (Player p : temp_list_filtered) {
-            if (p.getGameBet() <= lowestWinner.getGameBet()) {
-                grantMoneyForAll += p.getGameBet();
-                p.setGameBet(0);
-            } else {
-                grantMoneyForAll += lowestWinner.getGameBet();
-                p.setGameBet(p.getGameBet() - lowestWinner.getGameBet());
-            }
-        }
-        /**
-         * Now we distribute grantMoneyForAll for all co-winners*/
-        for (Player p : winners) {
-            p.setBalance(p.getBalance() + (grantMoneyForAll / winners.size()));
-        }
-        /**
-         * Subtract lowestWinner gamebet from the other co-winners gamebet and set gamebet of lowestwinner back to 0
-         * Collect new winners list that winners remains gamebet*/
-        for (int i = 0; i < winners.size(); i++) {
-            Player p = winners.get(i);
-            p.setGameBet(p.getGameBet() - lowestWinner.getGameBet());
-        }
-        List<Player> newWinnersList = winners.stream().filter(x -> x.getGameBet() != 0).collect(Collectors.toList());
-
-        if (newWinnersList.isEmpty()) return;
-        /**
-         * Then we sort new winner list base on game bet*/
-        newWinnersList.sort(new Comparator<Player>() {
-            @Override
-            public int compare(Player o1, Player o2) {
-                if (o1.getGameBet() > o2.getGameBet()) return 1;
-                if (o1.getGameBet() < o2.getGameBet()) return -1;
-                return 0;
-            }
-        });
-
-        /**
-         * And finally keep recursively call this method*/
-        grantForWinners(newWinnersList, temp_list);
-
-
-    }
-
-    public Player findPlayerFromHand(List<Player> listPlayer, Hand hand) {
-        Player p = null;
-        for (int y = 0; y < listPlayer.size(); y++) {
-            if (listPlayer.get(y).isSittingOut()) continue;
-            if (listPlayer.get(y).getPlayerHand() == hand) {
-                p = listPlayer.get(y);
-                break;
-            }
-        }
-        return p;
+    public PotManager getPotManager() {
+        return pots;
     }
 
     public void autoNextRound() {
         this.listPlayer.stream().filter(x -> !x.isSittingOut()).forEach(x -> x.setRoundBet(0));
         switch (this.status) {
             case PREFLOP:
-                long playerNum = (long) this.getListPlayer().size();
-                try {
-                    Thread.currentThread().sleep(playerNum * 500);
-                } catch (InterruptedException e) {
-                    System.out.println("Cannot next to flop :" + e.toString());
-                }
+                this.fireAllInEquity();
                 this.flop();
                 break;
             case FLOP:
@@ -578,6 +500,65 @@ public class Game implements AbstractPlayerListener, GameMBean {
         }
     }
 
+    /**
+     * Deal the next street once the betting round is complete and give the turn to the first player after the
+     * button. Before the flop the room may pause {@link Room#getDealDelay()} per player for the animation of
+     * the preflop: the game is dealing until a timer deals the flop in the mailbox of the room, the thread of
+     * the last action does not wait for it.
+     */
+    private void nextStreet() {
+        long delay = this.status == GameStatus.PREFLOP ? room.getDealDelay() * this.listPlayer.size() : 0;
+        if (delay <= 0) {
+            autoNextRound();
+            this.setCurrentPlayer(this.getFirstAfterButton());
+            return;
+        }
+        this.listPlayer.stream().filter(x -> !x.isSittingOut()).forEach(x -> x.setRoundBet(0));
+        this.fireAllInEquity();
+        this.dealing = true;
+        this.currentPlayer = null;
+        HashedWheelTimer.getShared().schedule(() -> room.execute(() -> {
+            if (!this.dealing) return;
+            this.dealing = false;
+            if (this.status != GameStatus.PREFLOP) return;
+            this.flop();
+            this.setCurrentPlayer(this.getFirstAfterButton());
+        }), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Return the first player still in the hand after the button. The dealer may have left the table since.
+     */
+    private Player getFirstAfterButton() {
+        int seat = seats.nextActive(seats.getButton());
+        return seat < 0 ? null : seats.get(seat);
+    }
+
+    /**
+     * Return true while the flop waits for the deal delay of the room.
+     *
+     * @return boolean dealing
+     */
+    public boolean isDealing() {
+        return dealing;
+    }
+
+    /**
+     * Return the client seeds of the players, in seat order.
+     */
+    private String getClientSeed() {
+        return listPlayer.stream().map(Player::getClientSeed).filter(x -> x != null).collect(Collectors.joining(","));
+    }
+
+    /**
+     * Return the commitment to the server seed of the current hand.
+     *
+     * @return String hex commitment, null when the deck is not shuffled provably fair
+     */
+    public String getShuffleCommitment() {
+        return fairShuffle == null ? null : fairShuffle.getCommitment();
+    }
+
     /**
      * Get Deck
      *
@@ -638,12 +619,13 @@ public class Game implements AbstractPlayerListener, GameMBean {
      * @param Player p
      */
     public void addPlayer(Player p) {
-        if (listPlayer.contains(p)) return;
+        if (p.getCurrentGame() == this && seats.contains(p)) return;
         // check if timeout join after 15 second then Reject
         if (this.startTime == null || Duration.between(this.startTime, LocalDateTime.now()).getSeconds() <= 15) {
-            if (listPlayer.size() < 6) {
+            int seat = seats.sit(p);
+            if (seat >= 0) {
                 p.setSittingOut(false);
-                this.listPlayer.add(p);
+                seats.setActive(seat, true);
                 p.attachListener(this);
                 p.setCurrentGame(this);
             } else {
@@ -663,6 +645,7 @@ public class Game implements AbstractPlayerListener, GameMBean {
         this.listPlayer.stream().filter(p -> !p.isSittingOut()).forEach(p -> {
             p.setCommandThisTurn(false);
         });
+        this.seats.newStreet();
     }
 
     /**
@@ -744,9 +727,6 @@ public class Game implements AbstractPlayerListener, GameMBean {
         return dealer;
     }
 
-    public void setListPlayer(List<Player> listPlayer) {
-        this.listPlayer = listPlayer;
-    }
 //	private int getIndexPlayerList(Player player) {
 //		int index = 0;
 //		for (; index < this.getListPlayer().size(); index++) {
@@ -761,26 +741,14 @@ public class Game implements AbstractPlayerListener, GameMBean {
      * Return Player is Next Player of Game
      *
      * @param Player p
-     * @return Player
+     * @return Player the next player still in the hand, p itself when nobody else is, null when nobody is or p is not seated
      * @throws AssertionError the list of Players is not contain the Player.
      */
     public Player getNextPlayer(Player p) {
-//        System.out.println(listPlayer.toString());
-        assert listPlayer.contains(p);
-        Player temp = null;
-        for (int i = 0; i < this.getListPlayer().size(); i++) {
-            //Find the player we are starting at
-            if (this.getListPlayer().get(i).equals(p)) {
-                //The next player is either the next in the list, or the first in the list if startPlayer is at the end
-                temp = (i == this.getListPlayer().size() - 1) ? this.getListPlayer().get(0) : this.getListPlayer().get(i + 1);
-                break;
-            }
-        }
-        if (temp.isSittingOut()) {
-            return getNextPlayer(temp);
-//            return temp;
-        } else
-            return temp;
+        assert seats.contains(p);
+        int seat = seats.seatOf(p);
+        int next = seat < 0 ? -1 : seats.nextActive(seat);
+        return next < 0 ? null : seats.get(next);
     }
 
     /**
@@ -795,6 +763,7 @@ public class Game implements AbstractPlayerListener, GameMBean {
         this.smallBlind = this.getNextPlayer(this.dealer);
         this.bigBlind = this.getNextPlayer(this.smallBlind);
         this.dealer_index = this.listPlayer.indexOf(dealer);
+        this.seats.setButton(seats.seatOf(dealer));
     }
 
     public int getDealer_index() {
@@ -880,17 +849,8 @@ public class Game implements AbstractPlayerListener, GameMBean {
      * @return boolean is next round ready
      */
     public boolean isNextRoundReady() {
-        //TODO need more test and code review
-        boolean hasPlayerNotAct = this.listPlayer.stream()
-                .filter(p -> !p.isSittingOut())
-                .anyMatch(p -> !p.didCommandThisTurn());
-        boolean doAllPlayersBetEqual = !this.listPlayer.stream()
-                .filter(x -> !x.isSittingOut()).filter(x -> !x.isDidAllIn())
-                .filter(x -> x.getRoundBet() != this.getCurrentRoundBet())
-                .findAny().isPresent();
-//        System.out.println("doAllPlayersBetEqual: "+doAllPlayersBetEqual);
-//        System.out.println("hasPlayerNotAct: "+hasPlayerNotAct);
-        return doAllPlayersBetEqual && !hasPlayerNotAct;
+        // A raise makes everybody who is not all-in act again, so acting also means matching the bet.
+        return seats.isRoundComplete();
     }
 
 
@@ -947,6 +907,10 @@ public class Game implements AbstractPlayerListener, GameMBean {
             System.out.println("Game is ended. Nothing could happens now.");
             return;
         }
+        if (this.dealing) {
+            System.out.println("The flop is being dealt. Nobody is on turn now.");
+            return;
+        }
         Player p = e.getSrc();
         if (p != this.currentPlayer) {
             System.out.println("This is not current player: " + p.getId() + " current is : " + this.currentPlayer.getId());
@@ -957,18 +921,25 @@ public class Game implements AbstractPlayerListener, GameMBean {
             return;
         }
 //        assert p == this.getCurrentPlayer();
-        if (listPlayer.contains(p)) {
+        int seat = seats.seatOf(p);
+        if (seat >= 0) {
             if (e instanceof PlayerBetAllEvent) {
                 PlayerBetAllEvent pae = (PlayerBetAllEvent) e;
                 p.setCommandThisTurn(true);
                 this.potBalance += pae.getAmount();
-                if (this.currentRoundBet < p.getRoundBet()) this.currentRoundBet = p.getRoundBet();
+                this.pots.allIn(seat, pae.getAmount());
+                this.seats.allIn(seat);
+                if (this.currentRoundBet < p.getRoundBet()) {
+                    this.currentRoundBet = p.getRoundBet();
+                    this.seats.raise(seat);
+                } else {
+                    this.seats.act(seat);
+                }
                 PlayerActionGameEvent ge = new PlayerActionGameEvent(this);
                 ge.setE(pae);
                 this.fireEvent(ge);
                 if (isNextRoundReady()) {
-                    autoNextRound();
-                    this.setCurrentPlayer(this.getNextPlayer(this.getDealer()));
+                    nextStreet();
                 } else {
                     this.setCurrentPlayer(this.getNextPlayer(p));
                 }
@@ -978,6 +949,12 @@ public class Game implements AbstractPlayerListener, GameMBean {
                 PlayerBetEvent pbe = (PlayerBetEvent) e;
                 assert p.getRoundBet() >= this.currentRoundBet;
                 this.potBalance += pbe.getAmount();
+                this.pots.bet(seat, pbe.getAmount());
+                if (p.getRoundBet() > this.currentRoundBet) {
+                    this.seats.raise(seat);
+                } else {
+                    this.seats.act(seat);
+                }
                 this.currentRoundBet = p.getRoundBet(); // set current bet equal to this bet amount
                 /**
                  * This player has action now.
@@ -990,8 +967,7 @@ public class Game implements AbstractPlayerListener, GameMBean {
                 //TODO Temporary set check next round for game
                 // if next round ready then next Player will be left person of dealer
                 if (isNextRoundReady()) {
-                    autoNextRound();
-                    this.setCurrentPlayer(this.getNextPlayer(this.getDealer()));
+                    nextStreet();
                 } else {
                     Player next = this.getNextPlayer(p);
                     if (next != null) {
@@ -1003,6 +979,8 @@ public class Game implements AbstractPlayerListener, GameMBean {
             if (e instanceof PlayerFoldEvent) {
                 PlayerFoldEvent pfe = (PlayerFoldEvent) e;
                 p.setSittingOut(true);
+                this.pots.fold(seat);
+                this.seats.setActive(seat, false);
                 PlayerActionGameEvent ge = new PlayerActionGameEvent(this);
                 ge.setE(pfe);
                 this.fireEvent(ge);
@@ -1012,20 +990,12 @@ public class Game implements AbstractPlayerListener, GameMBean {
 
                 /**
                  * Check if there is only 1 player playing after this player fold then endgame immediately*/
-                int i = 0;
-                Player temp = null;
-                for (Player player : this.listPlayer) {
-                    if (!player.isSittingOut()) {
-                        i++;
-                        temp = player;
-                    }
-                }
-                if (i == 1) {
+                if (seats.getActiveCount() == 1) {
+                    Player temp = seats.get(seats.nextActive(seat));
                     temp.getCurrentGame().endGameSoon(temp);
                 } else {
                     if (isNextRoundReady()) {
-                        autoNextRound();
-                        this.setCurrentPlayer(this.getNextPlayer(this.getDealer()));
+                        nextStreet();
                     } else
                         this.setCurrentPlayer(this.getNextPlayer(p));
                 }
@@ -1045,9 +1015,9 @@ public class Game implements AbstractPlayerListener, GameMBean {
 
 //              This player has action now.
                 p.setCommandThisTurn(true);
+                this.seats.act(seat);
                 if (isNextRoundReady()) {
-                    autoNextRound();
-                    this.setCurrentPlayer(this.getNextPlayer(this.getDealer()));
+                    nextStreet();
                 } else
                     this.setCurrentPlayer(this.getNextPlayer(p));
             }
@@ -1071,12 +1041,13 @@ public class Game implements AbstractPlayerListener, GameMBean {
     }
 
     /**
-     * Set the player is current player.
+     * Set the player is current player, nobody when null.
      *
      * @param Player p
      */
     public void setCurrentPlayer(Player p) {
         this.currentPlayer = p;
+        if (p == null) return;
         this.currentPlayer.myTurn();
         if (this.currentPlayer.isDidAllIn())
             this.currentPlayer.check();
@@ -1148,7 +1119,7 @@ public class Game implements AbstractPlayerListener, GameMBean {
 
     @Override
     public void jmx_setPotBalance(long bal) {
-        this.potBalance = bal;
+        room.getMailbox().run(() -> this.potBalance = bal);
     }
 
     @Override
@@ -1158,7 +1129,7 @@ public class Game implements AbstractPlayerListener, GameMBean {
 
     @Override
     public void jmx_setCurrentRoundBet(long bal) {
-        this.currentRoundBet = bal;
+        room.getMailbox().run(() -> this.currentRoundBet = bal);
     }
 
     @Override
@@ -1168,8 +1139,10 @@ public class Game implements AbstractPlayerListener, GameMBean {
 
     @Override
     public void jmx_kickPlayer(String id) {
-        Player pl = this.listPlayer.stream().filter(p -> id.equals(p.getId())).findFirst().orElse(null);
-        if (pl != null) listPlayer.remove(pl);
+        room.getMailbox().run(() -> {
+            Player pl = this.listPlayer.stream().filter(p -> id.equals(p.getId())).findFirst().orElse(null);
+            if (pl != null) listPlayer.remove(pl);
+        });
     }
 
     @Override
@@ -1194,8 +1167,10 @@ public class Game implements AbstractPlayerListener, GameMBean {
 
     @Override
     public String jmx_setDealer(String id) {
-        Player pl = this.listPlayer.stream().filter(p -> id.equals(p.getId())).findFirst().orElse(null);
-        this.dealer = pl;
-        return pl.toJson();
+        return room.getMailbox().call(() -> {
+            Player pl = this.listPlayer.stream().filter(p -> id.equals(p.getId())).findFirst().orElse(null);
+            this.dealer = pl;
+            return pl.toJson();
+        });
     }
 }
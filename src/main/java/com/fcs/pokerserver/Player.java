@@ -27,13 +27,14 @@ import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Timer;
+import java.util.concurrent.TimeUnit;
 
 import com.fcs.pokerserver.automation.CountDownPlayer;
+import com.fcs.pokerserver.automation.HashedWheelTimer;
 import com.fcs.pokerserver.events.*;
 import com.fcs.pokerserver.holder.Board;
 import com.fcs.pokerserver.holder.Hand;
-import com.fcs.pokerserver.holder.TwoPlusTwoHandEvaluator;
+import com.fcs.pokerserver.holder.HandEvaluator;
 import com.fcs.pokerserver.utility.EncryptionEngine;
 import com.google.api.gax.rpc.AlreadyExistsException;
 import com.googlecode.objectify.annotation.Entity;
@@ -49,6 +50,9 @@ import javax.management.*;
  */
 @Entity
 public class Player implements PlayerMBean {
+    public static final String TIME_BANK_PROPERTY = "pokerserver.timebank";
+    public static final String DISCONNECT_GRACE_PROPERTY = "pokerserver.disconnect.grace";
+
     private long balance;
     private long roundBet = 0;
     private long gameBet = 0;
@@ -69,10 +73,12 @@ public class Player implements PlayerMBean {
     private List<AbstractPlayerListener> listeners = new ArrayList<>();
     private Game currentGame = null;
     private String avatar_url;
-    private Timer countdown = new Timer();
     private CountDownPlayer task = null;
     private long COUNTDOWN_DELAY = 35 * 1000;
+    private long timeBank = Long.getLong(TIME_BANK_PROPERTY, 0L);
+    private HashedWheelTimer.Timeout leaving = null;
     private boolean didAllIn = false;
+    private String clientSeed = null;
 
     @Override
     public String toString() {
@@ -101,7 +107,7 @@ public class Player implements PlayerMBean {
 
     @Override
     public void jmx_setBalance(long bal) {
-        this.balance = bal;
+        onTable(() -> this.balance = bal);
     }
 
     @Override
@@ -111,29 +117,29 @@ public class Player implements PlayerMBean {
 
     @Override
     public void jmx_setGlobalBalance(long bal) {
-        this.globalBalance = bal;
+        onTable(() -> this.globalBalance = bal);
     }
 
     @Override
     public void jmx_setSittingOut(boolean bool) {
-        this.sittingOut = bool;
+        onTable(() -> this.sittingOut = bool);
     }
 
     @Override
     public void jmx_setRoundBet(long amount) {
-        this.roundBet = amount;
+        onTable(() -> this.roundBet = amount);
     }
 
     @Override
     public void jmx_setGameBet(long amount) {
-        this.gameBet = amount;
+        onTable(() -> this.gameBet = amount);
     }
 
     @Override
     public int jmx_evaluateHand() {
         Board b = this.getCurrentGame().getBoard();
-        TwoPlusTwoHandEvaluator evaluator = TwoPlusTwoHandEvaluator.getInstance();
-        return evaluator.evaluate(b, this.getPlayerHand()).getValue();
+        HandEvaluator evaluator = HandEvaluator.getInstance();
+        return evaluator.evaluateRank(b, this.getPlayerHand());
     }
 
     @Override
@@ -142,6 +148,15 @@ public class Player implements PlayerMBean {
         return "flop: " + b.getFlopCards() + " turn: " + b.getTurnCard() + " river: " + b.getRiverCard();
     }
 
+    /**
+     * Run a change from outside the engine in the mailbox of the room the player is in, at once when he is in none.
+     */
+    private void onTable(Runnable change) {
+        Room room = this.currentRoom;
+        if (room == null) change.run();
+        else room.getMailbox().run(change);
+    }
+
     public void registerMbean() {
         try {
             MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
@@ -331,7 +346,7 @@ public class Player implements PlayerMBean {
 
     public void myTurn() {
         task = CountDownPlayer.createInstance(this, this.getCurrentGame());
-        countdown.schedule(task, COUNTDOWN_DELAY);
+        task.start(COUNTDOWN_DELAY);
 //        System.out.println("My Turn: " + this.getId() + " ID task: " + task.getId());
         GetTurnPlayerEvent e = new GetTurnPlayerEvent(this);
         this.triggerEvent(e);
@@ -596,6 +611,24 @@ public class Player implements PlayerMBean {
         this.commandThisTurn = commandThisTurn;
     }
 
+    /**
+     * Return the seed the player mixes into the shuffle of the next hands.
+     *
+     * @return String clientSeed, null when the player did not set one
+     */
+    public String getClientSeed() {
+        return clientSeed;
+    }
+
+    /**
+     * Set the seed the player mixes into the shuffle of the next hands.
+     *
+     * @param String clientSeed
+     */
+    public void setClientSeed(String clientSeed) {
+        this.clientSeed = clientSeed;
+    }
+
     public String getAvatar_url() {
         return avatar_url;
     }
@@ -630,6 +663,54 @@ public class Player implements PlayerMBean {
         this.COUNTDOWN_DELAY = COUNTDOWN_DELAY;
     }
 
+    /**
+     * Return the milliseconds the player may still take after his action clock ran out, over all his turns.
+     *
+     * @return long timeBank
+     */
+    public long getTimeBank() {
+        return timeBank;
+    }
+
+    /**
+     * The method to set the time bank of the player
+     *
+     * @param long timeBank
+     */
+    public void setTimeBank(long timeBank) {
+        this.timeBank = timeBank;
+    }
+
+    /**
+     * The player lost his connection. He keeps his seat for {@code pokerserver.disconnect.grace} milliseconds
+     * (60 seconds by default), then leaves the room unless {@link #reconnected()} is called first. Called when the
+     * MQTT last will of the client arrives, see
+     * {@link com.fcs.pokerserver.gameserver.MqttServletGameServer#playerConnection(String, String, String)}.
+     */
+    public void disconnected() {
+        Room room = this.currentRoom;
+        if (room == null) return;
+        onTable(() -> {
+            if (leaving != null) return;
+            HashedWheelTimer.Timeout t = HashedWheelTimer.getShared().schedule(() -> room.execute(() -> {
+                if (leaving == null || !leaving.isExpired()) return;
+                leaving = null;
+                if (this.currentRoom == room) room.removePlayer(this);
+            }), Long.getLong(DISCONNECT_GRACE_PROPERTY, 60000L), TimeUnit.MILLISECONDS);
+            leaving = t;
+        });
+    }
+
+    /**
+     * The player is back before his grace period ran out.
+     */
+    public void reconnected() {
+        onTable(() -> {
+            if (leaving != null) leaving.cancel();
+            leaving = null;
+        });
+    }
+
     public boolean isDidAllIn() {
         return didAllIn;
     }
@@ -0,0 +1,261 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.fcs.pokerserver;
+
+import java.util.Arrays;
+
+/**
+ * The chips of one hand, kept as layered main and side pots while the bets come in.
+ * <p>
+ * Every all-in amount caps a layer: layer 0 is the main pot up to the smallest all-in, every following layer
+ * holds what was bet between two caps and the last one what was bet above the highest cap. A bet is split over
+ * the layers it reaches when it is made, and every layer keeps a bit mask of the seats that put chips into it, so
+ * the pots never have to be rebuilt from the players. Seats are numbers from 0 to 63 given out by the game.
+ * <p>
+ * At showdown {@link #award(int[], int, long[])} walks the layers once with the hand ranks of the seats. The odd
+ * chips of a split layer go one by one to the winners closest to the left of the dealer, and every chip bet is
+ * paid out exactly once or the award fails.
+ *
+ * @category com > fcs > pokerserver
+ */
+public class PotManager {
+
+    public static final int MAX_SEATS = 64;
+
+    private long[] contributions = new long[8];
+    private int seats;
+    private long folded;
+    private long total;
+
+    /**
+     * Upper bound of every capped layer, ascending. The layer after the last cap has no bound.
+     */
+    private long[] caps = new long[8];
+    private int capCount;
+    private long[] amounts = new long[9];
+    private long[] contributors = new long[9];
+
+    /**
+     * Add chips bet by a seat.
+     *
+     * @param seat   seat of the player
+     * @param amount chips added to the pot
+     * @throws IllegalArgumentException if the seat is out of range or the amount is negative
+     */
+    public void bet(int seat, long amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Cannot bet a negative amount: " + amount);
+        }
+        ensureSeat(seat);
+        long from = contributions[seat];
+        long to = from + amount;
+        contributions[seat] = to;
+        total += amount;
+        long low = 0;
+        for (int layer = 0; layer <= capCount && low < to; layer++) {
+            long high = layer < capCount ? caps[layer] : Long.MAX_VALUE;
+            long added = Math.min(to, high) - Math.max(from, low);
+            if (added > 0) {
+                amounts[layer] += added;
+                contributors[layer] |= 1L << seat;
+            }
+            low = high;
+        }
+    }
+
+    /**
+     * Add the last chips of a seat. The total bet of the seat becomes the cap of a layer.
+     *
+     * @param seat   seat of the player
+     * @param amount chips added to the pot
+     */
+    public void allIn(int seat, long amount) {
+        bet(seat, amount);
+        addCap(contributions[seat]);
+    }
+
+    /**
+     * Take a seat out of every layer it could still win. Its chips stay in the pot.
+     *
+     * @param seat seat of the player
+     */
+    public void fold(int seat) {
+        ensureSeat(seat);
+        folded |= 1L << seat;
+    }
+
+    /**
+     * Split the layer holding the given amount at that amount.
+     */
+    private void addCap(long cap) {
+        int layer = 0;
+        while (layer < capCount && caps[layer] < cap) layer++;
+        if (layer < capCount && caps[layer] == cap) return;
+        if (capCount == caps.length) {
+            caps = Arrays.copyOf(caps, capCount * 2);
+            amounts = Arrays.copyOf(amounts, capCount * 2 + 1);
+            contributors = Arrays.copyOf(contributors, capCount * 2 + 1);
+        }
+        System.arraycopy(caps, layer, caps, layer + 1, capCount - layer);
+        System.arraycopy(amounts, layer, amounts, layer + 1, capCount + 1 - layer);
+        System.arraycopy(contributors, layer, contributors, layer + 1, capCount + 1 - layer);
+        caps[layer] = cap;
+        capCount++;
+
+        long low = layer == 0 ? 0 : caps[layer - 1];
+        long below = 0;
+        long above = 0;
+        for (int seat = 0; seat < seats; seat++) {
+            long c = contributions[seat];
+            if (c > cap) above |= 1L << seat;
+            if (c > low) below += Math.min(c, cap) - low;
+        }
+        amounts[layer + 1] -= below;
+        amounts[layer] = below;
+        contributors[layer + 1] = above;
+    }
+
+    private void ensureSeat(int seat) {
+        if (seat < 0 || seat >= MAX_SEATS) {
+            throw new IllegalArgumentException("Seat out of range: " + seat);
+        }
+        if (seat >= contributions.length) {
+            contributions = Arrays.copyOf(contributions, Math.min(MAX_SEATS, Math.max(seat + 1, contributions.length * 2)));
+        }
+        if (seat >= seats) seats = seat + 1;
+    }
+
+    /**
+     * Pay every layer to the best ranked seats that put chips into it and did not fold.
+     * <p>
+     * A layer nobody can win any more, because everybody who reached it folded, is added to the layer below.
+     *
+     * @param ranks     hand rank of every seat, higher is better, negative for a seat that is not in the showdown
+     * @param firstSeat seat receiving the first odd chip, usually the one on the left of the dealer
+     * @param payouts   chips won by every seat, added to the values already there
+     * @return long[] winning seats of every layer, 0 for a layer added to the layer below
+     * @throws IllegalStateException if the chips do not add up or nobody can win the pot
+     */
+    public long[] award(int[] ranks, int firstSeat, long[] payouts) {
+        long layered = 0;
+        for (int layer = 0; layer <= capCount; layer++) {
+            layered += amounts[layer];
+        }
+        if (layered != total) {
+            throw new IllegalStateException("Layers hold " + layered + " chips but " + total + " were bet");
+        }
+        long[] winners = new long[capCount + 1];
+        long carry = 0;
+        long paid = 0;
+        for (int layer = capCount; layer >= 0; layer--) {
+            long amount = amounts[layer] + carry;
+            long mask = 0;
+            int best = -1;
+            for (long eligible = contributors[layer] & ~folded; eligible != 0; eligible &= eligible - 1) {
+                int seat = Long.numberOfTrailingZeros(eligible);
+                int rank = seat < ranks.length ? ranks[seat] : -1;
+                if (rank > best) {
+                    best = rank;
+                    mask = 1L << seat;
+                } else if (rank == best && rank >= 0) {
+                    mask |= 1L << seat;
+                }
+            }
+            if (mask == 0) {
+                carry = amount;
+                continue;
+            }
+            carry = 0;
+            winners[layer] = mask;
+            int count = Long.bitCount(mask);
+            long share = amount / count;
+            long odd = amount % count;
+            for (int i = 0; i < seats; i++) {
+                int seat = Math.floorMod(firstSeat + i, seats);
+                if ((mask & (1L << seat)) == 0) continue;
+                long won = odd-- > 0 ? share + 1 : share;
+                payouts[seat] += won;
+                paid += won;
+            }
+        }
+        if (carry != 0 || paid != total) {
+            throw new IllegalStateException("Paid " + paid + " chips out of a pot of " + total);
+        }
+        return winners;
+    }
+
+    /**
+     * Return the number of layers, main pot included. The layer above the highest cap only counts once chips were bet into it.
+     *
+     * @return int layer count
+     */
+    public int getLayerCount() {
+        return amounts[capCount] != 0 || capCount == 0 ? capCount + 1 : capCount;
+    }
+
+    /**
+     * Return the chips held by a layer.
+     *
+     * @param layer 0 for the main pot
+     * @return long amount
+     */
+    public long getLayerAmount(int layer) {
+        return amounts[layer];
+    }
+
+    /**
+     * Return the highest total bet that a layer takes chips from.
+     *
+     * @param layer 0 for the main pot
+     * @return long cap, {@link Long#MAX_VALUE} for the layer above the highest all-in
+     */
+    public long getLayerCap(int layer) {
+        return layer < capCount ? caps[layer] : Long.MAX_VALUE;
+    }
+
+    /**
+     * Return the seats that can still win a layer.
+     *
+     * @param layer 0 for the main pot
+     * @return long one bit per seat
+     */
+    public long getEligible(int layer) {
+        return contributors[layer] & ~folded;
+    }
+
+    /**
+     * Return the chips bet by a seat in this hand.
+     *
+     * @param seat seat of the player
+     * @return long contribution
+     */
+    public long getContribution(int seat) {
+        return seat < contributions.length ? contributions[seat] : 0;
+    }
+
+    /**
+     * Return all chips in the pot.
+     *
+     * @return long total
+     */
+    public long getTotal() {
+        return total;
+    }
+}
@@ -24,6 +24,8 @@ import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 import com.fcs.pokerserver.events.AbstractGameEvent;
 import com.fcs.pokerserver.events.AbstractRoomEvent;
@@ -54,6 +56,12 @@ public class Room implements GameListener, RoomMBean {
 
     private List<RoomListener> listeners = new ArrayList<RoomListener>();
 
+    private final Deck deck = new Deck(false);
+    private final SeatRing seats = new SeatRing(6);
+    private final SeedChain seedChain = SeedChain.fromProperties();
+    private final TableMailbox mailbox = new TableMailbox();
+    private long dealDelay = 0;
+
     public Player getMaster() {
         return master;
     }
@@ -150,6 +158,90 @@ public class Room implements GameListener, RoomMBean {
 //        this.listPlayer = listPlayer;
 //    }
 
+    /**
+     * Return the seats of the table. Players keep their seat from one game to the next.
+     *
+     * @return SeatRing seats
+     */
+    public SeatRing getSeats() {
+        return seats;
+    }
+
+    /**
+     * Queue a command changing the room or its game. Commands of a room run one at a time, in order.
+     *
+     * @param command command to run on the table
+     * @return CompletableFuture result of the command
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> command) {
+        return mailbox.submit(command);
+    }
+
+    /**
+     * Queue a command changing the room or its game, without a result.
+     *
+     * @param command command to run on the table
+     * @return CompletableFuture completed once the command ran
+     */
+    public CompletableFuture<Void> execute(Runnable command) {
+        return mailbox.execute(command);
+    }
+
+    /**
+     * Return the mailbox serializing the commands of the room.
+     *
+     * @return TableMailbox mailbox
+     */
+    public TableMailbox getMailbox() {
+        return mailbox;
+    }
+
+    /**
+     * Return the pause before the flop, per player in the game, for the animation of the preflop.
+     *
+     * @return long dealDelay in milliseconds, 0 deals the flop at once
+     */
+    public long getDealDelay() {
+        return dealDelay;
+    }
+
+    /**
+     * The method to set the pause before the flop, per player in the game
+     *
+     * @param long dealDelay in milliseconds
+     */
+    public void setDealDelay(long dealDelay) {
+        this.dealDelay = dealDelay;
+    }
+
+    /**
+     * Return the deck shared by the games of the room, one game at a time.
+     *
+     * @return Deck deck
+     */
+    public Deck getDeck() {
+        return deck;
+    }
+
+    /**
+     * Return the server seeds of the provably fair shuffles of the room.
+     *
+     * @return SeedChain seedChain, null when provably fair shuffling is disabled
+     */
+    public SeedChain getSeedChain() {
+        return seedChain;
+    }
+
+    /**
+     * Return the commitment to the server seed of the next hand, published with the WAITTING event and the
+     * snapshots of the room before the client seeds of the hand are read.
+     *
+     * @return String hex commitment, null when provably fair shuffling is disabled
+     */
+    public String getNextCommitment() {
+        return seedChain == null ? null : seedChain.getNextCommitment();
+    }
+
     /**
      * Return the current game in the room.
      *
@@ -251,6 +343,7 @@ public class Room implements GameListener, RoomMBean {
             return this.currentGame;
         }
 
+        this.seats.clear();
         this.currentGame = new Game(this);
         this.currentGame.addGameListener(this);
         this.currentGame.addPlayer(this.master);
@@ -285,34 +378,22 @@ public class Room implements GameListener, RoomMBean {
             }
         }
 
-        Player previous_dealer = previous_Game.getDealer();
-        int previous_dealer_index = previous_Game.getDealer_index();
-        if (this.currentGame != null && this.currentGame.getStatus() != GameStatus.END_HAND) {
-            return this.currentGame;
-        }
-        List<Player> newListPlayer = new ArrayList<>();
+        previous_Game.dumpListPlayer();
         this.currentGame = new Game(this);
         this.currentGame.addGameListener(this);
         /**
-         * Prioritize players who are currently playing, will be added first into new game players list.
+         * Players keep their seat. Those who left the room or cannot pay the big blind stand up,
+         * the free seats go to the players waiting in the room.
          * */
-        for (Player p : previous_Game.getListPlayer()) {
-            if (!p.isSittingOut() && (p.getBalance() > this.getBlindLevel().getBigBlind())) {
-                newListPlayer.add(p);
-            }
+        long bigBlind = this.getBlindLevel().getBigBlind();
+        for (int seat = 0; seat < seats.size(); seat++) {
+            Player p = seats.get(seat);
+            if (p != null && (!listPlayer.contains(p) || p.getBalance() <= bigBlind)) seats.leave(seat);
         }
-        /**
-         * Add the remaining Player in room.
-         * */
         for (Player p : listPlayer) {
-            if (newListPlayer.size() >= 8) break;
-            if (!newListPlayer.contains(p) && (p.getBalance() > this.getBlindLevel().getBigBlind())) {
-                p.setSittingOut(false);
-                newListPlayer.add(p);
-            }
+            if (!seats.contains(p) && p.getBalance() > bigBlind) seats.sit(p);
         }
-        previous_Game.dumpListPlayer();
-        for (Player p : newListPlayer) {
+        for (Player p : seats.players()) {
             p.setCommandThisTurn(false);
             p.setSittingOut(false);
             p.setRoundBet(0);
@@ -321,35 +402,14 @@ public class Room implements GameListener, RoomMBean {
         }
         System.out.println("New Game status: " + this.currentGame.getStatus());
         System.out.println("List PLayer new Game: " + currentGame.getListPlayer().toString());
-//        this.currentGame.setListPlayer(newListPlayer);
         /**
-         * Set new dealer for new Game
-         * In case dealer has not quit yet.
+         * The dealer button moves to the next occupied seat.
          * */
-
-        if (currentGame.getListPlayer().contains(previous_dealer)) {
-            Player newDealer = currentGame.getNextPlayer(previous_dealer);
-            System.out.println("New Dealer: " + newDealer);
-            currentGame.setDealer(newDealer);
-
+        int button = seats.nextOccupied(seats.getButton());
+        if (button >= 0) {
+            System.out.println("New Dealer: " + seats.get(button));
+            currentGame.setDealer(seats.get(button));
         }
-        /**
-         * In case previous dealer did quit. New Dealer will lie on next index of prev_dealer.
-         * In case next game got less players than prev-game. Dealer will be set by the index 0.
-         * **/
-        else if (previous_dealer_index < 8) {
-            try {
-                currentGame.setDealer(currentGame.getListPlayer().get(previous_dealer_index + 1));
-            } catch (IndexOutOfBoundsException e) {
-                currentGame.setDealer(currentGame.getListPlayer().get(0));
-            }
-        } else if (previous_dealer_index == 8) currentGame.setDealer(currentGame.getListPlayer().get(0));
-
-
-        /**
-         * In case prev-dealer did stay on the last position. The new dealer will be set by index 0
-         * */
-
 
         //TODO not good because game event should fire from game
         GameActRoomEvent re = new GameActRoomEvent(this);
@@ -402,8 +462,10 @@ public class Room implements GameListener, RoomMBean {
 
     @Override
     public void jmx_kickPlayer(String id) {
-        Player pl = this.listPlayer.stream().filter(p -> id.equals(p.getId())).findFirst().orElse(null);
-        if (pl != null) this.listPlayer.remove(pl);
+        mailbox.run(() -> {
+            Player pl = this.listPlayer.stream().filter(p -> id.equals(p.getId())).findFirst().orElse(null);
+            if (pl != null) this.listPlayer.remove(pl);
+        });
     }
 
     @Override
@@ -413,7 +475,9 @@ public class Room implements GameListener, RoomMBean {
 
     @Override
     public void jmx_setMaster(String id) {
-        Player pl = this.listPlayer.stream().filter(p -> id.equals(p.getId())).findFirst().orElse(null);
-        if (pl != null) this.master = pl;
+        mailbox.run(() -> {
+            Player pl = this.listPlayer.stream().filter(p -> id.equals(p.getId())).findFirst().orElse(null);
+            if (pl != null) this.master = pl;
+        });
     }
 }
@@ -0,0 +1,364 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.fcs.pokerserver;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The seats of a table, kept by the room from one hand to the next.
+ * <p>
+ * A player keeps the same seat number until standing up, so the dealer button simply moves to the next occupied
+ * seat. The state of the hand is kept as one bit per seat: occupied, active (dealt in and not folded), all-in and
+ * acted since the street started or the bet was last raised. Finding the next player to act, counting the live
+ * players and telling whether the betting round is complete are a few bit operations on those masks.
+ *
+ * @category com > fcs > pokerserver
+ */
+public class SeatRing {
+
+    private final Player[] seats;
+    private final Map<Player, Integer> seatOf = new HashMap<>();
+    private final List<Player> players = new Players();
+    private int occupied;
+    private int active;
+    private int allIn;
+    private int acted;
+    private int button = -1;
+
+    /**
+     * Create new the SeatRing
+     *
+     * @param size number of seats, from 2 to 31
+     */
+    public SeatRing(int size) {
+        if (size < 2 || size > 31) {
+            throw new IllegalArgumentException("A table has 2 to 31 seats: " + size);
+        }
+        this.seats = new Player[size];
+    }
+
+    /**
+     * Return the number of seats.
+     *
+     * @return int size
+     */
+    public int size() {
+        return seats.length;
+    }
+
+    /**
+     * Seat a player in the first free seat. A player already seated keeps the seat.
+     *
+     * @param p Player
+     * @return int seat, -1 when the table is full
+     */
+    public int sit(Player p) {
+        Integer seat = seatOf.get(p);
+        if (seat != null) return seat;
+        int free = ~occupied & ((1 << seats.length) - 1);
+        if (free == 0) return -1;
+        int s = Integer.numberOfTrailingZeros(free);
+        seats[s] = p;
+        seatOf.put(p, s);
+        occupied |= 1 << s;
+        return s;
+    }
+
+    /**
+     * Free a seat.
+     *
+     * @param seat seat number
+     */
+    public void leave(int seat) {
+        Player p = seats[seat];
+        if (p == null) return;
+        seatOf.remove(p);
+        seats[seat] = null;
+        int clear = ~(1 << seat);
+        occupied &= clear;
+        active &= clear;
+        allIn &= clear;
+        acted &= clear;
+    }
+
+    /**
+     * Free every seat and forget the button.
+     */
+    public void clear() {
+        Arrays.fill(seats, null);
+        seatOf.clear();
+        occupied = 0;
+        active = 0;
+        allIn = 0;
+        acted = 0;
+        button = -1;
+    }
+
+    /**
+     * Return the player in a seat.
+     *
+     * @param seat seat number
+     * @return Player player, null for a free seat
+     */
+    public Player get(int seat) {
+        return seats[seat];
+    }
+
+    /**
+     * Return the seat of a player.
+     *
+     * @param p Player
+     * @return int seat, -1 when the player is not seated
+     */
+    public int seatOf(Player p) {
+        Integer seat = seatOf.get(p);
+        return seat == null ? -1 : seat;
+    }
+
+    /**
+     * Return true when the player is seated.
+     *
+     * @param p Player
+     * @return boolean seated
+     */
+    public boolean contains(Player p) {
+        return seatOf.containsKey(p);
+    }
+
+    /**
+     * Return the seated players in seat order. Removing a player from the list frees the seat, adding one seats it.
+     *
+     * @return List of Player
+     */
+    public List<Player> players() {
+        return players;
+    }
+
+    /**
+     * Return the players by seat number, null for the free seats.
+     *
+     * @return List of Player
+     */
+    public List<Player> bySeat() {
+        return Collections.unmodifiableList(Arrays.asList(seats));
+    }
+
+    /**
+     * Start a new hand: nobody is dealt in yet.
+     */
+    public void newHand() {
+        active = 0;
+        allIn = 0;
+        acted = 0;
+    }
+
+    /**
+     * Start a new street: nobody has acted yet.
+     */
+    public void newStreet() {
+        acted = 0;
+    }
+
+    /**
+     * Deal a seat in or take it out of the hand, e.g. when the player folds.
+     *
+     * @param seat   seat number
+     * @param active true when the player is in the hand
+     */
+    public void setActive(int seat, boolean active) {
+        if (active && seats[seat] != null) {
+            this.active |= 1 << seat;
+        } else {
+            this.active &= ~(1 << seat);
+        }
+    }
+
+    /**
+     * Record that a seat acted on this street.
+     *
+     * @param seat seat number
+     */
+    public void act(int seat) {
+        acted |= 1 << seat;
+    }
+
+    /**
+     * Give a seat the option to act again, e.g. the big blind after posting.
+     *
+     * @param seat seat number
+     */
+    public void clearActed(int seat) {
+        acted &= ~(1 << seat);
+    }
+
+    /**
+     * Record that a seat raised the bet. Every other player who is not all-in has to act again.
+     *
+     * @param seat seat number
+     */
+    public void raise(int seat) {
+        acted = (acted & allIn) | (1 << seat);
+    }
+
+    /**
+     * Record that a seat is all-in.
+     *
+     * @param seat seat number
+     */
+    public void allIn(int seat) {
+        allIn |= 1 << seat;
+    }
+
+    /**
+     * Return true when every player in the hand acted since the street started or the bet was last raised.
+     *
+     * @return boolean round complete
+     */
+    public boolean isRoundComplete() {
+        return (active & ~acted) == 0;
+    }
+
+    /**
+     * Return the next seat in the hand after the given one, going round the table.
+     *
+     * @param seat seat number, -1 to start from the first seat
+     * @return int seat, the given seat when it is the only one in the hand, -1 when nobody is
+     */
+    public int nextActive(int seat) {
+        return next(active, seat);
+    }
+
+    /**
+     * Return the next occupied seat after the given one, going round the table.
+     *
+     * @param seat seat number, -1 to start from the first seat
+     * @return int seat, -1 when the table is empty
+     */
+    public int nextOccupied(int seat) {
+        return next(occupied, seat);
+    }
+
+    private static int next(int mask, int seat) {
+        int after = seat < 0 ? mask : mask & (-2 << seat);
+        if (after != 0) return Integer.numberOfTrailingZeros(after);
+        return mask == 0 ? -1 : Integer.numberOfTrailingZeros(mask);
+    }
+
+    /**
+     * Return the number of players still in the hand.
+     *
+     * @return int count
+     */
+    public int getActiveCount() {
+        return Integer.bitCount(active);
+    }
+
+    public int getOccupied() {
+        return occupied;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getAllIn() {
+        return allIn;
+    }
+
+    public int getActed() {
+        return acted;
+    }
+
+    /**
+     * Return the seat of the dealer button.
+     *
+     * @return int seat, -1 before the first hand
+     */
+    public int getButton() {
+        return button;
+    }
+
+    public void setButton(int button) {
+        this.button = button;
+    }
+
+    /**
+     * The seated players in seat order, backed by the seats.
+     */
+    private class Players extends AbstractList<Player> {
+
+        @Override
+        public Player get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            int mask = occupied;
+            for (int i = 0; i < index; i++) {
+                mask &= mask - 1;
+            }
+            return seats[Integer.numberOfTrailingZeros(mask)];
+        }
+
+        @Override
+        public int size() {
+            return Integer.bitCount(occupied);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return seatOf.containsKey(o);
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            Integer seat = seatOf.get(o);
+            return seat == null ? -1 : Integer.bitCount(occupied & ((1 << seat) - 1));
+        }
+
+        @Override
+        public boolean add(Player p) {
+            if (contains(p)) return false;
+            if (sit(p) < 0) {
+                throw new IllegalStateException("No free seat for " + p.getId());
+            }
+            return true;
+        }
+
+        @Override
+        public Player remove(int index) {
+            Player p = get(index);
+            leave(seatOf.get(p));
+            return p;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            Integer seat = seatOf.get(o);
+            if (seat == null) return false;
+            leave(seat);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.fcs.pokerserver;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Cryptographically strong {@link DeckRandom}.
+ * <p>
+ * Every thread owns a {@link SecureRandom}, a DRBG when the JVM provides one, and takes random bytes from it in
+ * batches, so shuffling neither contends on a shared generator nor calls into the provider for every card.
+ * Values are drawn by rejection, so every result is equally likely.
+ * @category com > fcs > pokerserver
+ */
+final class SecureDeckRandom implements DeckRandom {
+
+	static final SecureDeckRandom INSTANCE = new SecureDeckRandom();
+
+	private static final int BATCH = 512;
+
+	private final ThreadLocal<Buffer> buffers = ThreadLocal.withInitial(Buffer::new);
+
+	private SecureDeckRandom() {
+	}
+
+	@Override
+	public int nextInt(int bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("Bound must be positive: " + bound);
+		}
+		Buffer buffer = buffers.get();
+		int limit = Integer.MAX_VALUE - Integer.MAX_VALUE % bound;
+		int value;
+		do {
+			value = buffer.nextInt() & Integer.MAX_VALUE;
+		} while (value >= limit);
+		return value % bound;
+	}
+
+	private static SecureRandom newRandom() {
+		try {
+			return SecureRandom.getInstance("DRBG");
+		} catch (NoSuchAlgorithmException e) {
+			return new SecureRandom();
+		}
+	}
+
+	/**
+	 * Random bytes of one thread, refilled a batch at a time.
+	 */
+	private static class Buffer {
+		private final SecureRandom random = newRandom();
+		private final byte[] bytes = new byte[BATCH];
+		private int position = BATCH;
+
+		int nextInt() {
+			if (position > BATCH - 4) {
+				random.nextBytes(bytes);
+				position = 0;
+			}
+			int value = (bytes[position] & 0xFF) << 24 | (bytes[position + 1] & 0xFF) << 16
+					| (bytes[position + 2] & 0xFF) << 8 | (bytes[position + 3] & 0xFF);
+			position += 4;
+			return value;
+		}
+	}
+}
@@ -0,0 +1,101 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.fcs.pokerserver;
+
+import java.security.SecureRandom;
+
+/**
+ * Hash chain of server seeds for {@link FairShuffle}.
+ * <p>
+ * The last seed of the chain is random and every other seed is the SHA-256 of the seed after it. Seeds are used
+ * from the first one on, so the commitment of a hand, the SHA-256 of its seed, is the seed revealed at the end of
+ * the previous hand, or the anchor of the chain for the first hand. The commitment of the next hand is published
+ * with the WAITTING event and the snapshots of the room, before the client seeds of the hand are read, so the
+ * anchor of a new chain is shown before its first hand as well. The whole chain is hashed once when it is
+ * built, and taking the seed and commitment of a hand needs no hashing at all. A new chain is built when all
+ * its seeds are used.
+ * @category com > fcs > pokerserver
+ */
+public final class SeedChain {
+
+	public static final String FAIR_PROPERTY = "pokerserver.shuffle.fair";
+	public static final int DEFAULT_LENGTH = 1024;
+
+	private final SecureRandom random = new SecureRandom();
+	private final byte[][] seeds;
+	private byte[] anchor;
+	private int next;
+
+	/**
+	 * Create new the SeedChain
+	 * @param length number of hands before a new chain is built
+	 * */
+	public SeedChain(int length) {
+		if (length < 1) {
+			throw new IllegalArgumentException("Chain length must be positive: " + length);
+		}
+		this.seeds = new byte[length][];
+		generate();
+	}
+
+	/**
+	 * Return a chain when provably fair shuffling is enabled with {@code pokerserver.shuffle.fair} (the default).
+	 * @return SeedChain chain, or null when it is disabled
+	 * */
+	public static SeedChain fromProperties() {
+		return Boolean.parseBoolean(System.getProperty(FAIR_PROPERTY, "true")) ? new SeedChain(DEFAULT_LENGTH) : null;
+	}
+
+	/**
+	 * Take the seed of the next hand.
+	 * @param clientSeed client seeds to mix into the shuffle
+	 * @param nonce number of the hand
+	 * @return FairShuffle shuffle of the hand
+	 * */
+	public synchronized FairShuffle next(String clientSeed, long nonce) {
+		if (next == seeds.length) {
+			generate();
+		}
+		byte[] commitment = next == 0 ? anchor : seeds[next - 1];
+		return new FairShuffle(seeds[next++], commitment, clientSeed, nonce);
+	}
+
+	/**
+	 * Return the commitment of the next hand.
+	 * @return String hex commitment
+	 * */
+	public synchronized String getNextCommitment() {
+		if (next == seeds.length) {
+			generate();
+		}
+		return FairShuffle.toHex(next == 0 ? anchor : seeds[next - 1]);
+	}
+
+	private void generate() {
+		byte[] seed = new byte[32];
+		random.nextBytes(seed);
+		seeds[seeds.length - 1] = seed;
+		for (int i = seeds.length - 2; i >= 0; i--) {
+			seeds[i] = FairShuffle.sha256(seeds[i + 1]);
+		}
+		anchor = FairShuffle.sha256(seeds[0]);
+		next = 0;
+	}
+}
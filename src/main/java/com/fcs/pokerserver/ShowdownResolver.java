@@ -0,0 +1,104 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.fcs.pokerserver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fcs.pokerserver.holder.BoardEvaluation;
+import com.fcs.pokerserver.holder.CardSet;
+import com.fcs.pokerserver.holder.HandRank;
+
+/**
+ * Settle the pots of a hand at showdown.
+ * <p>
+ * Every seat still in the hand is evaluated once into an array of ranks, the {@link PotManager} pays its layers
+ * from that array and the layers won with the same rank are collected into the pots of a {@link ShowdownResult}.
+ * Only the winners are looked at again, to find the five cards making their rank.
+ *
+ * @category com > fcs > pokerserver
+ */
+public class ShowdownResolver {
+
+    private final BoardEvaluation showdown;
+
+    /**
+     * Create new the ShowdownResolver
+     *
+     * @param showdown Board of the game prepared for calculating hand rank
+     */
+    public ShowdownResolver(BoardEvaluation showdown) {
+        this.showdown = showdown;
+    }
+
+    /**
+     * Rank the seats in the showdown and pay the pots.
+     *
+     * @param seats     players by seat of the {@link PotManager}
+     * @param live      one bit per seat still in the hand
+     * @param pots      main and side pots of the hand
+     * @param firstSeat seat receiving the first odd chip, usually the one on the left of the dealer
+     * @return ShowdownResult pots with their winners, main pot first
+     * @throws IllegalStateException if the pots do not add up
+     */
+    public ShowdownResult resolve(List<Player> seats, long live, PotManager pots, int firstSeat) {
+        int[] ranks = new int[seats.size()];
+        Arrays.fill(ranks, -1);
+        for (long m = live; m != 0; m &= m - 1) {
+            int seat = Long.numberOfTrailingZeros(m);
+            ranks[seat] = showdown.rankOf(seats.get(seat).getPlayerHand());
+        }
+        long[] payouts = new long[ranks.length];
+        long[] layerWinners = pots.award(ranks, firstSeat, payouts);
+
+        // Layers are won by ever lower ranks, the layers won with the same rank make one pot.
+        List<ShowdownResult.Pot> result = new ArrayList<>();
+        long winners = 0;
+        int rank = -1;
+        for (long mask : layerWinners) {
+            if (mask == 0) continue;
+            int layerRank = ranks[Long.numberOfTrailingZeros(mask)];
+            if (winners != 0 && layerRank != rank) {
+                result.add(pot(seats, winners, rank, payouts));
+                winners = 0;
+            }
+            winners |= mask;
+            rank = layerRank;
+        }
+        if (winners != 0) result.add(pot(seats, winners, rank, payouts));
+        return new ShowdownResult(result, ranks, payouts);
+    }
+
+    private ShowdownResult.Pot pot(List<Player> seats, long winners, int rank, long[] payouts) {
+        int count = Long.bitCount(winners);
+        List<Player> players = new ArrayList<>(count);
+        List<CardSet> bestFive = new ArrayList<>(count);
+        long[] amounts = new long[count];
+        for (int i = 0; winners != 0; winners &= winners - 1, i++) {
+            int seat = Long.numberOfTrailingZeros(winners);
+            Player p = seats.get(seat);
+            players.add(p);
+            bestFive.add(showdown.bestFive(p.getPlayerHand()));
+            amounts[i] = payouts[seat];
+        }
+        return new ShowdownResult.Pot(players, amounts, new HandRank(rank), bestFive);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.fcs.pokerserver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.fcs.pokerserver.holder.CardSet;
+import com.fcs.pokerserver.holder.Hand;
+import com.fcs.pokerserver.holder.HandRank;
+
+/**
+ * Outcome of a showdown: the pots in the order they are announced, and the rank and winnings of every seat.
+ * <p>
+ * Layers of the {@link PotManager} won with the same rank are reported as one pot, so the first pot holds the
+ * main pot and every following pot what was left for a lower rank.
+ *
+ * @category com > fcs > pokerserver
+ */
+public final class ShowdownResult {
+
+    /**
+     * Chips won with one rank.
+     */
+    public static final class Pot {
+
+        private final List<Player> winners;
+        private final long[] amounts;
+        private final HandRank rank;
+        private final List<CardSet> bestFive;
+
+        Pot(List<Player> winners, long[] amounts, HandRank rank, List<CardSet> bestFive) {
+            this.winners = Collections.unmodifiableList(winners);
+            this.amounts = amounts;
+            this.rank = rank;
+            this.bestFive = Collections.unmodifiableList(bestFive);
+        }
+
+        /**
+         * Return the winners of the pot, in seat order.
+         *
+         * @return List of Player
+         */
+        public List<Player> getWinners() {
+            return winners;
+        }
+
+        /**
+         * Return the hands of the winners.
+         *
+         * @return List of Hand
+         */
+        public List<Hand> getHands() {
+            List<Hand> hands = new ArrayList<>(winners.size());
+            for (Player p : winners) {
+                hands.add(p.getPlayerHand());
+            }
+            return hands;
+        }
+
+        /**
+         * Return the chips won by the winner at the given index, odd chips included.
+         *
+         * @param index index in {@link #getWinners()}
+         * @return long amount
+         */
+        public long getAmount(int index) {
+            return amounts[index];
+        }
+
+        /**
+         * Return all chips of the pot.
+         *
+         * @return long amount
+         */
+        public long getAmount() {
+            long amount = 0;
+            for (long a : amounts) {
+                amount += a;
+            }
+            return amount;
+        }
+
+        /**
+         * Return the rank winning the pot.
+         *
+         * @return HandRank rank
+         */
+        public HandRank getRank() {
+            return rank;
+        }
+
+        /**
+         * Return the five cards making the rank, one set per winner.
+         *
+         * @return List of CardSet
+         */
+        public List<CardSet> getBestFive() {
+            return bestFive;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("{\"rank\":\"").append(rank).append("\",\"winners\":[");
+            for (int i = 0; i < winners.size(); i++) {
+                if (i > 0) sb.append(',');
+                sb.append("{\"id\":\"").append(winners.get(i).getId()).append("\",\"amount\":").append(amounts[i])
+                        .append(",\"bestFive\":\"").append(bestFive.get(i)).append("\"}");
+            }
+            return sb.append("]}").toString();
+        }
+    }
+
+    private final List<Pot> pots;
+    private final int[] ranks;
+    private final long[] payouts;
+
+    ShowdownResult(List<Pot> pots, int[] ranks, long[] payouts) {
+        this.pots = Collections.unmodifiableList(pots);
+        this.ranks = ranks;
+        this.payouts = payouts;
+    }
+
+    /**
+     * Return the pots, main pot first.
+     *
+     * @return List of Pot
+     */
+    public List<Pot> getPots() {
+        return pots;
+    }
+
+    /**
+     * Return the raw rank value of a seat.
+     *
+     * @param seat seat in the {@link PotManager}
+     * @return int rank value, -1 for a seat that was not in the showdown
+     */
+    public int getRank(int seat) {
+        return ranks[seat];
+    }
+
+    /**
+     * Return the chips won by a seat.
+     *
+     * @param seat seat in the {@link PotManager}
+     * @return long amount
+     */
+    public long getPayout(int seat) {
+        return payouts[seat];
+    }
+
+    @Override
+    public String toString() {
+        return pots.toString();
+    }
+}
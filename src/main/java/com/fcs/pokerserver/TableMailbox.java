@@ -0,0 +1,196 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.fcs.pokerserver;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single consumer mailbox of a table. Every change to a {@link Room} and its {@link Game} from outside the
+ * engine, a request, a countdown or a JMX setter, goes in as a command and the commands of a table run one at
+ * a time in the order they were submitted, so the engine itself needs no locks.
+ * <p>
+ * The mailbox owns no thread. While it has commands it is scheduled on a pool shared by all tables, with
+ * {@code pokerserver.table.threads} threads (the number of processors by default), and hands the thread back
+ * after {@link #BATCH} commands so a busy table cannot starve the others. Commands submitted while a command of
+ * the same table runs, for example by a listener, are queued behind it.
+ *
+ * @category com > fcs > pokerserver
+ */
+public class TableMailbox {
+
+    public static final String THREADS_PROPERTY = "pokerserver.table.threads";
+
+    /**
+     * Commands run before the thread goes back to the pool.
+     */
+    static final int BATCH = 64;
+
+    private static class Holder {
+        private static final ExecutorService TABLES = Executors.newFixedThreadPool(
+                Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()), new ThreadFactory());
+    }
+
+    private static class ThreadFactory implements java.util.concurrent.ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "table-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
+    private final Executor executor;
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile Thread owner;
+
+    /**
+     * Create new the TableMailbox on the shared table pool
+     */
+    public TableMailbox() {
+        this(null);
+    }
+
+    /**
+     * Create new the TableMailbox
+     *
+     * @param executor executor running the commands, null for the shared table pool
+     */
+    public TableMailbox(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Queue a command of the table.
+     *
+     * @param command command to run on the table
+     * @return CompletableFuture completed with the result of the command, or exceptionally with what it threw
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> command) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        queue.offer(() -> {
+            try {
+                result.complete(command.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        if (pending.getAndIncrement() == 0) schedule();
+        return result;
+    }
+
+    /**
+     * Queue a command of the table without a result.
+     *
+     * @param command command to run on the table
+     * @return CompletableFuture completed once the command ran
+     */
+    public CompletableFuture<Void> execute(Runnable command) {
+        return submit(() -> {
+            command.run();
+            return null;
+        });
+    }
+
+    /**
+     * Run a command of the table and wait for its result. A command of the table calling this runs the
+     * command at once, waiting for its own queue would never end.
+     *
+     * @param command command to run on the table
+     * @return T result of the command
+     */
+    public <T> T call(Callable<T> command) {
+        if (isDraining()) {
+            try {
+                return command.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }
+        try {
+            return submit(command).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Run a command of the table and wait until it ran, see {@link #call(Callable)}.
+     *
+     * @param command command to run on the table
+     */
+    public void run(Runnable command) {
+        call(Executors.callable(command));
+    }
+
+    /**
+     * Return true when the current thread runs a command of this table.
+     *
+     * @return boolean draining
+     */
+    public boolean isDraining() {
+        return owner == Thread.currentThread();
+    }
+
+    /**
+     * Return the number of commands queued or running.
+     *
+     * @return int pending
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    private void schedule() {
+        (executor != null ? executor : Holder.TABLES).execute(this::drain);
+    }
+
+    /**
+     * Run queued commands until the queue is empty or the batch is used up. Only one drain runs at a time,
+     * the submit that finds the mailbox idle schedules it and the drain that leaves commands behind reschedules.
+     */
+    private void drain() {
+        Thread self = Thread.currentThread();
+        for (int left = BATCH; ; ) {
+            owner = self;
+            queue.poll().run();
+            // let go before the count can reach zero, the next drain may start on another thread right after
+            owner = null;
+            if (pending.decrementAndGet() == 0) return;
+            if (--left == 0) break;
+        }
+        schedule();
+    }
+}
@@ -2,14 +2,25 @@ package com.fcs.pokerserver.automation;
 
 import com.fcs.pokerserver.Game;
 import com.fcs.pokerserver.Player;
+import com.fcs.pokerserver.Room;
 
-import java.util.TimerTask;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
-public class CountDownPlayer extends TimerTask {
+/**
+ * Action clock of the player on turn. When the clock runs out the player's time bank starts, when that runs
+ * out too the player folds. Acting in time cancels the clock and gives back what is left of the time bank.
+ * The clock ticks on the shared {@link HashedWheelTimer}, everything else runs in the mailbox of the table.
+ *
+ * @category com > fcs > pokerserver > automation
+ */
+public class CountDownPlayer implements Runnable {
     private String id;
     private Player player;
     private Game currentGame;
+    private volatile HashedWheelTimer.Timeout timeout;
+    private boolean inTimeBank = false;
+    private boolean cancelled = false;
 
     public CountDownPlayer(Player player, Game game) {
         id = UUID.randomUUID().toString();
@@ -25,12 +36,51 @@ public class CountDownPlayer extends TimerTask {
         return id;
     }
 
+    /**
+     * Start the clock.
+     *
+     * @param delay milliseconds the player has to act
+     */
+    public void start(long delay) {
+        timeout = HashedWheelTimer.getShared().schedule(this, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the clock because the player acted or the game is over.
+     *
+     * @return boolean true when the clock was still running
+     */
+    public boolean cancel() {
+        if (cancelled) return false;
+        cancelled = true;
+        HashedWheelTimer.Timeout t = timeout;
+        if (t == null || !t.cancel()) return false;
+        if (inTimeBank) player.setTimeBank(player.getTimeBank() + t.getRemaining(TimeUnit.MILLISECONDS));
+        return true;
+    }
+
+    /**
+     * Runs on the timer thread, so the expiry goes through the mailbox of the room like any other command.
+     */
     @Override
     public void run() {
         System.out.println("PID: " + player.getId() + " id: " + id);
-        if (currentGame.getCurrentPlayer() == player) {
-            player.fold();
-            System.out.println("IN " + id + " Player: " + player.getId() + " is folded automaticatlly!");
+        Room room = currentGame.getRoom();
+        room.execute(this::expire);
+    }
+
+    private void expire() {
+        if (cancelled || currentGame.getCurrentPlayer() != player) return;
+        long timeBank = player.getTimeBank();
+        if (!inTimeBank && timeBank > 0) {
+            inTimeBank = true;
+            player.setTimeBank(0);
+            System.out.println("IN " + id + " Player: " + player.getId() + " uses the time bank: " + timeBank);
+            start(timeBank);
+            return;
         }
+        cancelled = true;
+        player.fold();
+        System.out.println("IN " + id + " Player: " + player.getId() + " is folded automaticatlly!");
     }
 }
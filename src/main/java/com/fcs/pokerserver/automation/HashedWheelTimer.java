@@ -0,0 +1,280 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.fcs.pokerserver.automation;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Timer for the action clocks of all tables, one thread for any number of timeouts.
+ * <p>
+ * Timeouts hang in the buckets of a wheel turning one bucket per tick, a timeout further away than one turn
+ * waits the number of turns it still needs. Scheduling and cancelling only queue the timeout, the timer
+ * thread moves it into or out of its bucket on the next tick, so both are O(1) and a cancelled timeout does
+ * not stay around until its deadline. A timeout fires up to one tick late, which is fine for clocks counted in
+ * seconds. The task runs on the timer thread and must only hand the work over, for example to the mailbox
+ * of its table.
+ * <p>
+ * The shared timer ticks every {@code pokerserver.timer.tick} milliseconds (100 by default).
+ *
+ * @category com > fcs > pokerserver > automation
+ */
+public class HashedWheelTimer {
+
+    public static final String TICK_PROPERTY = "pokerserver.timer.tick";
+
+    private static final Logger logger = Logger.getLogger(HashedWheelTimer.class.getName());
+
+    private static class Holder {
+        private static final HashedWheelTimer SHARED = new HashedWheelTimer("turn-timer",
+                Long.getLong(TICK_PROPERTY, 100L), TimeUnit.MILLISECONDS, 512);
+    }
+
+    private final long tick;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long start = System.nanoTime();
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Thread worker;
+    private volatile boolean stopped;
+
+    /**
+     * Create new the HashedWheelTimer and start its thread
+     *
+     * @param name     name of the timer thread
+     * @param tick     time between two ticks
+     * @param unit     unit of the tick
+     * @param buckets  buckets of the wheel, rounded up to a power of two
+     */
+    public HashedWheelTimer(String name, long tick, TimeUnit unit, int buckets) {
+        if (tick <= 0) throw new IllegalArgumentException("tick must be positive: " + tick);
+        if (buckets <= 0 || buckets > 1 << 20) throw new IllegalArgumentException("buckets out of range: " + buckets);
+        this.tick = unit.toNanos(tick);
+        int size = 1;
+        while (size < buckets) size <<= 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) wheel[i] = new Bucket();
+        this.mask = size - 1;
+        this.worker = new Thread(this::turn, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Return the timer shared by all tables.
+     *
+     * @return HashedWheelTimer shared timer
+     */
+    public static HashedWheelTimer getShared() {
+        return Holder.SHARED;
+    }
+
+    /**
+     * Run the task once the delay is over.
+     *
+     * @param task  task to run on the timer thread
+     * @param delay delay before the task runs
+     * @param unit  unit of the delay
+     * @return Timeout to cancel the task
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (stopped) throw new IllegalStateException("Timer is stopped");
+        Timeout timeout = new Timeout(task, System.nanoTime() - start + Math.max(0, unit.toNanos(delay)));
+        pending.incrementAndGet();
+        added.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Return the number of timeouts that neither fired nor were removed after a cancel.
+     *
+     * @return int pending timeouts
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * Stop the timer thread, the timeouts still waiting never fire.
+     */
+    public void stop() {
+        stopped = true;
+        worker.interrupt();
+    }
+
+    private void turn() {
+        for (long ticks = 0; !stopped; ticks++) {
+            long deadline = tick * (ticks + 1);
+            for (long sleep = deadline - (System.nanoTime() - start); sleep > 0 && !stopped;
+                 sleep = deadline - (System.nanoTime() - start)) {
+                LockSupport.parkNanos(this, sleep);
+            }
+            if (stopped) return;
+            removeCancelled();
+            transferAdded(ticks);
+            wheel[(int) (ticks & mask)].expire();
+        }
+    }
+
+    private void removeCancelled() {
+        for (Timeout timeout; (timeout = cancelled.poll()) != null; ) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+                pending.decrementAndGet();
+            }
+        }
+    }
+
+    private void transferAdded(long ticks) {
+        for (Timeout timeout; (timeout = added.poll()) != null; ) {
+            if (timeout.state.get() == Timeout.CANCELLED) {
+                pending.decrementAndGet();
+                continue;
+            }
+            long due = timeout.deadline / tick;
+            timeout.rounds = (due - ticks) / wheel.length;
+            wheel[(int) (Math.max(due, ticks) & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * A task waiting in the timer.
+     */
+    public final class Timeout {
+        private static final int WAITING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private long rounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancel the task unless it already ran.
+         *
+         * @return boolean true when the task will not run because of this call
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(WAITING, CANCELLED)) return false;
+            cancelled.add(this);
+            return true;
+        }
+
+        /**
+         * Return true when the timeout was cancelled before it fired.
+         *
+         * @return boolean cancelled
+         */
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        /**
+         * Return true when the task ran or is running.
+         *
+         * @return boolean expired
+         */
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        /**
+         * Return the time left until the deadline.
+         *
+         * @param unit unit of the result
+         * @return long time left, 0 once the deadline is over
+         */
+        public long getRemaining(TimeUnit unit) {
+            return unit.convert(Math.max(0, deadline - (System.nanoTime() - start)), TimeUnit.NANOSECONDS);
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(WAITING, EXPIRED)) return;
+            try {
+                task.run();
+            } catch (Throwable e) {
+                logger.log(Level.WARNING, "Timer task failed", e);
+            }
+        }
+    }
+
+    /**
+     * Doubly linked list of the timeouts of one bucket, only touched by the timer thread.
+     */
+    private final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire() {
+            for (Timeout timeout = head; timeout != null; ) {
+                Timeout next = timeout.next;
+                if (timeout.rounds <= 0) {
+                    remove(timeout);
+                    pending.decrementAndGet();
+                    timeout.expire();
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                    pending.decrementAndGet();
+                } else {
+                    timeout.rounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) return;
+            if (timeout.prev != null) timeout.prev.next = timeout.next;
+            else head = timeout.next;
+            if (timeout.next != null) timeout.next.prev = timeout.prev;
+            else tail = timeout.prev;
+            timeout.prev = timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.fcs.pokerserver.events;
 
+import com.fcs.pokerserver.FairShuffle;
 import com.fcs.pokerserver.Game;
 import com.fcs.pokerserver.Player;
+import com.fcs.pokerserver.ShowdownResult;
 import com.fcs.pokerserver.holder.Hand;
 
 import java.util.List;
@@ -9,7 +11,9 @@ import java.util.List;
 public class EndGameEvent extends AbstractGameEvent {
     private List<Player> playerwins;
     private String rank;
+    private ShowdownResult.Pot pot;
     private List<Hand> bestHands;
+    private FairShuffle fairShuffle;
 
     public EndGameEvent(Game src) {
         super(src);
@@ -32,6 +36,32 @@ public class EndGameEvent extends AbstractGameEvent {
         this.bestHands = bestHands;
     }
 
+    /**
+     * Return the shuffle of the hand, revealing its server seed.
+     *
+     * @return FairShuffle shuffle, null when the deck was not shuffled provably fair
+     */
+    public FairShuffle getFairShuffle() {
+        return fairShuffle;
+    }
+
+    public void setFairShuffle(FairShuffle fairShuffle) {
+        this.fairShuffle = fairShuffle;
+    }
+
+    /**
+     * Return the pot announced by this event, with the amount and the best five cards of every winner.
+     *
+     * @return ShowdownResult.Pot pot, null when the game ended without a showdown
+     */
+    public ShowdownResult.Pot getPot() {
+        return pot;
+    }
+
+    public void setPot(ShowdownResult.Pot pot) {
+        this.pot = pot;
+    }
+
     public String getRank() {
         return rank;
     }
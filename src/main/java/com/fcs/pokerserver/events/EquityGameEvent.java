@@ -0,0 +1,48 @@
+package com.fcs.pokerserver.events;
+
+import com.fcs.pokerserver.Game;
+import com.fcs.pokerserver.Player;
+import com.fcs.pokerserver.holder.EquityResult;
+
+import java.util.List;
+
+/**
+ * Equity of every player still in the pot, fired on each street once all-in players leave no betting to do.
+ *
+ * @category com > fcs > pokerserver > events
+ */
+public class EquityGameEvent extends AbstractGameEvent {
+    private List<Player> players;
+    private EquityResult equity;
+
+    public EquityGameEvent(Game src) {
+        super(src);
+        this.setType(GameAction.EQUITY);
+    }
+
+    public List<Player> getPlayers() {
+        return players;
+    }
+
+    public void setPlayers(List<Player> players) {
+        this.players = players;
+    }
+
+    /**
+     * Return the equities in the order of {@link #getPlayers()}.
+     *
+     * @return EquityResult equity
+     */
+    public EquityResult getEquity() {
+        return equity;
+    }
+
+    public void setEquity(EquityResult equity) {
+        this.equity = equity;
+    }
+
+    @Override
+    public String toString() {
+        return super.getSrc().getId() + " " + GameAction.EQUITY.toString() + " players: " + players + " equity: " + equity;
+    }
+}
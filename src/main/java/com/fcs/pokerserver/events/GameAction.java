@@ -35,6 +35,7 @@ public enum GameAction {
     TURN,
     RIVER,
     ENDED,
-    PLAYEREVENT
+    PLAYEREVENT,
+    EQUITY
 
 }
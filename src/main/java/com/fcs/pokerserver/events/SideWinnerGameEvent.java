@@ -2,6 +2,7 @@ package com.fcs.pokerserver.events;
 
 import com.fcs.pokerserver.Game;
 import com.fcs.pokerserver.Player;
+import com.fcs.pokerserver.ShowdownResult;
 import com.fcs.pokerserver.holder.Hand;
 
 import java.util.List;
@@ -10,6 +11,7 @@ public class SideWinnerGameEvent extends AbstractGameEvent {
     private List<Player> winners;
     private List<Hand> Hands;
     private String rank;
+    private ShowdownResult.Pot pot;
 
     public SideWinnerGameEvent(Game src) {
         super(src);
@@ -32,6 +34,19 @@ public class SideWinnerGameEvent extends AbstractGameEvent {
         Hands = hands;
     }
 
+    /**
+     * Return the pot announced by this event, with the amount and the best five cards of every winner.
+     *
+     * @return ShowdownResult.Pot pot
+     */
+    public ShowdownResult.Pot getPot() {
+        return pot;
+    }
+
+    public void setPot(ShowdownResult.Pot pot) {
+        this.pot = pot;
+    }
+
     public String getRank() {
         return rank;
     }
@@ -0,0 +1,44 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.fcs.pokerserver.gameserver;
+
+/**
+ * How much a message may be shed when the outbound queue of a {@link Sender} is full. A full queue makes room
+ * for a message by dropping the oldest message of a lower priority, the message itself is dropped when there
+ * is none.
+ *
+ * @category com > fcs > pokerserver > gameserver
+ */
+public enum MessagePriority {
+    /**
+     * Repeated information the next message makes up for, like whose turn it is.
+     */
+    DROPPABLE,
+    /**
+     * State that a later message of the same kind replaces completely, like the equity of the players.
+     */
+    SNAPSHOT,
+    NORMAL,
+    /**
+     * Cards dealt, chips moved and the end of the hand, the clients cannot follow the game without them.
+     */
+    CRITICAL
+}
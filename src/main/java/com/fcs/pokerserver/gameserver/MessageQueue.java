@@ -0,0 +1,104 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.fcs.pokerserver.gameserver;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The messages is added into the MessageQueue
+ * @category com > fcs > pokerserver > gameserver
+ * */
+class MessageQueue 
+{	
+	private String topic;
+	private String content;
+	private byte[] payload;
+	private int qos;
+	/**
+	 * The constructor with 3 parameters topic, content and QoS.
+	 * @param String topic, String content, int qos
+	 * */
+	public MessageQueue(String topic, String content, int qos) {
+		super();
+		this.topic = topic;
+		this.content = content;
+		this.qos = qos;
+	}
+
+	/**
+	 * The constructor of a binary message.
+	 * @param String topic, byte[] payload, int qos
+	 * */
+	public MessageQueue(String topic, byte[] payload, int qos) {
+		super();
+		this.topic = topic;
+		this.payload = payload;
+		this.qos = qos;
+	}
+	
+	/**
+	 * Return the topic.
+	 * @return String topic.
+	 * */
+	public String getTopic() {
+		return topic;
+	}
+	
+	/**
+	 * The method to set value for topic
+	 * @param String topic
+	 * */
+//	public void setTopic(String topic) {
+//		this.topic = topic;
+//	}
+	
+	/**
+	 * Return the Content.
+	 * @return String content
+	 * */
+	public String getContent() {
+		return content;
+	}
+
+	/**
+	 * Return the MQTT quality of service the message is published with.
+	 * @return int qos
+	 * */
+	public int getQos() {
+		return qos;
+	}
+
+	/**
+	 * Return the bytes sent to the broker, the content in UTF-8 for a text message.
+	 * @return byte[] payload
+	 * */
+	public byte[] getPayload() {
+		return payload != null ? payload : content.getBytes(StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * The method to set value for the content.
+	 * @param String content
+	 * */
+//	public void setContent(String content) {
+//		this.content = content;
+//	}
+}
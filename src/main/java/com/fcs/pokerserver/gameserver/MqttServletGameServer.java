@@ -26,13 +26,17 @@ import java.lang.management.ManagementFactory;
 import java.nio.charset.Charset;
 import java.rmi.registry.LocateRegistry;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
@@ -42,8 +46,13 @@ import javax.management.remote.JMXServiceURL;
 import javax.servlet.DispatcherType;
 
 
+import com.fcs.pokerserver.FairShuffle;
+import com.fcs.pokerserver.FairnessMonitor;
 import com.fcs.pokerserver.Game;
+import com.fcs.pokerserver.GameStatus;
 import com.fcs.pokerserver.events.*;
+import com.fcs.pokerserver.holder.HandEvaluator;
+import com.fcs.pokerserver.holder.PreflopEquity;
 
 import com.fsc.pokerserver.web.*;
 import org.eclipse.jetty.jmx.MBeanContainer;
@@ -53,7 +62,7 @@ import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
 import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
 import org.eclipse.paho.client.mqttv3.MqttCallback;
-import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 import org.eclipse.paho.client.mqttv3.MqttException;
 import org.eclipse.paho.client.mqttv3.MqttMessage;
@@ -78,7 +87,10 @@ public class MqttServletGameServer implements MqttCallback, RoomListener, MqttSe
 
     private static final String BROKER_URL = "tcp://broker.mqttdashboard.com:1883";
     private static final String SERVER_TOPIC = "/pokerserver/server";
-    private Sender sender;
+    private Publisher publisher;
+    private final WireFormat wireFormat = WireFormat.fromProperty();
+    private final WireEncoder encoder = new WireEncoder();
+    private final Map<Long, RoomState> states = new ConcurrentHashMap<>();
     private static Logger logger = Logger.getLogger(MqttServletGameServer.class.getName());
 
 
@@ -95,18 +107,25 @@ public class MqttServletGameServer implements MqttCallback, RoomListener, MqttSe
     }
 
     private MqttServletGameServer() throws Exception {
+        Thread warmUp = new Thread(MqttServletGameServer::warmUp, "evaluator-warm-up");
+        warmUp.setDaemon(true);
+        warmUp.start();
+
         ServletHolder loginServlet = new ServletHolder(LoginServlet.class);
         ServletHolder registerServlet = new ServletHolder(RegisterServlet.class);
         ServletHolder roomServlet = new ServletHolder(RoomServlet.class);
         ServletHolder gameServlet = new ServletHolder(GameServlet.class);
         ServletHolder deleteUserServlet = new ServletHolder(DeleteUserServlet.class);
         ServletHolder getProfile = new ServletHolder(GetProfilePlayerServlet.class);
+        ServletHolder healthServlet = new ServletHolder(HealthServlet.class);
 
         Server server = new Server(8080);
         MBeanContainer mbContainer = new MBeanContainer(ManagementFactory.getPlatformMBeanServer());
         LocateRegistry.createRegistry(1234);
         MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
         mbs.registerMBean(this, new ObjectName("com.fcs.pokerserver.gameserver:MqttServletGameServer=MqttServletGameServer"));
+        // the monitor registers its own MBean
+        FairnessMonitor.getInstance();
         JMXServiceURL url = new JMXServiceURL("service:jmx:rmi://localhost/jndi/rmi://0.0.0.0:1234/jmxrmi");
         JMXConnectorServer svr = JMXConnectorServerFactory.newJMXConnectorServer(url, null, mbs);
 
@@ -145,6 +164,7 @@ public class MqttServletGameServer implements MqttCallback, RoomListener, MqttSe
         context.addServlet(gameServlet, "/api/game");
         context.addServlet(deleteUserServlet, "/api/deluser");
         context.addServlet(getProfile, "/api/profile");
+        context.addServlet(healthServlet, "/api/health");
 
         logger.warning("MqttServletGameServer starting..." + ManagementFactory.getRuntimeMXBean().getName());
         try {
@@ -163,6 +183,41 @@ public class MqttServletGameServer implements MqttCallback, RoomListener, MqttSe
 
     }
 
+    /**
+     * Load the hand evaluator and the preflop equities in the background, so the first showdown does not
+     * pay for it. Games reaching a showdown earlier wait for the evaluator instead of loading another copy.
+     */
+    private static void warmUp() {
+        try {
+            long start = System.currentTimeMillis();
+            HandEvaluator.getInstance();
+            logger.warning("Hand evaluator ready in " + (System.currentTimeMillis() - start) + " ms");
+            start = System.currentTimeMillis();
+            PreflopEquity.getInstance();
+            logger.warning("Preflop equity ready in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Cannot warm up the hand evaluator", e);
+        }
+    }
+
+    /**
+     * Return true once the hand evaluator is loaded.
+     *
+     * @return boolean ready
+     */
+    public boolean isEvaluatorReady() {
+        return HandEvaluator.isReady();
+    }
+
+    /**
+     * Return true once the preflop equity matrix is loaded.
+     *
+     * @return boolean ready
+     */
+    public boolean isPreflopEquityReady() {
+        return PreflopEquity.getLoaded() != null;
+    }
+
     /**
      * Singleton pattern to get the MqttServletGameServer instance.
      *
@@ -209,7 +264,8 @@ public class MqttServletGameServer implements MqttCallback, RoomListener, MqttSe
 
     public void removePlayer(Player p) {
         if (!this.getListPlayer().contains(p)) return;
-        if (p.getCurrentRoom() != null) p.getCurrentRoom().removePlayer(p);
+        Room room = p.getCurrentRoom();
+        if (room != null) room.getMailbox().run(() -> room.removePlayer(p));
         this.getListPlayer().remove(p);
     }
 
@@ -268,21 +324,23 @@ public class MqttServletGameServer implements MqttCallback, RoomListener, MqttSe
      * @throws MqttException
      */
     public void run() throws MqttException {
-        MqttClient myClient;
+        MqttAsyncClient myClient;
         MqttConnectOptions connOpt;
         connOpt = new MqttConnectOptions();
 
         connOpt.setCleanSession(true);
         connOpt.setKeepAliveInterval(30);
+        connOpt.setMaxInflight(Publisher.PARTITIONS * Sender.MAX_IN_FLIGHT);
 
         // Connect to Broker
         try {
-            myClient = new MqttClient(BROKER_URL, "pokerserver" + System.currentTimeMillis(), new MemoryPersistence());
+            myClient = new MqttAsyncClient(BROKER_URL, "pokerserver" + System.currentTimeMillis(), new MemoryPersistence());
             myClient.setCallback(this);
-            myClient.connect(connOpt);
-            this.sender = new Sender(myClient);
+            myClient.connect(connOpt).waitForCompletion();
+            this.publisher = new Publisher(myClient);
+            this.publisher.registerMBean();
             int subQoS = 0;
-            myClient.subscribe(SERVER_TOPIC, subQoS);
+            myClient.subscribe(SERVER_TOPIC, subQoS).waitForCompletion();
 
         } catch (MqttException e) {
             e.printStackTrace();
@@ -310,7 +368,27 @@ public class MqttServletGameServer implements MqttCallback, RoomListener, MqttSe
         // TODO Auto-generated method stub
         String body = new String(message.getPayload(), Charset.forName("UTF-8"));
         System.out.println("topic:" + topic + " msg:" + body);
+        if (!body.matches("cmd=[^&=]+(&[^&=]+=[^&=]+)*")) return;
+        Map<String, String> query = getQueryMap(body);
+        playerConnection(query.get("cmd"), query.get("pid"), query.get("token"));
+    }
 
+    /**
+     * A client sets its MQTT last will to {@code cmd=DISCONNECTED&pid=...&token=...} on the server topic, so the
+     * broker publishes it when the connection of the client drops, and publishes {@code cmd=CONNECTED} with the
+     * same fields once it is connected again. The player keeps his seat during the grace period of
+     * {@link Player#disconnected()}. The token is the one of the login, so nobody else can take the seat away.
+     *
+     * @param cmd   DISCONNECTED or CONNECTED
+     * @param pid   id of the player
+     * @param token login token of the player
+     */
+    public void playerConnection(String cmd, String pid, String token) {
+        if (pid == null || token == null) return;
+        Player p = this.getListPlayer().stream().filter(x -> pid.equals(x.getId())).findFirst().orElse(null);
+        if (p == null || !token.equals(p.getToken())) return;
+        if ("DISCONNECTED".equals(cmd)) p.disconnected();
+        if ("CONNECTED".equals(cmd)) p.reconnected();
     }
 
     /**
@@ -380,6 +458,12 @@ public class MqttServletGameServer implements MqttCallback, RoomListener, MqttSe
     public void actionPerformed(AbstractRoomEvent event) {
         logger.log(Level.SEVERE, event.toString());
         String content = "";
+        /**
+         * Cards dealt, chips moved and the end of the hand survive an overloaded broker, the turn and the equity
+         * are the first to go.*/
+        MessagePriority priority = MessagePriority.NORMAL;
+        String coalesce = null;
+        RoomState.Update state = null;
         if (event instanceof GameActRoomEvent) {
             content += "cmd=" + RoomAction.GAMEACTION + "&roomid=" + event.getSrc().getRoomID();
             GameActRoomEvent gare = (GameActRoomEvent) event;
@@ -398,6 +482,7 @@ public class MqttServletGameServer implements MqttCallback, RoomListener, MqttSe
                     checkNotNull(user, "User is null when loaded from datastore!");
                     user.setBalance(user.getBalance() - amount);
                     checkNotNull(ofy().save().entity(user).now(), "Update to datastore failed!");
+                    priority = MessagePriority.CRITICAL;
                     content += "&pid=" + p.getId() + "&playeraction=allin&amount=" + amount;
                 }
                 if (e instanceof PlayerBetEvent) {
@@ -410,23 +495,28 @@ public class MqttServletGameServer implements MqttCallback, RoomListener, MqttSe
                     checkNotNull(user, "User is null when loaded from datastore!");
                     user.setBalance(user.getBalance() - amount);
                     checkNotNull(ofy().save().entity(user).now(), "Update to datastore failed!");
+                    priority = MessagePriority.CRITICAL;
                     content += "&pid=" + p.getId() + "&playeraction=bet&amount=" + amount;
                 }
                 if (e instanceof PlayerFoldEvent) {
                     PlayerFoldEvent pe = (PlayerFoldEvent) e;
                     Player p = pe.getSrc();
+                    priority = MessagePriority.CRITICAL;
                     content += "&pid=" + p.getId() + "&playeraction=fold";
                 }
                 if (e instanceof PlayerCheckEvent) {
                     Player p = e.getSrc();
+                    priority = MessagePriority.CRITICAL;
                     content += "&pid=" + p.getId() + "&playeraction=check";
                 }
                 if (e instanceof PlayerCallEvent) {
                     Player p = e.getSrc();
+                    priority = MessagePriority.CRITICAL;
                     content += "&pid=" + p.getId() + "&playeraction=call";
                 }
                 if (e instanceof GetTurnPlayerEvent) {
                     Player p = e.getSrc();
+                    priority = MessagePriority.DROPPABLE;
                     content += "&pid=" + p.getId() + "&playeraction=myturn";
                 }
             }
@@ -435,19 +525,28 @@ public class MqttServletGameServer implements MqttCallback, RoomListener, MqttSe
                 RoundGameEvent rge = (RoundGameEvent) ge;
                 Game src = ge.getSrc();
                 if (rge.getType() == GameAction.WAITTING) {
+                    state = stateOf(event.getSrc()).update(src.getListPlayer(), false);
                     content += "&sb=" + src.getSmallBlind().getId() + "&bb=" + src.getBigBlind().getId() + "&dealer=" + src.getDealer().getId()
-                            + "&listPlayers=" + src.getListPlayer();
+                            + listPlayers(state, () -> src.getListPlayer().toString());
+                    String commitment = event.getSrc().getNextCommitment();
+                    if (commitment != null) content += "&commitment=" + commitment;
                 }
                 if (rge.getType() == GameAction.PREFLOP) {
-                    content += "&listPlayers=" + src.getDataPlayers();
+                    priority = MessagePriority.CRITICAL;
+                    state = stateOf(event.getSrc()).update(src.getListPlayer(), true);
+                    content += listPlayers(state, src::getDataPlayers);
+                    if (src.getShuffleCommitment() != null) content += "&commitment=" + src.getShuffleCommitment();
                 }
                 if (rge.getType() == GameAction.FLOP) {
+                    priority = MessagePriority.CRITICAL;
                     content += "&flopcard=" + rge.getSrc().getBoard().getFlopCards().toString();
                 }
                 if (rge.getType() == GameAction.TURN) {
+                    priority = MessagePriority.CRITICAL;
                     content += "&turncard=" + rge.getSrc().getBoard().getTurnCard().toString();
                 }
                 if (rge.getType() == GameAction.RIVER) {
+                    priority = MessagePriority.CRITICAL;
                     content += "&rivercard=" + rge.getSrc().getBoard().getRiverCard().toString();
                 }
             }
@@ -457,11 +556,30 @@ public class MqttServletGameServer implements MqttCallback, RoomListener, MqttSe
             }
             if (ge instanceof EndGameEvent) {
                 EndGameEvent ege = (EndGameEvent) ge;
-                content += "&playerwin=" + ege.getPlayerwins() + "&rank=" + ege.getRank() + "&besthand=" + ege.getBestHands() + "&listPlayers=" + ege.getSrc().getListPlayer();
+                priority = MessagePriority.CRITICAL;
+                state = stateOf(event.getSrc()).update(ege.getSrc().getListPlayer(), false);
+                content += "&playerwin=" + ege.getPlayerwins() + "&rank=" + ege.getRank() + "&besthand=" + ege.getBestHands()
+                        + listPlayers(state, () -> ege.getSrc().getListPlayer().toString());
+                if (ege.getPot() != null) {
+                    content += "&pot=" + ege.getPot();
+                }
+                FairShuffle shuffle = ege.getFairShuffle();
+                if (shuffle != null) {
+                    content += "&commitment=" + shuffle.getCommitment() + "&serverseed=" + shuffle.getServerSeed()
+                            + "&clientseed=" + shuffle.getClientSeed() + "&nonce=" + shuffle.getNonce();
+                }
             }
             if (ge instanceof SideWinnerGameEvent) {
                 SideWinnerGameEvent se = (SideWinnerGameEvent) ge;
+                priority = MessagePriority.CRITICAL;
                 content += "&playerwin=" + se.getWinners() + "&rank=" + se.getRank() + "&besthand=" + se.getHands();
+                content += "&pot=" + se.getPot();
+            }
+            if (ge instanceof EquityGameEvent) {
+                EquityGameEvent ee = (EquityGameEvent) ge;
+                priority = MessagePriority.SNAPSHOT;
+                coalesce = "equity";
+                content += "&pids=" + ee.getPlayers().stream().map(Player::getId).collect(Collectors.joining(",")) + "&equity=" + ee.getEquity();
             }
 
         } else if (event instanceof VisitRoomEvent) {
@@ -476,7 +594,68 @@ public class MqttServletGameServer implements MqttCallback, RoomListener, MqttSe
                 content += "cmd=" + RoomAction.PLAYERLEFT + "&roomid=" + event.getSrc().getRoomID() + "&pid=" + p.getId();
             }
         }
-        this.sender.add(MqttServletGameServer.SERVER_TOPIC + "/room/" + event.getSrc().getRoomID(), content);
+        /**
+         * A client only applies a delta onto the version before it, so no version of the player list may be shed.*/
+        if (state != null) priority = MessagePriority.CRITICAL;
+        RoomState.Update update = state;
+        publish(event.getSrc().getRoomID(), content, () -> encoder.toBytes(event, update), priority, coalesce);
+        if (event instanceof VisitRoomEvent && ((VisitRoomEvent) event).getType() == RoomAction.PLAYERJOINEDROOM) {
+            publishState(event.getSrc());
+        }
+    }
+
+    /**
+     * Publish a snapshot of the players of a room, for a player who joined or a client that lost track of the
+     * versions, with the commitment of the next hand. The snapshot is a version of its own, so like every version
+     * it is never shed nor replaced by a later snapshot. Runs in the mailbox of the room.
+     *
+     * @param room Room
+     * @return long version of the snapshot
+     */
+    public long publishState(Room room) {
+        Game game = room.getCurrentGame();
+        List<Player> players = game == null ? Collections.<Player>emptyList() : game.getListPlayer();
+        boolean secret = game != null && game.getStatus() != GameStatus.NOT_STARTED
+                && game.getStatus() != GameStatus.SEATING && game.getStatus() != GameStatus.END_HAND;
+        RoomState.Update state = stateOf(room).snapshot(players, secret);
+        long roomId = room.getRoomID();
+        String commitment = room.getNextCommitment();
+        publish(roomId, "cmd=STATE&roomid=" + roomId + "&version=" + state.getVersion() + "&listPlayers=" + state.toJson()
+                        + (commitment != null ? "&commitment=" + commitment : ""),
+                () -> encoder.toBytes(roomId, game == null ? 0 : game.getId(), state, commitment), MessagePriority.CRITICAL, null);
+        return state.getVersion();
+    }
+
+    private RoomState stateOf(Room room) {
+        return states.computeIfAbsent(room.getRoomID(), id -> new RoomState());
+    }
+
+    /**
+     * Return the player list of an update in the text format: the whole list for a snapshot, the changed fields
+     * and the players gone for a delta.
+     */
+    private static String listPlayers(RoomState.Update state, Supplier<String> full) {
+        String content = "&version=" + state.getVersion();
+        if (state.isSnapshot()) return content + "&listPlayers=" + full.get();
+        content += "&delta=" + state.toJson();
+        if (!state.getLeft().isEmpty()) content += "&left=" + String.join(",", state.getLeft());
+        return content;
+    }
+
+    /**
+     * Queue a message of a room in the formats of {@code pokerserver.wire.format}.
+     */
+    private void publish(long roomId, String content, Supplier<byte[]> binary, MessagePriority priority, String coalesce) {
+        String topic = MqttServletGameServer.SERVER_TOPIC + "/room/" + roomId;
+        if (wireFormat.isText() && !this.publisher.add(roomId, topic, content, priority, coalesce)) {
+            logger.log(Level.FINE, "Outbound queue full, " + priority + " message of room " + roomId + " dropped");
+        }
+        if (wireFormat.isBinary()) {
+            byte[] payload = binary.get();
+            if (payload != null && !this.publisher.add(roomId, topic + "/bin", payload, priority, coalesce)) {
+                logger.log(Level.FINE, "Outbound queue full, binary " + priority + " message of room " + roomId + " dropped");
+            }
+        }
     }
 
     @Override
@@ -488,4 +667,14 @@ public class MqttServletGameServer implements MqttCallback, RoomListener, MqttSe
     public String jmx_getPlayerList() {
         return listPlayer.toString();
     }
+
+    @Override
+    public boolean jmx_isEvaluatorReady() {
+        return isEvaluatorReady();
+    }
+
+    @Override
+    public boolean jmx_isPreflopEquityReady() {
+        return isPreflopEquityReady();
+    }
 }
\ No newline at end of file
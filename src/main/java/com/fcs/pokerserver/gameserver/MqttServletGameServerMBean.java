@@ -3,4 +3,6 @@ package com.fcs.pokerserver.gameserver;
 public interface MqttServletGameServerMBean {
     public String jmx_getRoomsList();
     public String jmx_getPlayerList();
+    public boolean jmx_isEvaluatorReady();
+    public boolean jmx_isPreflopEquityReady();
 }
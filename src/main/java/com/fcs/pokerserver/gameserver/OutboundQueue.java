@@ -0,0 +1,209 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.fcs.pokerserver.gameserver;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded first in, first out queue of the messages of a {@link Sender}.
+ * <p>
+ * A message with a coalescing key replaces the message with the same key still waiting, the new one goes to the
+ * end of the queue, so only the latest state is sent and it is not sent before the messages leading to it. When
+ * the queue is full the oldest message of the lowest priority below the new message is shed to make room, when
+ * there is none the new message is shed. Priorities only decide what is shed, the order of the messages stays
+ * the order they were added in. Every message is in the list of all messages and in the list of its priority,
+ * so adding, taking and shedding are O(1).
+ *
+ * @category com > fcs > pokerserver > gameserver
+ */
+class OutboundQueue {
+
+    private static final class Entry {
+        final MessageQueue message;
+        final MessagePriority priority;
+        final String key;
+        Entry prev = this;
+        Entry next = this;
+        Entry prevSame = this;
+        Entry nextSame = this;
+
+        Entry(MessageQueue message, MessagePriority priority, String key) {
+            this.message = message;
+            this.priority = priority;
+            this.key = key;
+        }
+    }
+
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Entry all = new Entry(null, null, null);
+    private final Entry[] byPriority = new Entry[MessagePriority.values().length];
+    private final Map<String, Entry> waiting = new HashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder[] shed = new LongAdder[MessagePriority.values().length];
+    private int size;
+
+    OutboundQueue(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        for (int i = 0; i < byPriority.length; i++) {
+            byPriority[i] = new Entry(null, null, null);
+            shed[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Add a message, shedding a message of lower priority when the queue is full.
+     *
+     * @param message  message to send
+     * @param priority priority of the message
+     * @param key      coalescing key, null when the message never replaces another
+     * @return boolean false when the message itself was shed
+     */
+    boolean offer(MessageQueue message, MessagePriority priority, String key) {
+        lock.lock();
+        try {
+            if (key != null) {
+                Entry previous = waiting.remove(key);
+                if (previous != null) {
+                    unlink(previous);
+                    coalesced.increment();
+                }
+            }
+            if (size >= capacity && !shedBelow(priority)) {
+                shed[priority.ordinal()].increment();
+                return false;
+            }
+            Entry entry = new Entry(message, priority, key);
+            link(entry);
+            if (key != null) waiting.put(key, entry);
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait for a message and take it.
+     *
+     * @return MessageQueue oldest message
+     */
+    MessageQueue take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) notEmpty.await();
+            return removeFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Take the messages waiting, without waiting for more.
+     *
+     * @param to  collection the messages are added to, oldest first
+     * @param max maximum number of messages taken
+     * @return int number of messages taken
+     */
+    int drainTo(Collection<MessageQueue> to, int max) {
+        lock.lock();
+        try {
+            int n = 0;
+            while (n < max && size > 0) {
+                to.add(removeFirst());
+                n++;
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    long getShed(MessagePriority priority) {
+        return shed[priority.ordinal()].sum();
+    }
+
+    private boolean shedBelow(MessagePriority priority) {
+        for (int i = 0; i < priority.ordinal(); i++) {
+            Entry oldest = byPriority[i].nextSame;
+            if (oldest != byPriority[i]) {
+                unlink(oldest);
+                if (oldest.key != null) waiting.remove(oldest.key);
+                shed[i].increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private MessageQueue removeFirst() {
+        Entry first = all.next;
+        unlink(first);
+        if (first.key != null) waiting.remove(first.key);
+        return first.message;
+    }
+
+    private void link(Entry entry) {
+        entry.prev = all.prev;
+        entry.next = all;
+        all.prev.next = entry;
+        all.prev = entry;
+        Entry same = byPriority[entry.priority.ordinal()];
+        entry.prevSame = same.prevSame;
+        entry.nextSame = same;
+        same.prevSame.nextSame = entry;
+        same.prevSame = entry;
+        size++;
+    }
+
+    private void unlink(Entry entry) {
+        entry.prev.next = entry.next;
+        entry.next.prev = entry.prev;
+        entry.prevSame.nextSame = entry.nextSame;
+        entry.nextSame.prevSame = entry.prevSame;
+        entry.prev = entry.next = entry.prevSame = entry.nextSame = entry;
+        size--;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.fcs.pokerserver.gameserver;
+
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+
+/**
+ * Outbound messages of all rooms, split into partitions by room id.
+ * <p>
+ * Every partition is a {@link Sender} with its own queue, thread and window of messages in flight, so a room
+ * whose messages are slow only holds back the rooms of its partition. All messages of a room go through the
+ * same partition and keep their order. The number of partitions is {@code pokerserver.mqtt.partitions}, the
+ * number of processors by default, and every partition has its own Sender MBean.
+ *
+ * @category com > fcs > pokerserver > gameserver
+ */
+public class Publisher {
+
+    public static final String PARTITIONS_PROPERTY = "pokerserver.mqtt.partitions";
+    public static final int PARTITIONS = Integer.getInteger(PARTITIONS_PROPERTY, Runtime.getRuntime().availableProcessors());
+
+    private final Sender[] partitions;
+
+    /**
+     * Create new the Publisher with {@link #PARTITIONS} partitions of {@link Sender#MAX_IN_FLIGHT} messages in flight
+     *
+     * @param client connected client shared by the partitions
+     */
+    public Publisher(IMqttAsyncClient client) {
+        this(client, PARTITIONS, Sender.MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Create new the Publisher and start the thread of every partition
+     *
+     * @param client      connected client shared by the partitions
+     * @param partitions  number of partitions
+     * @param maxInFlight messages in flight per partition, the client must allow partitions * maxInFlight
+     */
+    public Publisher(IMqttAsyncClient client, int partitions, int maxInFlight) {
+        if (partitions <= 0) throw new IllegalArgumentException("partitions must be positive: " + partitions);
+        this.partitions = new Sender[partitions];
+        for (int i = 0; i < partitions; i++) {
+            this.partitions[i] = new Sender(client, maxInFlight, "mqtt-sender-" + i);
+        }
+    }
+
+    /**
+     * Queue a message of a room in the partition of the room.
+     *
+     * @param roomId  id of the room the message is about
+     * @param topic   topic of the message
+     * @param content content of the message
+     */
+    public void add(long roomId, String topic, String content) {
+        add(roomId, topic, content, MessagePriority.NORMAL, null);
+    }
+
+    /**
+     * Queue a message of a room with its priority in the partition of the room.
+     *
+     * @param roomId   id of the room the message is about
+     * @param topic    topic of the message
+     * @param content  content of the message
+     * @param priority what may be shed first when the queue of the partition is full
+     * @param key      kind of state the message carries, null when it never replaces another message
+     * @return boolean false when the message was shed
+     */
+    public boolean add(long roomId, String topic, String content, MessagePriority priority, String key) {
+        return partitions[partitionOf(roomId)].add(topic, content, priority, key);
+    }
+
+    /**
+     * Queue a binary message of a room with its priority in the partition of the room.
+     *
+     * @param roomId   id of the room the message is about
+     * @param topic    topic of the message
+     * @param payload  bytes of the message
+     * @param priority what may be shed first when the queue of the partition is full
+     * @param key      kind of state the message carries, null when it never replaces another message
+     * @return boolean false when the message was shed
+     */
+    public boolean add(long roomId, String topic, byte[] payload, MessagePriority priority, String key) {
+        return partitions[partitionOf(roomId)].add(topic, payload, priority, key);
+    }
+
+    /**
+     * Return the partition of a room. Room ids come from the clock, so they are mixed before taking the modulo.
+     *
+     * @param roomId id of the room
+     * @return int partition
+     */
+    public int partitionOf(long roomId) {
+        long mixed = roomId * 0x9E3779B97F4A7C15L;
+        return (int) Long.remainderUnsigned(mixed ^ (mixed >>> 32), partitions.length);
+    }
+
+    /**
+     * Return the number of partitions.
+     *
+     * @return int partitions
+     */
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    /**
+     * Return the sender of a partition.
+     *
+     * @param partition partition
+     * @return Sender sender
+     */
+    public Sender getPartition(int partition) {
+        return partitions[partition];
+    }
+
+    /**
+     * Return the number of messages waiting in all partitions.
+     *
+     * @return int queue depth
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Sender sender : partitions) depth += sender.getQueueDepth();
+        return depth;
+    }
+
+    /**
+     * Register the Sender MBean of every partition.
+     */
+    public void registerMBean() {
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i].registerMBean("com.fcs.pokerserver.gameserver:type=Sender,partition=" + i);
+        }
+    }
+
+    /**
+     * Stop the threads of all partitions.
+     */
+    public void close() {
+        for (Sender sender : partitions) sender.close();
+    }
+}
@@ -0,0 +1,281 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+
+package com.fcs.pokerserver.gameserver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fcs.pokerserver.Player;
+import com.fcs.pokerserver.holder.Hand;
+
+/**
+ * Versioned state of the players of a room, as the clients last saw it.
+ * <p>
+ * The player lists of the WAITTING, PREFLOP and ENDED events used to be sent in full every time. The state
+ * remembers what was published for every player, so an update only carries the fields that changed since the
+ * previous version: balance, global balance, game bet, status (sitting out, acted this turn) and hand. The
+ * name never changes, it goes out with a snapshot and the first time a player shows up. Every update is a new
+ * version. A full snapshot goes out when a player joins, when a client asks for it and every
+ * {@code pokerserver.state.snapshot} versions, 20 by default; 1 sends every list in full like before. A client
+ * applies a delta only onto the version before it and asks for a snapshot when the versions do not follow.
+ * <p>
+ * The state of a room is only used from the mailbox of the room.
+ *
+ * @category com > fcs > pokerserver > gameserver
+ */
+public class RoomState {
+
+    public static final String SNAPSHOT_PROPERTY = "pokerserver.state.snapshot";
+    public static final int SNAPSHOT_INTERVAL = Integer.getInteger(SNAPSHOT_PROPERTY, 20);
+
+    /**
+     * Fields of a player in an update.
+     */
+    public static final int BALANCE = 1;
+    public static final int GLOBAL_BALANCE = 2;
+    public static final int GAME_BET = 4;
+    public static final int STATUS = 8;
+    public static final int HAND = 16;
+    public static final int NAME = 32;
+    public static final int ALL = BALANCE | GLOBAL_BALANCE | GAME_BET | STATUS | HAND | NAME;
+
+    /**
+     * Players and fields of one version.
+     */
+    public static final class Update {
+        private final long version;
+        private final boolean snapshot;
+        private final boolean encrypted;
+        private final List<Player> players;
+        private final List<Integer> fields;
+        private final List<String> left;
+
+        Update(long version, boolean snapshot, boolean encrypted, List<Player> players, List<Integer> fields, List<String> left) {
+            this.version = version;
+            this.snapshot = snapshot;
+            this.encrypted = encrypted;
+            this.players = players;
+            this.fields = fields;
+            this.left = left;
+        }
+
+        /**
+         * Return the version, 0 for a list outside of the versions of the room.
+         *
+         * @return long version
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Return true when the update holds all players with all fields.
+         *
+         * @return boolean snapshot
+         */
+        public boolean isSnapshot() {
+            return snapshot;
+        }
+
+        /**
+         * Return true when the hands are sent encrypted, false when they are shown.
+         *
+         * @return boolean encrypted
+         */
+        public boolean isEncrypted() {
+            return encrypted;
+        }
+
+        /**
+         * Return the players with a changed field, all players of a snapshot.
+         *
+         * @return List of Player
+         */
+        public List<Player> getPlayers() {
+            return players;
+        }
+
+        /**
+         * Return the fields of the player at the given index that changed.
+         *
+         * @param index index in {@link #getPlayers()}
+         * @return int fields, a combination of {@link #BALANCE} to {@link #NAME}
+         */
+        public int getFields(int index) {
+            return fields.get(index);
+        }
+
+        /**
+         * Return the ids of the players no longer in the list, always empty for a snapshot.
+         *
+         * @return List of player id
+         */
+        public List<String> getLeft() {
+            return left;
+        }
+
+        /**
+         * Return the players and their changed fields as JSON, with the names of the player lists.
+         *
+         * @return String JSON array
+         */
+        public String toJson() {
+            StringBuilder sb = new StringBuilder("[");
+            for (int i = 0; i < players.size(); i++) {
+                Player p = players.get(i);
+                int f = fields.get(i);
+                if (i > 0) sb.append(',');
+                sb.append("{\"id\":\"").append(p.getId()).append('"');
+                if ((f & NAME) != 0) sb.append(",\"name\":\"").append(p.getName()).append('"');
+                if ((f & BALANCE) != 0) sb.append(",\"balance\":").append(p.getBalance());
+                if ((f & GLOBAL_BALANCE) != 0) sb.append(",\"globalBalance\":").append(p.getGlobalBalance());
+                if ((f & GAME_BET) != 0) sb.append(",\"gamebet\":").append(p.getGameBet());
+                if ((f & STATUS) != 0) {
+                    sb.append(",\"isSittingOut\":").append(p.isSittingOut())
+                            .append(",\"isCommandThisTurn\":").append(p.didCommandThisTurn());
+                }
+                if ((f & HAND) != 0) {
+                    if (encrypted) sb.append(",\"hand\":\"").append(p.getEncryptedHand()).append('"');
+                    else sb.append(",\"hand\":").append(p.getPlayerHand());
+                }
+                sb.append('}');
+            }
+            return sb.append(']').toString();
+        }
+    }
+
+    private final int interval;
+    private Map<String, long[]> published = new HashMap<>();
+    private long version;
+    private long snapshotVersion;
+    private boolean snapshotDue = true;
+
+    /**
+     * Create new the RoomState with a snapshot every {@link #SNAPSHOT_INTERVAL} versions
+     */
+    public RoomState() {
+        this(SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * Create new the RoomState
+     *
+     * @param interval versions from one snapshot to the next, 1 for snapshots only
+     */
+    public RoomState(int interval) {
+        if (interval <= 0) throw new IllegalArgumentException("interval must be positive: " + interval);
+        this.interval = interval;
+    }
+
+    /**
+     * Publish a new version of the list, a delta unless a snapshot is due.
+     *
+     * @param players   players of the list
+     * @param encrypted true while the hands are secret
+     * @return Update the new version
+     */
+    public Update update(List<Player> players, boolean encrypted) {
+        return publish(players, encrypted, snapshotDue || version + 1 - snapshotVersion >= interval);
+    }
+
+    /**
+     * Publish a new version of the list as a snapshot.
+     *
+     * @param players   players of the list
+     * @param encrypted true while the hands are secret
+     * @return Update the new version
+     */
+    public Update snapshot(List<Player> players, boolean encrypted) {
+        return publish(players, encrypted, true);
+    }
+
+    /**
+     * Return a snapshot of a list outside of the versions, like the players of a game that failed to start.
+     *
+     * @param players   players of the list
+     * @param encrypted true while the hands are secret
+     * @return Update snapshot of version 0
+     */
+    public static Update full(List<Player> players, boolean encrypted) {
+        return new Update(0, true, encrypted, new ArrayList<>(players), Collections.nCopies(players.size(), ALL),
+                Collections.emptyList());
+    }
+
+    /**
+     * Return the last version published.
+     *
+     * @return long version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    private Update publish(List<Player> players, boolean encrypted, boolean snapshot) {
+        version++;
+        if (snapshot) {
+            snapshotVersion = version;
+            snapshotDue = false;
+        }
+        Map<String, long[]> next = new HashMap<>();
+        List<Player> changed = new ArrayList<>(players.size());
+        List<Integer> fields = new ArrayList<>(players.size());
+        for (Player p : players) {
+            long[] now = fieldsOf(p, encrypted);
+            long[] before = published.get(p.getId());
+            int f = snapshot || before == null ? ALL : diff(before, now);
+            if (f != 0) {
+                changed.add(p);
+                fields.add(f);
+            }
+            next.put(p.getId(), now);
+        }
+        List<String> left = new ArrayList<>();
+        if (!snapshot) {
+            for (String id : published.keySet()) {
+                if (!next.containsKey(id)) left.add(id);
+            }
+        }
+        published = next;
+        return new Update(version, snapshot, encrypted, changed, fields, left);
+    }
+
+    /**
+     * Values of the fields as published, the hand by its cards and whether it was encrypted.
+     */
+    private static long[] fieldsOf(Player p, boolean encrypted) {
+        Hand hand = p.getPlayerHand();
+        long cards = hand == null ? 0 : hand.getMask();
+        return new long[]{p.getBalance(), p.getGlobalBalance(), p.getGameBet(),
+                (p.isSittingOut() ? 1 : 0) | (p.didCommandThisTurn() ? 2 : 0), cards << 1 | (encrypted ? 1 : 0)};
+    }
+
+    private static int diff(long[] before, long[] now) {
+        int f = 0;
+        for (int i = 0; i < now.length; i++) {
+            if (before[i] != now[i]) f |= 1 << i;
+        }
+        return f;
+    }
+}
@@ -20,78 +20,103 @@ THE SOFTWARE.
 
 package com.fcs.pokerserver.gameserver;
 
-import java.util.Queue;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
-import org.eclipse.paho.client.mqttv3.MqttClient;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 import org.eclipse.paho.client.mqttv3.MqttException;
 
 
 /**
- * The messages is added into the MessageQueue
+ * The class to get the messages in the Queue to send.
+ * <p>
+ * The thread sleeps while the queue is empty and takes what has piled up in batches of up to {@link #BATCH}
+ * messages. Publishing does not wait for the broker, up to {@code pokerserver.mqtt.inflight} messages (100 by
+ * default) are on their way at the same time and the thread only waits when all of them are. Messages are sent
+ * with QoS {@code pokerserver.mqtt.qos}, 1 by default: one round trip to the broker instead of the two of QoS 2,
+ * at the price of a message arriving twice now and then. That is harmless for the messages below
+ * {@link MessagePriority#CRITICAL}: a turn, the equity or a player who joined or left means the same twice.
+ * A bet, a card or the end of the hand carry no version a client could recognize a copy by, so the
+ * {@link MessagePriority#CRITICAL} messages are sent exactly once with QoS {@code pokerserver.mqtt.qos.critical},
+ * 2 by default. Queue depth, messages in flight, published messages, errors and the latency until the broker
+ * acknowledged a message are available over JMX.
+ * <p>
+ * The queue holds at most {@code pokerserver.mqtt.queue} messages (10,000 by default). When the broker cannot
+ * keep up, messages are coalesced and shed by their {@link MessagePriority} as described in
+ * {@link OutboundQueue}, and the shed messages are counted per priority.
  * @category com > fcs > pokerserver > gameserver
  * */
-class MessageQueue 
-{	
-	private String topic;
-	private String content;
+public class Sender extends Thread implements SenderMBean {
+	public static final String IN_FLIGHT_PROPERTY = "pokerserver.mqtt.inflight";
+	public static final String QOS_PROPERTY = "pokerserver.mqtt.qos";
+	public static final String CRITICAL_QOS_PROPERTY = "pokerserver.mqtt.qos.critical";
+	public static final String QUEUE_PROPERTY = "pokerserver.mqtt.queue";
+	public static final int MAX_IN_FLIGHT = Integer.getInteger(IN_FLIGHT_PROPERTY, 100);
+	public static final int QUEUE_CAPACITY = Integer.getInteger(QUEUE_PROPERTY, 10000);
+	public static final int QOS = Integer.getInteger(QOS_PROPERTY, 1);
+	public static final int CRITICAL_QOS = Integer.getInteger(CRITICAL_QOS_PROPERTY, 2);
+
 	/**
-	 * The constructor with 2 parameters topic and content.
-	 * @param String topic, String content
+	 * Messages taken from the queue at once.
 	 * */
-	public MessageQueue(String topic, String content) {
-		super();
-		this.topic = topic;
-		this.content = content;
-	}
+	static final int BATCH = 256;
+
+	private static final Logger logger = Logger.getLogger(Sender.class.getName());
+
+	private final OutboundQueue queue;
+	private final IMqttAsyncClient client;
+	private final int maxInFlight;
+	private final Semaphore window;
+	private final LongAdder published = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder latencyNanos = new LongAdder();
+	private final AtomicLong maxLatencyNanos = new AtomicLong();
+	private volatile boolean closed = false;
 	
 	/**
-	 * Return the topic.
-	 * @return String topic.
+	 * The constructor with the parameter is MqqtClient and start thread. 
 	 * */
-	public String getTopic() {
-		return topic;
+	public Sender(IMqttAsyncClient client) {
+		this(client, MAX_IN_FLIGHT);
 	}
-	
-	/**
-	 * The method to set value for topic
-	 * @param String topic
-	 * */
-//	public void setTopic(String topic) {
-//		this.topic = topic;
-//	}
-	
+
 	/**
-	 * Return the Content.
-	 * @return String content
+	 * The constructor with the MqttClient and the number of messages in flight, start thread.
 	 * */
-	public String getContent() {
-		return content;
+	public Sender(IMqttAsyncClient client, int maxInFlight) {
+		this(client, maxInFlight, "mqtt-sender");
 	}
-	
+
 	/**
-	 * The method to set value for the content.
-	 * @param String content
+	 * The constructor with the MqttClient, the number of messages in flight and the name of the thread, start thread.
 	 * */
-//	public void setContent(String content) {
-//		this.content = content;
-//	}
-}
+	public Sender(IMqttAsyncClient client, int maxInFlight, String name) {
+		this(client, maxInFlight, QUEUE_CAPACITY, name);
+	}
 
-/**
- * The class to get the messages in the Queue to send.
- * */
-public class Sender extends Thread{
-	private Queue<MessageQueue> queue = new LinkedBlockingDeque<MessageQueue> ();
-	private MqttClient client;
-	
 	/**
-	 * The constructor with the parameter is MqqtClient and start thread. 
+	 * The constructor with the MqttClient, the number of messages in flight, the capacity of the queue and the
+	 * name of the thread, start thread.
 	 * */
-	public Sender(MqttClient client) {
-		super();
+	public Sender(IMqttAsyncClient client, int maxInFlight, int capacity, String name) {
+		super(name);
+		this.queue = new OutboundQueue(capacity);
 		this.client = client;
+		this.maxInFlight = maxInFlight;
+		this.window = new Semaphore(maxInFlight);
 		this.start();
 	}
 
@@ -101,7 +126,41 @@ public class Sender extends Thread{
 	 * */
 	public void add(String topic,String content)
 	{
-		queue.add(new MessageQueue(topic, content));
+		add(topic, content, MessagePriority.NORMAL, null);
+	}
+
+	/**
+	 * The method to add a message with its priority into the Queue.
+	 * @param String topic, String content.
+	 * @param priority what may be shed first when the queue is full
+	 * @param key      kind of state the message carries, it replaces the waiting message of the same kind and
+	 *                 topic; null when it never replaces another message
+	 * @return boolean false when the message was shed
+	 * */
+	public boolean add(String topic, String content, MessagePriority priority, String key)
+	{
+		return queue.offer(new MessageQueue(topic, content, qosOf(priority)), priority, key == null ? null : topic + '#' + key);
+	}
+
+	/**
+	 * The method to add a binary message with its priority into the Queue.
+	 * @param String topic, byte[] payload.
+	 * @param priority what may be shed first when the queue is full
+	 * @param key      kind of state the message carries, null when it never replaces another message
+	 * @return boolean false when the message was shed
+	 * */
+	public boolean add(String topic, byte[] payload, MessagePriority priority, String key)
+	{
+		return queue.offer(new MessageQueue(topic, payload, qosOf(priority)), priority, key == null ? null : topic + '#' + key);
+	}
+
+	/**
+	 * Return the QoS of a priority, {@link #CRITICAL_QOS} for the messages a client cannot take twice.
+	 * @param priority priority of the message
+	 * @return int qos
+	 * */
+	static int qosOf(MessagePriority priority) {
+		return priority == MessagePriority.CRITICAL ? CRITICAL_QOS : QOS;
 	}
 	
 	/**
@@ -109,28 +168,179 @@ public class Sender extends Thread{
 	 * */
 	public void run()
 	{
-		try {
-			while(1==1)
-			{
-				MessageQueue mq = queue.poll();
-				if(mq==null) continue;
-				else
-				{
-					//Thread.sleep(1);
-					//System.out.println(mq.getTopic()+":"+mq.getContent());
-					client.publish(mq.getTopic(), mq.getContent().getBytes(), 2, false);
-				}	
+		List<MessageQueue> batch = new ArrayList<MessageQueue>(BATCH);
+		while (!closed) {
+			try {
+				batch.add(queue.take());
+				queue.drainTo(batch, BATCH - 1);
+				for (MessageQueue mq : batch) {
+					publish(mq);
+				}
+			} catch (InterruptedException e) {
+				if (closed) return;
+			} finally {
+				batch.clear();
 			}
+		}
+	}
+
+	/**
+	 * Publish one message once a place in the window is free, the broker answers on the client's thread.
+	 * */
+	private void publish(MessageQueue mq) throws InterruptedException {
+		window.acquire();
+		long start = System.nanoTime();
+		try {
+			client.publish(mq.getTopic(), mq.getPayload(), mq.getQos(), false, null, new IMqttActionListener() {
+				@Override
+				public void onSuccess(IMqttToken token) {
+					window.release();
+					long latency = System.nanoTime() - start;
+					published.increment();
+					latencyNanos.add(latency);
+					maxLatencyNanos.accumulateAndGet(latency, Math::max);
+				}
+
+				@Override
+				public void onFailure(IMqttToken token, Throwable e) {
+					window.release();
+					errors.increment();
+					logger.log(Level.WARNING, "Cannot publish to " + mq.getTopic(), e);
+				}
+			});
+		} catch (MqttException | RuntimeException e) {
+			window.release();
+			errors.increment();
+			logger.log(Level.WARNING, "Cannot publish to " + mq.getTopic(), e);
+		}
+	}
+
+	/**
+	 * Stop the thread, the messages still in the queue are dropped.
+	 * */
+	public void close() {
+		closed = true;
+		this.interrupt();
+	}
+
+	/**
+	 * Return the number of messages waiting in the queue.
+	 * @return int queue depth
+	 * */
+	public int getQueueDepth() {
+		return queue.size();
+	}
+
+	/**
+	 * Return the number of messages replaced by a later message of the same kind before they were sent.
+	 * @return long coalesced
+	 * */
+	public long getCoalesced() {
+		return queue.getCoalesced();
+	}
+
+	/**
+	 * Return the number of messages of a priority dropped because the queue was full.
+	 * @return long shed
+	 * */
+	public long getShed(MessagePriority priority) {
+		return queue.getShed(priority);
+	}
+
+	/**
+	 * Return the number of messages published and not acknowledged yet.
+	 * @return int messages in flight
+	 * */
+	public int getInFlight() {
+		return maxInFlight - window.availablePermits();
+	}
+
+	/**
+	 * Return the number of messages acknowledged by the broker.
+	 * @return long published
+	 * */
+	public long getPublished() {
+		return published.sum();
+	}
+
+	/**
+	 * Return the number of messages that could not be published.
+	 * @return long errors
+	 * */
+	public long getErrors() {
+		return errors.sum();
+	}
+
+	public void registerMBean() {
+		registerMBean("com.fcs.pokerserver.gameserver:type=Sender");
+	}
+
+	void registerMBean(String objectName) {
+		try {
+			MBeanServer sv = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(objectName);
+			if (!sv.isRegistered(name)) sv.registerMBean(this, name);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 	}
+
+	@Override
+	public int jmx_getQueueDepth() {
+		return getQueueDepth();
+	}
+
+	@Override
+	public int jmx_getInFlight() {
+		return getInFlight();
+	}
+
+	@Override
+	public long jmx_getPublished() {
+		return getPublished();
+	}
+
+	@Override
+	public long jmx_getErrors() {
+		return getErrors();
+	}
+
+	@Override
+	public double jmx_getAverageLatencyMillis() {
+		long count = published.sum();
+		return count == 0 ? 0 : latencyNanos.sum() / 1e6 / count;
+	}
+
+	@Override
+	public double jmx_getMaxLatencyMillis() {
+		return maxLatencyNanos.get() / 1e6;
+	}
+
+	@Override
+	public int jmx_getQueueCapacity() {
+		return queue.getCapacity();
+	}
+
+	@Override
+	public long jmx_getCoalesced() {
+		return getCoalesced();
+	}
+
+	@Override
+	public String jmx_getShed() {
+		StringBuilder shed = new StringBuilder();
+		for (MessagePriority priority : MessagePriority.values()) {
+			if (shed.length() > 0) shed.append(',');
+			shed.append(priority).append('=').append(getShed(priority));
+		}
+		return shed.toString();
+	}
 	
 	/**
 	 * The main method
 	 * */
 	public static void main(String[] args) {
-		MqttClient myClient;
+		MqttAsyncClient myClient;
 		MqttConnectOptions connOpt;
 
 		String BROKER_URL = "tcp://broker.hivemq.com:1883";
@@ -139,12 +349,13 @@ public class Sender extends Thread{
 		connOpt = new MqttConnectOptions();
 		connOpt.setCleanSession(true);
 		connOpt.setKeepAliveInterval(30);
+		connOpt.setMaxInflight(MAX_IN_FLIGHT);
 		
 
 		// Connect to Broker
 		try {
-			myClient = new MqttClient(BROKER_URL, "pokerserver"+System.currentTimeMillis());
-			myClient.connect(connOpt);
+			myClient = new MqttAsyncClient(BROKER_URL, "pokerserver"+System.currentTimeMillis());
+			myClient.connect(connOpt).waitForCompletion();
 			Sender sender= new Sender(myClient);
 			sender.add("/pokerserver/server", "test1");
 			sender.add("/pokerserver/server", "test2");
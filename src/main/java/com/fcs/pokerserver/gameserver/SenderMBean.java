@@ -0,0 +1,21 @@
+package com.fcs.pokerserver.gameserver;
+
+public interface SenderMBean {
+    public int jmx_getQueueDepth();
+
+    public int jmx_getInFlight();
+
+    public long jmx_getPublished();
+
+    public long jmx_getErrors();
+
+    public double jmx_getAverageLatencyMillis();
+
+    public double jmx_getMaxLatencyMillis();
+
+    public int jmx_getQueueCapacity();
+
+    public long jmx_getCoalesced();
+
+    public String jmx_getShed();
+}
@@ -0,0 +1,391 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+
+package com.fcs.pokerserver.gameserver;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fcs.pokerserver.Card;
+import com.fcs.pokerserver.events.GameAction;
+import com.fcs.pokerserver.gameserver.WireEncoder.Type;
+
+/**
+ * Reference decoder of the messages of {@link WireEncoder}, for clients and tests.
+ * <p>
+ * A decoder follows the rooms whose messages it is given and keeps their short player ids. The fields of a
+ * message have the names of the text format: {@code pid}, {@code playeraction}, {@code amount},
+ * {@code listPlayers}, {@code flopcard} and so on. Players are decoded to their ids, cards to {@link Card},
+ * amounts to Long and player lists to a list of maps like the JSON of the text format. A player whose short
+ * id was defined in a missed message is decoded to null until the next snapshot defines it again.
+ * <p>
+ * Player lists are updates of the {@link RoomState}. The decoder applies a delta onto the state of the room and
+ * puts the whole list in {@code listPlayers}, next to the changed players in {@code delta}. When a version is
+ * missing it drops the state of the room, leaves {@code listPlayers} out and {@link #getVersion(long)} returns 0
+ * until the next snapshot; a client then asks the server for one.
+ *
+ * @category com > fcs > pokerserver > gameserver
+ */
+public class WireDecoder {
+
+    /**
+     * One decoded message.
+     */
+    public static final class Message {
+        private final int version;
+        private final Type type;
+        private final long roomId;
+        private final long gameId;
+        private final int sequence;
+        private final Map<String, Object> fields = new LinkedHashMap<>();
+
+        Message(int version, Type type, long roomId, long gameId, int sequence) {
+            this.version = version;
+            this.type = type;
+            this.roomId = roomId;
+            this.gameId = gameId;
+            this.sequence = sequence;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public long getRoomId() {
+            return roomId;
+        }
+
+        public long getGameId() {
+            return gameId;
+        }
+
+        public int getSequence() {
+            return sequence;
+        }
+
+        /**
+         * Return the fields of the body in the order they were read.
+         *
+         * @return Map of field name and value
+         */
+        public Map<String, Object> getFields() {
+            return fields;
+        }
+
+        /**
+         * Return one field of the body.
+         *
+         * @param name name of the field in the text format
+         * @return Object value, null when the message has no such field
+         */
+        public Object get(String name) {
+            return fields.get(name);
+        }
+
+        @Override
+        public String toString() {
+            return type + " room " + roomId + " game " + gameId + " #" + sequence + " " + fields;
+        }
+    }
+
+    /**
+     * Short player ids, last sequence and state of one room.
+     */
+    private static final class Channel {
+        int sequence;
+        final Map<Integer, String> ids = new HashMap<>();
+        long version;
+        final Map<String, Map<String, Object>> seats = new LinkedHashMap<>();
+    }
+
+    private final Map<Long, Channel> channels = new HashMap<>();
+    private long missed;
+
+    /**
+     * Decode one message.
+     *
+     * @param bytes payload of the MQTT message
+     * @return Message message
+     */
+    public Message decode(byte[] bytes) {
+        return decode(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Decode one message from position to limit of the buffer.
+     *
+     * @param in buffer holding the message
+     * @return Message message
+     */
+    public Message decode(ByteBuffer in) {
+        int version = in.get() & 0xFF;
+        if (version != WireEncoder.VERSION) throw new IllegalArgumentException("Unsupported wire version " + version);
+        Type type = Type.of(in.get() & 0xFF);
+        long roomId = in.getLong();
+        long gameId = in.getLong();
+        int sequence = in.getInt();
+        Channel c = channels.computeIfAbsent(roomId, id -> new Channel());
+        if (c.sequence != 0 && sequence - c.sequence > 1) missed += sequence - c.sequence - 1;
+        c.sequence = sequence;
+
+        Message m = new Message(version, type, roomId, gameId, sequence);
+        Map<String, Object> f = m.fields;
+        switch (type) {
+            case PLAYER_JOINED:
+                f.put("pid", player(in, c));
+                f.put("balance", varint(in));
+                break;
+            case PLAYER_LEFT:
+                f.put("pid", player(in, c));
+                break;
+            case GAME:
+                f.put("gameEvent", GameAction.values()[in.get() & 0xFF]);
+                break;
+            case PLAYER_ACTION:
+                WireEncoder.Action action = WireEncoder.Action.values()[(in.get() & 0xFF) - 1];
+                f.put("pid", player(in, c));
+                f.put("playeraction", action.name().toLowerCase());
+                if (action == WireEncoder.Action.ALLIN || action == WireEncoder.Action.BET) f.put("amount", varint(in));
+                break;
+            case WAITING:
+                players(in, c, f);
+                f.put("sb", player(in, c));
+                f.put("bb", player(in, c));
+                f.put("dealer", player(in, c));
+                commitment(in, f);
+                break;
+            case PREFLOP:
+                players(in, c, f);
+                commitment(in, f);
+                break;
+            case FLOP:
+                f.put("flopcard", cards(in));
+                break;
+            case TURN:
+                f.put("turncard", Card.fromEvaluation(in.get() & 0xFF));
+                break;
+            case RIVER:
+                f.put("rivercard", Card.fromEvaluation(in.get() & 0xFF));
+                break;
+            case ENDED:
+                players(in, c, f);
+                winners(in, c, f);
+                pot(in, c, f);
+                if (in.get() != 0) {
+                    f.put("commitment", string(in));
+                    f.put("serverseed", string(in));
+                    f.put("clientseed", string(in));
+                    f.put("nonce", varint(in));
+                }
+                break;
+            case SIDE_WINNER:
+                winners(in, c, f);
+                pot(in, c, f);
+                break;
+            case START_FAILED:
+                f.put("msg", string(in));
+                players(in, c, f);
+                break;
+            case EQUITY:
+                int count = in.get() & 0xFF;
+                List<String> pids = new ArrayList<>(count);
+                List<Double> equity = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    pids.add(player(in, c));
+                    equity.add((in.getShort() & 0xFFFF) / 10000.0);
+                }
+                f.put("pids", pids);
+                f.put("equity", equity);
+                f.put("samples", varint(in));
+                f.put("exact", in.get() != 0);
+                break;
+            case STATE:
+                players(in, c, f);
+                commitment(in, f);
+                break;
+        }
+        return m;
+    }
+
+    /**
+     * Return the version of the state of a room the decoder holds.
+     *
+     * @param roomId id of the room
+     * @return long version, 0 while the decoder waits for a snapshot
+     */
+    public long getVersion(long roomId) {
+        Channel c = channels.get(roomId);
+        return c == null ? 0 : c.version;
+    }
+
+    /**
+     * Return the number of messages missed so far, from the gaps in the sequences of the rooms.
+     *
+     * @return long missed messages
+     */
+    public long getMissed() {
+        return missed;
+    }
+
+    private static void commitment(ByteBuffer in, Map<String, Object> f) {
+        String commitment = string(in);
+        if (!commitment.isEmpty()) f.put("commitment", commitment);
+    }
+
+    private static String player(ByteBuffer in, Channel c) {
+        long ref = varint(in);
+        int id = (int) (ref >>> 1);
+        if ((ref & 1) != 0) c.ids.put(id, string(in));
+        return c.ids.get(id);
+    }
+
+    private static void players(ByteBuffer in, Channel c, Map<String, Object> f) {
+        long version = varint(in);
+        int flags = in.get() & 0xFF;
+        boolean encrypted = (flags & WireEncoder.ENCRYPTED) != 0;
+        int count = in.get() & 0xFF;
+        List<Map<String, Object>> players = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> p = new LinkedHashMap<>();
+            p.put("id", player(in, c));
+            int fields = in.get() & 0xFF;
+            if ((fields & RoomState.NAME) != 0) p.put("name", string(in));
+            if ((fields & RoomState.BALANCE) != 0) p.put("balance", varint(in));
+            if ((fields & RoomState.GLOBAL_BALANCE) != 0) p.put("globalBalance", varint(in));
+            if ((fields & RoomState.GAME_BET) != 0) p.put("gamebet", varint(in));
+            if ((fields & RoomState.STATUS) != 0) {
+                int status = in.get() & 0xFF;
+                p.put("isSittingOut", (status & WireEncoder.SITTING_OUT) != 0);
+                p.put("isCommandThisTurn", (status & WireEncoder.COMMANDED) != 0);
+            }
+            if ((fields & RoomState.HAND) != 0) {
+                if (encrypted) {
+                    String hand = string(in);
+                    p.put("hand", hand.isEmpty() ? null : hand);
+                } else {
+                    p.put("hand", cards(in));
+                }
+            }
+            players.add(p);
+        }
+        count = in.get() & 0xFF;
+        List<String> left = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            left.add(player(in, c));
+        }
+        if (version != 0) f.put("version", version);
+        if ((flags & WireEncoder.SNAPSHOT) != 0) {
+            f.put("listPlayers", players);
+            if (version == 0) return;
+            c.version = version;
+            c.seats.clear();
+            for (Map<String, Object> p : players) {
+                c.seats.put((String) p.get("id"), new LinkedHashMap<>(p));
+            }
+            return;
+        }
+        f.put("delta", players);
+        if (!left.isEmpty()) f.put("left", left);
+        if (c.version == 0 || version != c.version + 1) {
+            c.version = 0;
+            c.seats.clear();
+            return;
+        }
+        c.version = version;
+        for (Map<String, Object> p : players) {
+            c.seats.computeIfAbsent((String) p.get("id"), id -> new LinkedHashMap<>()).putAll(p);
+        }
+        for (String id : left) {
+            c.seats.remove(id);
+        }
+        List<Map<String, Object>> list = new ArrayList<>(c.seats.size());
+        for (Map<String, Object> seat : c.seats.values()) {
+            list.add(new LinkedHashMap<>(seat));
+        }
+        f.put("listPlayers", list);
+    }
+
+    private static void winners(ByteBuffer in, Channel c, Map<String, Object> f) {
+        int count = in.get() & 0xFF;
+        List<String> winners = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            winners.add(player(in, c));
+        }
+        f.put("playerwin", winners);
+        f.put("rank", string(in));
+        count = in.get() & 0xFF;
+        List<List<Card>> hands = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            hands.add(cards(in));
+        }
+        f.put("besthand", hands);
+    }
+
+    private static void pot(ByteBuffer in, Channel c, Map<String, Object> f) {
+        if (in.get() == 0) return;
+        Map<String, Object> pot = new LinkedHashMap<>();
+        pot.put("rank", varint(in));
+        int count = in.get() & 0xFF;
+        List<Map<String, Object>> winners = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> winner = new LinkedHashMap<>();
+            winner.put("id", player(in, c));
+            winner.put("amount", varint(in));
+            winner.put("bestFive", cards(in));
+            winners.add(winner);
+        }
+        pot.put("winners", winners);
+        f.put("pot", pot);
+    }
+
+    private static List<Card> cards(ByteBuffer in) {
+        int count = in.get() & 0xFF;
+        List<Card> cards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            cards.add(Card.fromEvaluation(in.get() & 0xFF));
+        }
+        return cards;
+    }
+
+    private static long varint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    private static String string(ByteBuffer in) {
+        byte[] bytes = new byte[(int) varint(in)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
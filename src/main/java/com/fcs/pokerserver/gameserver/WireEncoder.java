@@ -0,0 +1,540 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+
+package com.fcs.pokerserver.gameserver;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fcs.pokerserver.Card;
+import com.fcs.pokerserver.FairShuffle;
+import com.fcs.pokerserver.Game;
+import com.fcs.pokerserver.Player;
+import com.fcs.pokerserver.ShowdownResult;
+import com.fcs.pokerserver.events.*;
+import com.fcs.pokerserver.holder.CardSet;
+import com.fcs.pokerserver.holder.EquityResult;
+import com.fcs.pokerserver.holder.Hand;
+
+/**
+ * Compact binary form of the room events.
+ * <p>
+ * Every message starts with a fixed header of {@link #HEADER_SIZE} bytes, big endian:
+ * <pre>
+ * version  u8   {@link #VERSION}
+ * type     u8   code of the {@link Type}
+ * room id  i64
+ * game id  i64  0 for the events of the room itself
+ * sequence i32  counted per room from 1, a gap tells the client it missed messages
+ * </pre>
+ * The body depends on the type. Amounts are varints of 7 bits per byte, low bits first. A card is the byte of
+ * {@link Card#getEvaluation()} and a list of cards is its size in a byte followed by the cards. A string is its
+ * varint length followed by UTF-8 bytes. A player is a short id of the room: {@code id << 1 | 1} followed by
+ * the player id string when the short id is defined, {@code id << 1} when it is used again. Short ids are
+ * defined the first time a player shows up and again in every snapshot of the players, so a client that
+ * missed messages learns them back with the next snapshot. {@link WireDecoder} is the reference decoder.
+ * <p>
+ * A player list is an update of the {@link RoomState}: the version, u8 flags (1 for a snapshot, 2 when the
+ * hands are encrypted), u8 count of players, then per player the player, u8 fields of {@link RoomState} and the
+ * value of every field in the list: name, balance, global balance, game bet, u8 status (1 sitting out, 2 acted this
+ * turn), the hand as cards or as encrypted string. It ends with u8 count of the players no longer in the list
+ * and these players. A list without the state of the room is a snapshot of version 0.
+ * <p>
+ * The message is written into a direct buffer kept per thread, nothing is allocated but the copy handed to
+ * the MQTT client. The events of a room are encoded one at a time, in the order its mailbox runs them.
+ *
+ * @category com > fcs > pokerserver > gameserver
+ */
+public class WireEncoder {
+
+    public static final int VERSION = 3;
+    public static final int HEADER_SIZE = 22;
+
+    /**
+     * Flags of a player list and of the status of a player.
+     */
+    static final int SNAPSHOT = 1;
+    static final int ENCRYPTED = 2;
+    static final int SITTING_OUT = 1;
+    static final int COMMANDED = 2;
+
+    /**
+     * Kind of message, the body of every kind follows its name.
+     */
+    public enum Type {
+        /**
+         * player, balance
+         */
+        PLAYER_JOINED(1),
+        /**
+         * player
+         */
+        PLAYER_LEFT(2),
+        /**
+         * u8 ordinal of the {@link GameAction}, for the game events without data
+         */
+        GAME(3),
+        /**
+         * u8 code of the {@link Action}, player, amount for all in and bet
+         */
+        PLAYER_ACTION(4),
+        /**
+         * players, small blind, big blind, dealer, commitment of the shuffle of the hand (empty without a fair
+         * shuffle)
+         */
+        WAITING(5),
+        /**
+         * players, commitment of the shuffle (empty without a fair shuffle)
+         */
+        PREFLOP(6),
+        /**
+         * three cards
+         */
+        FLOP(7),
+        /**
+         * one card
+         */
+        TURN(8),
+        /**
+         * one card
+         */
+        RIVER(9),
+        /**
+         * players, u8 count of winners, winners, rank, u8 count of hands, hands, u8 1 and the
+         * pot or 0, u8 1 and commitment, server seed, client seed, nonce of the fair shuffle or 0
+         */
+        ENDED(10),
+        /**
+         * u8 count of winners, winners, rank, u8 count of hands, hands, u8 1 and the pot or 0
+         */
+        SIDE_WINNER(11),
+        /**
+         * message, players
+         */
+        START_FAILED(12),
+        /**
+         * u8 count, player and u16 equity in 1/10000 per hand, samples, u8 1 when exact
+         */
+        EQUITY(13),
+        /**
+         * players, usually a snapshot sent when a player joins or a client asks for it, commitment of the
+         * shuffle of the next hand (empty without a fair shuffle)
+         */
+        STATE(14);
+
+        private final int code;
+
+        Type(int code) {
+            this.code = code;
+        }
+
+        /**
+         * Return the byte of the type in the header.
+         *
+         * @return int code
+         */
+        public int getCode() {
+            return code;
+        }
+
+        /**
+         * Return the type of a code.
+         *
+         * @param code byte of the header
+         * @return Type type
+         */
+        public static Type of(int code) {
+            for (Type type : values()) {
+                if (type.code == code) return type;
+            }
+            throw new IllegalArgumentException("Unknown message type " + code);
+        }
+    }
+
+    /**
+     * Action of a {@link Type#PLAYER_ACTION}, the code is the ordinal plus one.
+     */
+    public enum Action {
+        ALLIN,
+        BET,
+        FOLD,
+        CHECK,
+        CALL,
+        MYTURN
+    }
+
+    /**
+     * Sequence and short player ids of one room.
+     */
+    private static final class Channel {
+        int sequence;
+        final Map<String, Integer> ids = new HashMap<>();
+    }
+
+    private static final ThreadLocal<Writer> WRITER = ThreadLocal.withInitial(Writer::new);
+
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+
+    /**
+     * Encode an event into the buffer of the calling thread. The buffer is reused by the next call on the
+     * thread, so it has to be read or copied before.
+     *
+     * @param event event of a room
+     * @return ByteBuffer the message from position to limit, null when the event has no binary form
+     */
+    public ByteBuffer encode(AbstractRoomEvent event) {
+        return encode(event, null);
+    }
+
+    /**
+     * Encode an event with the update of the state of the room it carries into the buffer of the calling
+     * thread.
+     *
+     * @param event event of a room
+     * @param state update of the player list of the event, null to send the list in full
+     * @return ByteBuffer the message from position to limit, null when the event has no binary form
+     */
+    public ByteBuffer encode(AbstractRoomEvent event, RoomState.Update state) {
+        Writer w = WRITER.get();
+        w.buffer.clear();
+        long roomId = event.getSrc().getRoomID();
+        Channel c = channels.computeIfAbsent(roomId, id -> new Channel());
+        if (event instanceof VisitRoomEvent) {
+            VisitRoomEvent vre = (VisitRoomEvent) event;
+            Player p = vre.getP();
+            if (vre.getType() == RoomAction.PLAYERJOINEDROOM) {
+                header(w, c, Type.PLAYER_JOINED, roomId, 0);
+                player(w, c, p, true);
+                w.varint(p.getBalance());
+            } else if (vre.getType() == RoomAction.PLAYERLEFT) {
+                header(w, c, Type.PLAYER_LEFT, roomId, 0);
+                player(w, c, p, false);
+            } else {
+                return null;
+            }
+        } else if (event instanceof GameActRoomEvent) {
+            if (!game(w, c, roomId, ((GameActRoomEvent) event).getE(), state)) return null;
+        } else {
+            return null;
+        }
+        w.buffer.flip();
+        return w.buffer;
+    }
+
+    /**
+     * Encode an event into a new array.
+     *
+     * @param event event of a room
+     * @return byte[] the message, null when the event has no binary form
+     */
+    public byte[] toBytes(AbstractRoomEvent event) {
+        return toBytes(encode(event, null));
+    }
+
+    /**
+     * Encode an event with the update of the state of the room it carries into a new array.
+     *
+     * @param event event of a room
+     * @param state update of the player list of the event, null to send the list in full
+     * @return byte[] the message, null when the event has no binary form
+     */
+    public byte[] toBytes(AbstractRoomEvent event, RoomState.Update state) {
+        return toBytes(encode(event, state));
+    }
+
+    /**
+     * Encode an update of the state of a room on its own into the buffer of the calling thread, usually a
+     * snapshot for a player who joined or a client that asked for it.
+     *
+     * @param roomId     id of the room
+     * @param gameId     id of the current game, 0 without a game
+     * @param state      update of the room
+     * @param commitment commitment of the next hand, null without a fair shuffle
+     * @return ByteBuffer the message from position to limit
+     */
+    public ByteBuffer encode(long roomId, long gameId, RoomState.Update state, String commitment) {
+        Writer w = WRITER.get();
+        w.buffer.clear();
+        Channel c = channels.computeIfAbsent(roomId, id -> new Channel());
+        header(w, c, Type.STATE, roomId, gameId);
+        players(w, c, state);
+        w.string(commitment);
+        w.buffer.flip();
+        return w.buffer;
+    }
+
+    /**
+     * Encode an update of the state of a room on its own into a new array.
+     *
+     * @param roomId     id of the room
+     * @param gameId     id of the current game, 0 without a game
+     * @param state      update of the room
+     * @param commitment commitment of the next hand, null without a fair shuffle
+     * @return byte[] the message
+     */
+    public byte[] toBytes(long roomId, long gameId, RoomState.Update state, String commitment) {
+        return toBytes(encode(roomId, gameId, state, commitment));
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        if (buffer == null) return null;
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private boolean game(Writer w, Channel c, long roomId, AbstractGameEvent ge, RoomState.Update state) {
+        Game g = ge.getSrc();
+        long gameId = g.getId();
+        if (ge instanceof PlayerActionGameEvent) {
+            AbstractPlayerEvent e = ((PlayerActionGameEvent) ge).getPE();
+            Action action;
+            if (e instanceof PlayerBetAllEvent) action = Action.ALLIN;
+            else if (e instanceof PlayerBetEvent) action = Action.BET;
+            else if (e instanceof PlayerFoldEvent) action = Action.FOLD;
+            else if (e instanceof PlayerCheckEvent) action = Action.CHECK;
+            else if (e instanceof PlayerCallEvent) action = Action.CALL;
+            else if (e instanceof GetTurnPlayerEvent) action = Action.MYTURN;
+            else return false;
+            header(w, c, Type.PLAYER_ACTION, roomId, gameId);
+            w.u8(action.ordinal() + 1);
+            player(w, c, e.getSrc(), false);
+            if (action == Action.ALLIN) w.varint(((PlayerBetAllEvent) e).getAmount());
+            if (action == Action.BET) w.varint(((PlayerBetEvent) e).getAmount());
+        } else if (ge instanceof RoundGameEvent && ge.getType() == GameAction.WAITTING) {
+            header(w, c, Type.WAITING, roomId, gameId);
+            players(w, c, state != null ? state : RoomState.full(g.getListPlayer(), false));
+            player(w, c, g.getSmallBlind(), false);
+            player(w, c, g.getBigBlind(), false);
+            player(w, c, g.getDealer(), false);
+            w.string(g.getRoom().getNextCommitment());
+        } else if (ge instanceof RoundGameEvent && ge.getType() == GameAction.PREFLOP) {
+            header(w, c, Type.PREFLOP, roomId, gameId);
+            players(w, c, state != null ? state : RoomState.full(g.getListPlayer(), true));
+            w.string(g.getShuffleCommitment());
+        } else if (ge instanceof RoundGameEvent && ge.getType() == GameAction.FLOP) {
+            header(w, c, Type.FLOP, roomId, gameId);
+            w.cards(g.getBoard().getFlopCards());
+        } else if (ge instanceof RoundGameEvent && ge.getType() == GameAction.TURN) {
+            header(w, c, Type.TURN, roomId, gameId);
+            w.card(g.getBoard().getTurnCard());
+        } else if (ge instanceof RoundGameEvent && ge.getType() == GameAction.RIVER) {
+            header(w, c, Type.RIVER, roomId, gameId);
+            w.card(g.getBoard().getRiverCard());
+        } else if (ge instanceof StartFailedGameEvent) {
+            StartFailedGameEvent se = (StartFailedGameEvent) ge;
+            header(w, c, Type.START_FAILED, roomId, gameId);
+            w.string(se.getMsg());
+            players(w, c, RoomState.full(se.getListPlayers(), false));
+        } else if (ge instanceof EndGameEvent) {
+            EndGameEvent ege = (EndGameEvent) ge;
+            header(w, c, Type.ENDED, roomId, gameId);
+            players(w, c, state != null ? state : RoomState.full(g.getListPlayer(), false));
+            winners(w, c, ege.getPlayerwins(), ege.getRank(), ege.getBestHands());
+            pot(w, c, ege.getPot());
+            FairShuffle shuffle = ege.getFairShuffle();
+            w.u8(shuffle != null ? 1 : 0);
+            if (shuffle != null) {
+                w.string(shuffle.getCommitment());
+                w.string(shuffle.getServerSeed());
+                w.string(shuffle.getClientSeed());
+                w.varint(shuffle.getNonce());
+            }
+        } else if (ge instanceof SideWinnerGameEvent) {
+            SideWinnerGameEvent se = (SideWinnerGameEvent) ge;
+            header(w, c, Type.SIDE_WINNER, roomId, gameId);
+            winners(w, c, se.getWinners(), se.getRank(), se.getHands());
+            pot(w, c, se.getPot());
+        } else if (ge instanceof EquityGameEvent) {
+            EquityGameEvent ee = (EquityGameEvent) ge;
+            EquityResult equity = ee.getEquity();
+            header(w, c, Type.EQUITY, roomId, gameId);
+            w.u8(equity.size());
+            for (int i = 0; i < equity.size(); i++) {
+                player(w, c, ee.getPlayers().get(i), false);
+                w.u16((int) Math.round(equity.getEquity(i) * 10000));
+            }
+            w.varint(equity.getSamples());
+            w.u8(equity.isExact() ? 1 : 0);
+        } else if (ge.getType() != null) {
+            header(w, c, Type.GAME, roomId, gameId);
+            w.u8(ge.getType().ordinal());
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static void header(Writer w, Channel c, Type type, long roomId, long gameId) {
+        w.u8(VERSION);
+        w.u8(type.code);
+        w.i64(roomId);
+        w.i64(gameId);
+        w.i32(++c.sequence);
+    }
+
+    private static void player(Writer w, Channel c, Player p, boolean define) {
+        player(w, c, p.getId(), define);
+    }
+
+    private static void player(Writer w, Channel c, String pid, boolean define) {
+        Integer id = c.ids.get(pid);
+        if (id == null) {
+            id = c.ids.size();
+            c.ids.put(pid, id);
+            define = true;
+        }
+        w.varint((long) id << 1 | (define ? 1 : 0));
+        if (define) w.string(pid);
+    }
+
+    private static void players(Writer w, Channel c, RoomState.Update state) {
+        w.varint(state.getVersion());
+        w.u8((state.isSnapshot() ? SNAPSHOT : 0) | (state.isEncrypted() ? ENCRYPTED : 0));
+        w.u8(state.getPlayers().size());
+        for (int i = 0; i < state.getPlayers().size(); i++) {
+            Player p = state.getPlayers().get(i);
+            int fields = state.getFields(i);
+            player(w, c, p, state.isSnapshot());
+            w.u8(fields);
+            if ((fields & RoomState.NAME) != 0) w.string(p.getName());
+            if ((fields & RoomState.BALANCE) != 0) w.varint(p.getBalance());
+            if ((fields & RoomState.GLOBAL_BALANCE) != 0) w.varint(p.getGlobalBalance());
+            if ((fields & RoomState.GAME_BET) != 0) w.varint(p.getGameBet());
+            if ((fields & RoomState.STATUS) != 0) {
+                w.u8((p.isSittingOut() ? SITTING_OUT : 0) | (p.didCommandThisTurn() ? COMMANDED : 0));
+            }
+            if ((fields & RoomState.HAND) != 0) {
+                if (state.isEncrypted()) w.string(p.getEncryptedHand());
+                else w.hand(p.getPlayerHand());
+            }
+        }
+        w.u8(state.getLeft().size());
+        for (String pid : state.getLeft()) {
+            player(w, c, pid, false);
+        }
+    }
+
+    private static void winners(Writer w, Channel c, List<Player> winners, String rank, List<Hand> hands) {
+        w.u8(winners == null ? 0 : winners.size());
+        if (winners != null) {
+            for (Player p : winners) {
+                player(w, c, p, false);
+            }
+        }
+        w.string(rank);
+        w.u8(hands == null ? 0 : hands.size());
+        if (hands != null) {
+            for (Hand h : hands) {
+                w.hand(h);
+            }
+        }
+    }
+
+    /**
+     * Write a pot: u8 1, rank value (0 without a rank), u8 count of winners, then per winner the player, the
+     * amount won and the best five cards; or u8 0 without a pot.
+     */
+    private static void pot(Writer w, Channel c, ShowdownResult.Pot pot) {
+        w.u8(pot != null ? 1 : 0);
+        if (pot == null) return;
+        w.varint(pot.getRank() == null ? 0 : pot.getRank().getValue());
+        w.u8(pot.getWinners().size());
+        for (int i = 0; i < pot.getWinners().size(); i++) {
+            player(w, c, pot.getWinners().get(i), false);
+            w.varint(pot.getAmount(i));
+            CardSet five = i < pot.getBestFive().size() ? pot.getBestFive().get(i) : CardSet.EMPTY;
+            w.cards(five.toList());
+        }
+    }
+
+    /**
+     * Direct buffer of a thread, replaced by a bigger one when a message does not fit.
+     */
+    private static final class Writer {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+
+        void ensure(int bytes) {
+            if (buffer.remaining() >= bytes) return;
+            ByteBuffer bigger = ByteBuffer.allocateDirect(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+            buffer.flip();
+            bigger.put(buffer);
+            buffer = bigger;
+        }
+
+        void u8(int value) {
+            ensure(1);
+            buffer.put((byte) value);
+        }
+
+        void u16(int value) {
+            ensure(2);
+            buffer.putShort((short) value);
+        }
+
+        void i32(int value) {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void i64(long value) {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void varint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        void string(String value) {
+            byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length);
+            ensure(bytes.length);
+            buffer.put(bytes);
+        }
+
+        void card(Card card) {
+            u8(card.getEvaluation());
+        }
+
+        void cards(List<Card> cards) {
+            ensure(1 + cards.size());
+            buffer.put((byte) cards.size());
+            for (Card card : cards) {
+                buffer.put((byte) card.getEvaluation());
+            }
+        }
+
+        void hand(Hand hand) {
+            if (hand == null) u8(0);
+            else cards(hand.getAllCards());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+
+package com.fcs.pokerserver.gameserver;
+
+/**
+ * Format of the room events published to the clients, chosen with {@code pokerserver.wire.format}.
+ * <p>
+ * The text format on {@code /pokerserver/server/room/<id>} is the format the clients have always read and stays
+ * the default. The binary format of {@link WireEncoder} goes to {@code /pokerserver/server/room/<id>/bin}.
+ *
+ * @category com > fcs > pokerserver > gameserver
+ */
+public enum WireFormat {
+    TEXT,
+    BINARY,
+    /**
+     * Both formats, while the clients move from one to the other.
+     */
+    BOTH;
+
+    public static final String FORMAT_PROPERTY = "pokerserver.wire.format";
+
+    /**
+     * Return the format set in {@code pokerserver.wire.format}, text when it is not set.
+     *
+     * @return WireFormat format
+     */
+    public static WireFormat fromProperty() {
+        return valueOf(System.getProperty(FORMAT_PROPERTY, TEXT.name()).trim().toUpperCase());
+    }
+
+    /**
+     * Return true when the text messages are published.
+     *
+     * @return boolean text
+     */
+    public boolean isText() {
+        return this != BINARY;
+    }
+
+    /**
+     * Return true when the binary messages are published.
+     *
+     * @return boolean binary
+     */
+    public boolean isBinary() {
+        return this != TEXT;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.fcs.pokerserver.holder;
+
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Evaluation of many hands against the same board.
+ * <p>
+ * The board is read once when the object is created, the two plus two version also walks it through the
+ * lookup table so every hand then only costs its own two lookups. Ranks are remembered per hand object, so
+ * sorting does not evaluate a hand twice. Create it with {@link HandEvaluator#forBoard(Board)} once the board
+ * is complete and drop it afterwards, later cards added to the board or the hands are not seen.
+ *
+ * @category com > fcs > pokerserver > holder
+ */
+public class BoardEvaluation {
+
+    private final HandEvaluator evaluator;
+    private final Board board;
+    private final long boardMask;
+    private final Map<Hand, Integer> ranks = new IdentityHashMap<>();
+
+    BoardEvaluation(HandEvaluator evaluator, Board board) {
+        this.evaluator = evaluator;
+        this.board = board;
+        this.boardMask = board.getMask();
+    }
+
+    /**
+     * Return the board this evaluation was created for.
+     *
+     * @return Board board
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Return the raw rank value of the hand on this board.
+     *
+     * @param hand Hand of the player
+     * @return int rank value
+     */
+    public int rankOf(Hand hand) {
+        Integer rank = ranks.get(hand);
+        if (rank == null) {
+            rank = walk(hand);
+            ranks.put(hand, rank);
+        }
+        return rank;
+    }
+
+    /**
+     * Record a rank already known for the hand on this board, e.g. from a {@link HandProgress}.
+     *
+     * @param hand Hand of the player
+     * @param rank raw rank value of the hand on this board
+     */
+    public void remember(Hand hand, int rank) {
+        ranks.put(hand, rank);
+    }
+
+    /**
+     * Evaluate the hand on this board, called once per hand.
+     */
+    int walk(Hand hand) {
+        return evaluator.evaluate(boardMask | hand.getMask());
+    }
+
+    /**
+     * Return the {@link HandRank} of the hand on this board.
+     *
+     * @param hand Hand of the player
+     * @return HandRank rank
+     */
+    public HandRank evaluate(Hand hand) {
+        return new HandRank(rankOf(hand));
+    }
+
+    /**
+     * Return the five cards making the rank of the hand on this board.
+     * <p>
+     * Tries the cards left out one or two at a time until the five remaining cards reach the rank of the
+     * hand, so it costs up to 21 evaluations and is meant for the winners only.
+     *
+     * @param hand Hand of the player
+     * @return CardSet five cards, all cards when there are five or less
+     */
+    public CardSet bestFive(Hand hand) {
+        long cards = boardMask | hand.getMask();
+        if (Long.bitCount(cards) <= 5) return CardSet.ofMask(cards);
+        int rank = rankOf(hand);
+        boolean six = Long.bitCount(cards) == 6;
+        for (long first = cards; first != 0; first &= first - 1) {
+            long out = Long.lowestOneBit(first);
+            if (six) {
+                if (evaluator.evaluate(cards & ~out) == rank) return CardSet.ofMask(cards & ~out);
+                continue;
+            }
+            for (long second = first & (first - 1); second != 0; second &= second - 1) {
+                long pair = out | Long.lowestOneBit(second);
+                if (evaluator.evaluate(cards & ~pair) == rank) return CardSet.ofMask(cards & ~pair);
+            }
+        }
+        throw new IllegalStateException("No five cards of " + CardSet.ofMask(cards) + " reach rank " + rank);
+    }
+
+    /**
+     * Compare two hands on this board.
+     *
+     * @param h1 Hand h1
+     * @param h2 Hand h2
+     * @return int value(+ or -)
+     */
+    public int compare(Hand h1, Hand h2) {
+        return rankOf(h1) - rankOf(h2);
+    }
+
+    /**
+     * Return a comparator ordering hands from the weakest to the strongest on this board.
+     *
+     * @return Comparator of Hand
+     */
+    public Comparator<Hand> comparator() {
+        return this::compare;
+    }
+}
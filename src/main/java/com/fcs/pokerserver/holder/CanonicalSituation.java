@@ -0,0 +1,145 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+
+package com.fcs.pokerserver.holder;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import com.fcs.pokerserver.Card;
+
+/**
+ * Canonical form of an all-in situation under relabelling of the suits.
+ * <p>
+ * Two situations that only differ by a permutation of the suits, like AhKh against QsQd on 2h7h9c and AsKs
+ * against QhQd on 2s7s9c, have equal canonical forms and so the same equities. Every suit is described by
+ * the ranks it holds on the board, in the dead cards and in every hand, in the order of the hands. Sorting
+ * the four descriptions gives the canonical form, which is also the canonical suit order: suits with equal
+ * descriptions are interchangeable, so their relative order does not matter.
+ *
+ * @category com > fcs > pokerserver > holder
+ */
+public final class CanonicalSituation {
+
+    private static final long RANKS = 0x1111111111111L;
+
+    private final short[] key;
+    private final int hash;
+
+    private CanonicalSituation(short[] key) {
+        this.key = key;
+        this.hash = Arrays.hashCode(key);
+    }
+
+    /**
+     * Return the canonical form of the hands, the board and the dead cards.
+     *
+     * @param hands hole cards of every player, in order
+     * @param board community cards dealt so far
+     * @param dead  cards known to be out of the deck, may be empty
+     * @return CanonicalSituation
+     */
+    public static CanonicalSituation of(List<Hand> hands, Board board, Collection<Card> dead) {
+        long[] handMasks = new long[hands.size()];
+        for (int i = 0; i < handMasks.length; i++) {
+            handMasks[i] = hands.get(i).getMask();
+        }
+        long deadMask = 0;
+        for (Card card : dead) {
+            deadMask |= card.getMask();
+        }
+        return of(handMasks, board.getMask(), deadMask);
+    }
+
+    /**
+     * Return the canonical form of a situation given by card masks built with {@link Card#getMask()}.
+     *
+     * @param handMasks cards of every hand, in order
+     * @param boardMask community cards
+     * @param deadMask  cards known to be out of the deck
+     * @return CanonicalSituation
+     */
+    public static CanonicalSituation of(long[] handMasks, long boardMask, long deadMask) {
+        int groups = handMasks.length + 2;
+        short[][] suits = new short[4][groups];
+        for (int suit = 0; suit < 4; suit++) {
+            suits[suit][0] = ranks(boardMask, suit);
+            suits[suit][1] = ranks(deadMask, suit);
+            for (int i = 0; i < handMasks.length; i++) {
+                suits[suit][i + 2] = ranks(handMasks[i], suit);
+            }
+        }
+        Arrays.sort(suits, CanonicalSituation::compare);
+        short[] key = new short[4 * groups];
+        for (int suit = 0; suit < 4; suit++) {
+            System.arraycopy(suits[suit], 0, key, suit * groups, groups);
+        }
+        return new CanonicalSituation(key);
+    }
+
+    /**
+     * Collect the ranks of one suit of a card mask into a 13 bit mask.
+     */
+    private static short ranks(long mask, int suit) {
+        long cards = (mask >>> suit) & RANKS;
+        int ranks = 0;
+        while (cards != 0) {
+            ranks |= 1 << (Long.numberOfTrailingZeros(cards) >>> 2);
+            cards &= cards - 1;
+        }
+        return (short) ranks;
+    }
+
+    private static int compare(short[] a, short[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) return b[i] - a[i];
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof CanonicalSituation)) return false;
+        CanonicalSituation other = (CanonicalSituation) obj;
+        return hash == other.hash && Arrays.equals(key, other.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        int groups = key.length / 4;
+        for (int suit = 0; suit < 4; suit++) {
+            if (suit > 0) sb.append('|');
+            for (int i = 0; i < groups; i++) {
+                if (i > 0) sb.append(',');
+                sb.append(Integer.toHexString(key[suit * groups + i]));
+            }
+        }
+        return sb.toString();
+    }
+}
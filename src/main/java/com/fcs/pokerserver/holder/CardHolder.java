@@ -25,7 +25,6 @@ package com.fcs.pokerserver.holder;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -33,17 +32,22 @@ import com.fcs.pokerserver.Card;
 
 /**
  * A container designed for storing cards.
+ * <p>
+ * The cards are kept in the order they were added, together with a {@link CardSet} of the same cards for
+ * evaluation and dead card masking. Add cards with {@link #addCard(Card...)} so both stay in step.
  * @category com > fcs > pokerserver > holder 
  */
 public class CardHolder implements Serializable {
 
 	private static final long serialVersionUID = -6289334212535961129L;
 
-	public List<Card> cards = new ArrayList<Card>();
+	public List<Card> cards = new ArrayList<Card>(5);
+
+	private transient CardSet cardSet = CardSet.EMPTY;
 
 	protected CardHolder(Card... cards) {
 		super();
-		this.cards.addAll(Arrays.asList(cards));
+		addCard(cards);
 	}
 	
 	/**
@@ -61,8 +65,12 @@ public class CardHolder implements Serializable {
 	 * */
 	public void addCard(Card... cards)
 	{
-		this.cards.addAll(Arrays.asList(cards));
-		
+		long mask = getCardSet().mask();
+		for (Card card : cards) {
+			this.cards.add(card);
+			mask |= card.getMask();
+		}
+		this.cardSet = CardSet.ofMask(mask);
 	}
 	/**
 	 * Returns a card at particular index.
@@ -83,6 +91,27 @@ public class CardHolder implements Serializable {
 		return this.cards;
 	}
 
+	/**
+	 * Returns the cards stored in the container as a set.
+	 * 
+	 * @return CardSet cards
+	 */
+	public CardSet getCardSet() {
+		if (cardSet == null) {
+			cardSet = CardSet.of(cards);
+		}
+		return cardSet;
+	}
+
+	/**
+	 * Returns the card mask of the cards stored in the container, see {@link Card#getMask()}.
+	 * 
+	 * @return long mask
+	 */
+	public long getMask() {
+		return getCardSet().mask();
+	}
+
 	/**
 	 * Returns the number of the cards stored in the container.
 	 * 
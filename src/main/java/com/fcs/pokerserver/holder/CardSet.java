@@ -0,0 +1,250 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+
+package com.fcs.pokerserver.holder;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.fcs.pokerserver.Card;
+
+/**
+ * Immutable set of cards packed in a single {@code long}.
+ * <p>
+ * Card {@code c} is bit {@code c.getEvaluation() - 1}, the layout of {@link Card#getMask()}, so a mask can be
+ * handed to {@link HandEvaluator#evaluate(long)} as it is. Union, difference, membership and size are single
+ * bit operations. Iteration goes from the lowest bit up, which is rank order with clubs first, not the order
+ * the cards were dealt in.
+ *
+ * @category com > fcs > pokerserver > holder
+ */
+public final class CardSet implements Iterable<Card>, Serializable {
+
+    private static final long serialVersionUID = 2917355478541620394L;
+
+    /**
+     * Mask of all 52 cards.
+     */
+    public static final long DECK_MASK = (1L << 52) - 1;
+
+    public static final CardSet EMPTY = new CardSet(0);
+    public static final CardSet DECK = new CardSet(DECK_MASK);
+
+    private final long mask;
+
+    private CardSet(long mask) {
+        this.mask = mask;
+    }
+
+    /**
+     * Return the set of the cards of a mask built with {@link Card#getMask()}.
+     *
+     * @param mask card mask, only the lower 52 bits may be set
+     * @return CardSet set
+     */
+    public static CardSet ofMask(long mask) {
+        if ((mask & ~DECK_MASK) != 0) {
+            throw new IllegalArgumentException("Not a card mask: " + Long.toHexString(mask));
+        }
+        if (mask == 0) return EMPTY;
+        if (mask == DECK_MASK) return DECK;
+        return new CardSet(mask);
+    }
+
+    /**
+     * Return the set of the given cards.
+     *
+     * @param cards cards, duplicates are kept once
+     * @return CardSet set
+     */
+    public static CardSet of(Card... cards) {
+        long mask = 0;
+        for (Card card : cards) {
+            mask |= card.getMask();
+        }
+        return ofMask(mask);
+    }
+
+    /**
+     * Return the set of the given cards.
+     *
+     * @param cards cards, duplicates are kept once
+     * @return CardSet set
+     */
+    public static CardSet of(Collection<Card> cards) {
+        return ofMask(maskOf(cards));
+    }
+
+    /**
+     * Return the mask of the given cards without creating a set.
+     *
+     * @param cards cards, duplicates are kept once
+     * @return long card mask
+     */
+    public static long maskOf(Collection<Card> cards) {
+        long mask = 0;
+        if (cards instanceof List) {
+            List<Card> list = (List<Card>) cards;
+            for (int i = 0, n = list.size(); i < n; i++) {
+                mask |= list.get(i).getMask();
+            }
+        } else {
+            for (Card card : cards) {
+                mask |= card.getMask();
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Return the card mask of the set.
+     *
+     * @return long mask, bit {@code getEvaluation() - 1} for every card
+     */
+    public long mask() {
+        return mask;
+    }
+
+    /**
+     * Return the number of cards in the set.
+     *
+     * @return int size
+     */
+    public int size() {
+        return Long.bitCount(mask);
+    }
+
+    public boolean isEmpty() {
+        return mask == 0;
+    }
+
+    public boolean contains(Card card) {
+        return (mask & card.getMask()) != 0;
+    }
+
+    public boolean containsAll(CardSet other) {
+        return (other.mask & ~mask) == 0;
+    }
+
+    public boolean intersects(CardSet other) {
+        return (mask & other.mask) != 0;
+    }
+
+    /**
+     * Return the set with the card added.
+     */
+    public CardSet with(Card card) {
+        return ofMask(mask | card.getMask());
+    }
+
+    /**
+     * Return the set with the card removed.
+     */
+    public CardSet without(Card card) {
+        return ofMask(mask & ~card.getMask());
+    }
+
+    /**
+     * Return the cards in either set.
+     */
+    public CardSet union(CardSet other) {
+        return ofMask(mask | other.mask);
+    }
+
+    /**
+     * Return the cards in both sets.
+     */
+    public CardSet intersection(CardSet other) {
+        return ofMask(mask & other.mask);
+    }
+
+    /**
+     * Return the cards of this set that are not in the other one, for example the live cards once the dead
+     * cards are taken out.
+     */
+    public CardSet minus(CardSet other) {
+        return ofMask(mask & ~other.mask);
+    }
+
+    /**
+     * Return the cards of the deck that are not in this set.
+     */
+    public CardSet complement() {
+        return ofMask(DECK_MASK & ~mask);
+    }
+
+    /**
+     * Return the cards of the set in iteration order.
+     *
+     * @return List<Card> new list
+     */
+    public List<Card> toList() {
+        List<Card> cards = new ArrayList<>(size());
+        for (long m = mask; m != 0; m &= m - 1) {
+            cards.add(Card.fromEvaluation(Long.numberOfTrailingZeros(m) + 1));
+        }
+        return cards;
+    }
+
+    @Override
+    public Iterator<Card> iterator() {
+        return new Iterator<Card>() {
+            private long left = mask;
+
+            @Override
+            public boolean hasNext() {
+                return left != 0;
+            }
+
+            @Override
+            public Card next() {
+                if (left == 0) throw new NoSuchElementException();
+                Card card = Card.fromEvaluation(Long.numberOfTrailingZeros(left) + 1);
+                left &= left - 1;
+                return card;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || obj instanceof CardSet && ((CardSet) obj).mask == mask;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(mask);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (Card card : this) {
+            if (sb.length() > 1) sb.append(',');
+            sb.append(card);
+        }
+        return sb.append(']').toString();
+    }
+}
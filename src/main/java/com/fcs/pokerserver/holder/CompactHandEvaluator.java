@@ -0,0 +1,62 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.fcs.pokerserver.holder;
+
+/**
+ * Hand evaluator computing ranks from rank and suit bit masks.
+ * <p>
+ * It needs no lookup table file and less than a megabyte of memory, at the price of a few more instructions
+ * per hand than {@link TwoPlusTwoHandEvaluator}. Ranks are identical to the two plus two values.
+ *
+ * @category com > fcs > pokerserver > holder
+ */
+public class CompactHandEvaluator implements HandEvaluator {
+
+    private static final CompactHandEvaluator instance = new CompactHandEvaluator();
+
+    /**
+     * Return the shared instance, the evaluator holds no state.
+     *
+     * @return {@link CompactHandEvaluator} instance
+     */
+    public static CompactHandEvaluator getInstance() {
+        return instance;
+    }
+
+    @Override
+    public int evaluateRank(Board board, Hand hand) {
+        return evaluate(board.getMask() | hand.getMask());
+    }
+
+    @Override
+    public int evaluate(long cardMask) {
+        int count = Long.bitCount(cardMask);
+        if (count < 5 || count > 7) {
+            throw new IllegalArgumentException("Can only evaluate 5 to 7 cards: " + count);
+        }
+        return HandRankCalculator.evaluate(cardMask);
+    }
+
+    @Override
+    public BoardEvaluation forBoard(Board board) {
+        return new BoardEvaluation(this, board);
+    }
+}
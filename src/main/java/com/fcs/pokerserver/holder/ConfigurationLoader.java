@@ -21,18 +21,24 @@ package com.fcs.pokerserver.holder;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-
+import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.ZipInputStream;
 
-import com.google.common.io.Closeables;
-
 /**
  * Utility class for loading configuration and resource files
  *
@@ -68,35 +74,136 @@ public class ConfigurationLoader {
 
     /**
      * Load hand rank lookup table for poker hands.
-     * This will load the file and do the byte conversions so we get a nice integer array back.
+     * The zip entry is decoded straight into the integer array, so only the table itself is held on the heap.
      *
      * @param name file name of the precomputed hand rank file
      * @return integer array of hand rank lookup values in accordance with the 2+2 hand evaluation algorithm.
      * @throws Exception
      */
     public int[] loadHandRankResource(String name) throws Exception {
-        ByteArrayInputStream bytein = new ByteArrayInputStream(readZipFile(name));
         int handRankArray[] = new int[HAND_RANK_SIZE];
+        ZipInputStream zis = openZipResource(name);
         try {
-            int tableSize = HAND_RANK_SIZE * 4;
-            byte[] b = new byte[tableSize];
-            InputStream br = null;
-            try {
-                br = new BufferedInputStream(bytein);
-                int bytesRead = br.read(b, 0, tableSize);
-                if (bytesRead != tableSize) {
-                    log.log(Level.WARNING, "Read " + bytesRead + " bytes out of " + tableSize);
+            byte[] buffer = new byte[8192];
+            int pending = 0;
+            int index = 0;
+            int size;
+            while (zis.getNextEntry() != null) {
+                while ((size = zis.read(buffer, pending, buffer.length - pending)) != -1) {
+                    int available = pending + size;
+                    int whole = available >> 2;
+                    if (whole > HAND_RANK_SIZE - index) {
+                        throw new IOException("resource " + name + " has more than " + HAND_RANK_SIZE + " entries");
+                    }
+                    for (int i = 0; i < whole; i++) {
+                        handRankArray[index++] = littleEndianByteArrayToInt(buffer, i * 4);
+                    }
+                    pending = available - whole * 4;
+                    System.arraycopy(buffer, whole * 4, buffer, 0, pending);
                 }
-            } finally {
-                Closeables.closeQuietly(br);
             }
-            for (int i = 0; i < HAND_RANK_SIZE; i++) {
-                handRankArray[i] = littleEndianByteArrayToInt(b, i * 4);
+            if (index != HAND_RANK_SIZE) {
+                log.log(Level.WARNING, "Read " + index + " entries out of " + HAND_RANK_SIZE);
             }
             return handRankArray;
         } catch (IOException e) {
             throw new ExecutionException("cannot read resource " + name, e);
+        } finally {
+            zis.close();
+        }
+    }
+
+    /**
+     * Unzip the hand rank resource into a raw little-endian file that can be memory mapped.
+     * The table is written to a temporary file next to the target and renamed once it is complete,
+     * so other processes never map a partially written table.
+     *
+     * @param name   file name of the precomputed hand rank zip on the classpath
+     * @param target raw table file to create
+     * @throws Exception
+     */
+    public void extractHandRankResource(String name, File target) throws Exception {
+        File dir = target.getAbsoluteFile().getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("cannot create directory " + dir);
+        }
+        File tmp = File.createTempFile(target.getName(), ".tmp", dir);
+        try {
+            ZipInputStream zis = openZipResource(name);
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp.toPath()), 1 << 16)) {
+                byte[] buffer = new byte[1 << 16];
+                int size;
+                while (zis.getNextEntry() != null) {
+                    while ((size = zis.read(buffer, 0, buffer.length)) != -1) {
+                        out.write(buffer, 0, size);
+                    }
+                }
+            } finally {
+                zis.close();
+            }
+            if (tmp.length() != HAND_RANK_SIZE * 4L) {
+                throw new IOException("resource " + name + " has " + tmp.length() + " bytes, expected " + HAND_RANK_SIZE * 4L);
+            }
+            Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.log(Level.INFO, "Extracted hand rank table to " + target);
+        } catch (IOException e) {
+            throw new ExecutionException("cannot extract resource " + name, e);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    /**
+     * Map a raw little-endian hand rank file read-only.
+     * The table lives in the page cache instead of the heap and is shared by every process mapping the same file.
+     *
+     * @param file raw table file created by {@link #extractHandRankResource(String, File)}
+     * @return read-only view of the hand rank lookup values
+     * @throws Exception
+     */
+    public IntBuffer mapHandRankFile(File file) throws Exception {
+        if (file.length() != HAND_RANK_SIZE * 4L) {
+            throw new IOException("hand rank file " + file + " has " + file.length() + " bytes, expected " + HAND_RANK_SIZE * 4L);
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return mapped.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        } catch (IOException e) {
+            throw new ExecutionException("cannot map hand rank file " + file, e);
+        }
+    }
+
+    /**
+     * Return the mapped hand rank table, extracting it from the zip resource first when the file is missing or truncated.
+     *
+     * @param name file name of the precomputed hand rank zip on the classpath
+     * @param file raw table file to map
+     * @return read-only view of the hand rank lookup values
+     * @throws Exception
+     */
+    public IntBuffer loadMappedHandRankResource(String name, File file) throws Exception {
+        if (file.length() != HAND_RANK_SIZE * 4L) {
+            extractHandRankResource(name, file);
+        }
+        return mapHandRankFile(file);
+    }
+
+    /**
+     * Check whether a resource is available on the classpath.
+     *
+     * @param name resource name
+     * @return boolean true when the resource can be loaded
+     */
+    public boolean hasResource(String name) {
+        return classloader.getResource(name) != null;
+    }
+
+    private ZipInputStream openZipResource(String name) throws FileNotFoundException {
+        InputStream in = classloader.getResourceAsStream(name);
+        if (in == null) {
+            throw new FileNotFoundException("resource " + name + " not found on classpath");
         }
+        return new ZipInputStream(new BufferedInputStream(in));
     }
 
     private static final int littleEndianByteArrayToInt(byte[] b, int offset) {
@@ -104,4 +211,4 @@ public class ConfigurationLoader {
                 + ((b[offset + 1] & 0xFF) << 8) + (b[offset] & 0xFF);
     }
 
-}
\ No newline at end of file
+}
\ No newline at end of file
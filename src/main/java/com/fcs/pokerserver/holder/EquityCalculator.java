@@ -0,0 +1,389 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+
+package com.fcs.pokerserver.holder;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.fcs.pokerserver.Card;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * All-in equity of several hands over the runouts of a partial board.
+ * <p>
+ * When the number of runouts is at most {@code pokerserver.equity.exhaustive} (2,000,000 by default) every
+ * runout is evaluated. Otherwise random runouts are sampled until the standard error of every equity is at
+ * most {@code pokerserver.equity.error} (0.005 by default). Both modes split the work over a fork/join pool
+ * and evaluate hands with the primitive {@link HandEvaluator#evaluate(long)}.
+ * <p>
+ * Results are kept in a bounded LRU cache keyed by the {@link CanonicalSituation}, so situations that only
+ * differ by their suits are calculated once. The shared instance keeps {@code pokerserver.equity.cache}
+ * (50,000 by default) results, 0 turns the cache off.
+ *
+ * @category com > fcs > pokerserver > holder
+ */
+public class EquityCalculator {
+
+    public static final String EXHAUSTIVE_PROPERTY = "pokerserver.equity.exhaustive";
+    public static final String ERROR_PROPERTY = "pokerserver.equity.error";
+    public static final String CACHE_PROPERTY = "pokerserver.equity.cache";
+
+    private static final int SAMPLE_ROUND = 20000;
+    private static final int SAMPLE_BATCH = 2500;
+    private static final long MAX_SAMPLES = 10000000L;
+
+    private final HandEvaluator evaluator;
+    private final ForkJoinPool pool;
+    private final long exhaustiveLimit;
+    private final double maxError;
+    private final Cache<CanonicalSituation, EquityResult> cache;
+
+    private static class Holder {
+        private static final EquityCalculator INSTANCE = new EquityCalculator();
+    }
+
+    /**
+     * Create new the EquityCalculator with the configured evaluator and limits on the common pool.
+     */
+    public EquityCalculator() {
+        this(HandEvaluator.getInstance(), ForkJoinPool.commonPool(), Long.getLong(EXHAUSTIVE_PROPERTY, 2000000L),
+                Double.parseDouble(System.getProperty(ERROR_PROPERTY, "0.005")), Long.getLong(CACHE_PROPERTY, 50000L));
+    }
+
+    /**
+     * Create new the EquityCalculator without a result cache
+     *
+     * @param evaluator       evaluator used for calculating hand rank
+     * @param pool            pool running the enumeration and sampling tasks
+     * @param exhaustiveLimit largest number of runouts enumerated instead of sampled
+     * @param maxError        standard error at which sampling stops
+     */
+    public EquityCalculator(HandEvaluator evaluator, ForkJoinPool pool, long exhaustiveLimit, double maxError) {
+        this(evaluator, pool, exhaustiveLimit, maxError, 0);
+    }
+
+    /**
+     * Create new the EquityCalculator
+     *
+     * @param evaluator       evaluator used for calculating hand rank
+     * @param pool            pool running the enumeration and sampling tasks
+     * @param exhaustiveLimit largest number of runouts enumerated instead of sampled
+     * @param maxError        standard error at which sampling stops
+     * @param cacheSize       number of results kept, 0 for no cache
+     */
+    public EquityCalculator(HandEvaluator evaluator, ForkJoinPool pool, long exhaustiveLimit, double maxError,
+                            long cacheSize) {
+        this.evaluator = evaluator;
+        this.pool = pool;
+        this.exhaustiveLimit = exhaustiveLimit;
+        this.maxError = maxError;
+        this.cache = cacheSize > 0 ? CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats().build() : null;
+    }
+
+    /**
+     * Return the shared calculator built from the system properties.
+     *
+     * @return {@link EquityCalculator} instance
+     */
+    public static EquityCalculator getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Calculate the equity of the hands.
+     *
+     * @param hands hole cards of every player still in the pot
+     * @param board community cards dealt so far
+     * @param dead  cards known to be out of the deck, may be empty
+     * @return EquityResult in the order of the hands
+     */
+    public EquityResult calculate(List<Hand> hands, Board board, Collection<Card> dead) {
+        if (hands.size() < 2) {
+            throw new IllegalArgumentException("Equity needs at least 2 hands: " + hands.size());
+        }
+        if (board.cards.size() > 5) {
+            throw new IllegalArgumentException("Board has more than 5 cards: " + board.cards.size());
+        }
+        long used = 0;
+        long[] handMasks = new long[hands.size()];
+        for (int i = 0; i < handMasks.length; i++) {
+            Hand hand = hands.get(i);
+            if (hand.getCardNumber() != 2) {
+                throw new IllegalArgumentException("Hand " + i + " does not hold 2 cards: " + hand);
+            }
+            handMasks[i] = hand.getMask();
+            used = add(used, handMasks[i], 2);
+        }
+        long boardMask = board.getMask();
+        used = add(used, boardMask, board.cards.size());
+        long deadMask = 0;
+        for (Card card : dead) {
+            used = add(used, card.getMask(), 1);
+            deadMask |= card.getMask();
+        }
+        if (cache == null) {
+            return calculate(handMasks, boardMask, used);
+        }
+        CanonicalSituation key = CanonicalSituation.of(handMasks, boardMask, deadMask);
+        EquityResult result = cache.getIfPresent(key);
+        if (result == null) {
+            result = calculate(handMasks, boardMask, used);
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Return the hit and miss counts of the result cache.
+     *
+     * @return CacheStats statistics, empty when the cache is off
+     */
+    public CacheStats getCacheStats() {
+        return cache == null ? new CacheStats(0, 0, 0, 0, 0, 0) : cache.stats();
+    }
+
+    private EquityResult calculate(long[] handMasks, long boardMask, long used) {
+        int missing = 5 - Long.bitCount(boardMask);
+        int[] deck = new int[52 - Long.bitCount(used)];
+        for (int card = 0, n = 0; card < 52; card++) {
+            if ((used & (1L << card)) == 0) deck[n++] = card;
+        }
+        if (deck.length < missing) {
+            throw new IllegalArgumentException("Not enough cards left for the board: " + deck.length);
+        }
+        Runouts runouts = new Runouts(evaluator, handMasks, boardMask, deck, missing);
+        if (combinations(deck.length, missing) <= exhaustiveLimit) {
+            Tally tally = missing == 0 ? runouts.single() : pool.invoke(new EnumerateTask(runouts, 0, deck.length - missing + 1));
+            return tally.toResult(true);
+        }
+        SplittableRandom random = new SplittableRandom();
+        Tally total = new Tally(handMasks.length);
+        do {
+            total.merge(pool.invoke(new SampleTask(runouts, SAMPLE_ROUND, random.split())));
+        } while (total.standardError() > maxError && total.count < MAX_SAMPLES);
+        return total.toResult(false);
+    }
+
+    private static long add(long used, long mask, int count) {
+        if (Long.bitCount(mask) != count || (used & mask) != 0) {
+            throw new IllegalArgumentException("Card dealt twice");
+        }
+        return used | mask;
+    }
+
+    private static long combinations(int n, int k) {
+        long result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return result;
+    }
+
+    /**
+     * The fixed part of a calculation shared by its tasks.
+     */
+    private static class Runouts {
+        private final HandEvaluator evaluator;
+        private final long[] handMasks;
+        private final long boardMask;
+        private final int[] deck;
+        private final int missing;
+
+        Runouts(HandEvaluator evaluator, long[] handMasks, long boardMask, int[] deck, int missing) {
+            this.evaluator = evaluator;
+            this.handMasks = handMasks;
+            this.boardMask = boardMask;
+            this.deck = deck;
+            this.missing = missing;
+        }
+
+        Tally single() {
+            Tally tally = new Tally(handMasks.length);
+            tally.showdown(evaluator, handMasks, boardMask);
+            return tally;
+        }
+
+        void enumerate(Tally tally, long board, int start, int left) {
+            if (left == 0) {
+                tally.showdown(evaluator, handMasks, board);
+                return;
+            }
+            for (int i = start; i <= deck.length - left; i++) {
+                enumerate(tally, board | (1L << deck[i]), i + 1, left - 1);
+            }
+        }
+
+        void sample(Tally tally, int samples, SplittableRandom random) {
+            int[] cards = deck.clone();
+            for (int s = 0; s < samples; s++) {
+                long board = boardMask;
+                for (int j = 0; j < missing; j++) {
+                    int r = j + random.nextInt(cards.length - j);
+                    int card = cards[r];
+                    cards[r] = cards[j];
+                    cards[j] = card;
+                    board |= 1L << card;
+                }
+                tally.showdown(evaluator, handMasks, board);
+            }
+        }
+    }
+
+    /**
+     * Enumerate every runout whose first card is taken from the deck positions {@code from} to {@code to}.
+     */
+    private static class EnumerateTask extends RecursiveTask<Tally> {
+        private static final long serialVersionUID = 1L;
+        private final Runouts runouts;
+        private final int from;
+        private final int to;
+
+        EnumerateTask(Runouts runouts, int from, int to) {
+            this.runouts = runouts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                EnumerateTask left = new EnumerateTask(runouts, from, middle);
+                left.fork();
+                Tally tally = new EnumerateTask(runouts, middle, to).compute();
+                tally.merge(left.join());
+                return tally;
+            }
+            Tally tally = new Tally(runouts.handMasks.length);
+            runouts.enumerate(tally, runouts.boardMask | (1L << runouts.deck[from]), from + 1, runouts.missing - 1);
+            return tally;
+        }
+    }
+
+    /**
+     * Evaluate the given number of random runouts.
+     */
+    private static class SampleTask extends RecursiveTask<Tally> {
+        private static final long serialVersionUID = 1L;
+        private final Runouts runouts;
+        private final int samples;
+        private final SplittableRandom random;
+
+        SampleTask(Runouts runouts, int samples, SplittableRandom random) {
+            this.runouts = runouts;
+            this.samples = samples;
+            this.random = random;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (samples > SAMPLE_BATCH) {
+                int half = samples >>> 1;
+                SampleTask left = new SampleTask(runouts, half, random.split());
+                left.fork();
+                Tally tally = new SampleTask(runouts, samples - half, random).compute();
+                tally.merge(left.join());
+                return tally;
+            }
+            Tally tally = new Tally(runouts.handMasks.length);
+            runouts.sample(tally, samples, random);
+            return tally;
+        }
+    }
+
+    /**
+     * Wins, ties and pot shares counted over a number of runouts.
+     */
+    private static class Tally {
+        private long count;
+        private final long[] wins;
+        private final long[] ties;
+        private final double[] share;
+        private final double[] shareSquares;
+        private final int[] ranks;
+
+        Tally(int hands) {
+            wins = new long[hands];
+            ties = new long[hands];
+            share = new double[hands];
+            shareSquares = new double[hands];
+            ranks = new int[hands];
+        }
+
+        void showdown(HandEvaluator evaluator, long[] handMasks, long board) {
+            int best = 0;
+            int winners = 0;
+            for (int i = 0; i < handMasks.length; i++) {
+                int rank = evaluator.evaluate(board | handMasks[i]);
+                ranks[i] = rank;
+                if (rank > best) {
+                    best = rank;
+                    winners = 1;
+                } else if (rank == best) {
+                    winners++;
+                }
+            }
+            double part = 1.0 / winners;
+            for (int i = 0; i < handMasks.length; i++) {
+                if (ranks[i] != best) continue;
+                if (winners == 1) wins[i]++;
+                else ties[i]++;
+                share[i] += part;
+                shareSquares[i] += part * part;
+            }
+            count++;
+        }
+
+        void merge(Tally other) {
+            count += other.count;
+            for (int i = 0; i < wins.length; i++) {
+                wins[i] += other.wins[i];
+                ties[i] += other.ties[i];
+                share[i] += other.share[i];
+                shareSquares[i] += other.shareSquares[i];
+            }
+        }
+
+        double standardError() {
+            double error = 0;
+            for (int i = 0; i < share.length; i++) {
+                double mean = share[i] / count;
+                double variance = Math.max(0, shareSquares[i] / count - mean * mean);
+                error = Math.max(error, Math.sqrt(variance / count));
+            }
+            return error;
+        }
+
+        EquityResult toResult(boolean exact) {
+            double[] equity = new double[share.length];
+            for (int i = 0; i < equity.length; i++) {
+                equity[i] = share[i] / count;
+            }
+            return new EquityResult(count, wins, ties, equity, exact ? 0 : standardError(), exact);
+        }
+    }
+}
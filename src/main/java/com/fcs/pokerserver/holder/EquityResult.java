@@ -0,0 +1,127 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+
+package com.fcs.pokerserver.holder;
+
+/**
+ * Share of the pot every hand wins on average over the remaining runouts.
+ *
+ * @category com > fcs > pokerserver > holder
+ */
+public class EquityResult {
+
+    private final long samples;
+    private final long[] wins;
+    private final long[] ties;
+    private final double[] equity;
+    private final double error;
+    private final boolean exact;
+
+    EquityResult(long samples, long[] wins, long[] ties, double[] equity, double error, boolean exact) {
+        this.samples = samples;
+        this.wins = wins;
+        this.ties = ties;
+        this.equity = equity;
+        this.error = error;
+        this.exact = exact;
+    }
+
+    /**
+     * Return the number of hands the result is about.
+     *
+     * @return int number of hands
+     */
+    public int size() {
+        return equity.length;
+    }
+
+    /**
+     * Return the expected share of the pot of the hand, ties counted as split pots.
+     *
+     * @param index position of the hand in the calculated list
+     * @return double equity from 0 to 1
+     */
+    public double getEquity(int index) {
+        return equity[index];
+    }
+
+    /**
+     * Return the fraction of runouts the hand wins alone.
+     *
+     * @param index position of the hand in the calculated list
+     * @return double win fraction
+     */
+    public double getWin(int index) {
+        return (double) wins[index] / samples;
+    }
+
+    /**
+     * Return the fraction of runouts the hand splits the pot.
+     *
+     * @param index position of the hand in the calculated list
+     * @return double tie fraction
+     */
+    public double getTie(int index) {
+        return (double) ties[index] / samples;
+    }
+
+    /**
+     * Return the number of runouts evaluated.
+     *
+     * @return long runouts
+     */
+    public long getSamples() {
+        return samples;
+    }
+
+    /**
+     * Return the largest standard error of the equities, 0 when every runout was enumerated.
+     *
+     * @return double standard error
+     */
+    public double getError() {
+        return error;
+    }
+
+    /**
+     * Return true when every runout was enumerated.
+     *
+     * @return boolean exact
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * Override the toString method
+     *
+     * @return String
+     */
+    @Override
+    public String toString() {
+        StringBuilder data = new StringBuilder("[");
+        for (int i = 0; i < equity.length; i++) {
+            if (i > 0) data.append(",");
+            data.append(String.format("%.4f", equity[i]));
+        }
+        return data.append("]").toString();
+    }
+}
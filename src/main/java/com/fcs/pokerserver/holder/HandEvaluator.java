@@ -0,0 +1,100 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.fcs.pokerserver.holder;
+
+/**
+ * Evaluation of the best five card poker hand out of five to seven cards.
+ * <p>
+ * All implementations return ranks in the two plus two format, {@code (HandType.ordinal() << 12) + ordinal},
+ * so values of different implementations can be compared with each other. The implementation returned by
+ * {@link #getInstance()} is chosen with {@code -Dpokerserver.evaluator=twoplustwo} (the default, a 130 MB lookup
+ * table) or {@code -Dpokerserver.evaluator=compact} (computed from rank bit masks with tables of a few kilobytes).
+ *
+ * @category com > fcs > pokerserver > holder
+ */
+public interface HandEvaluator {
+
+    String EVALUATOR_PROPERTY = "pokerserver.evaluator";
+    String TWO_PLUS_TWO = "twoplustwo";
+    String COMPACT = "compact";
+
+    /**
+     * Return the evaluator selected by the {@code pokerserver.evaluator} system property.
+     *
+     * @return HandEvaluator instance
+     */
+    static HandEvaluator getInstance() {
+        String name = System.getProperty(EVALUATOR_PROPERTY, TWO_PLUS_TWO);
+        if (COMPACT.equalsIgnoreCase(name)) {
+            return CompactHandEvaluator.getInstance();
+        }
+        if (!TWO_PLUS_TWO.equalsIgnoreCase(name)) {
+            throw new IllegalArgumentException("Unknown " + EVALUATOR_PROPERTY + ": " + name);
+        }
+        return TwoPlusTwoHandEvaluator.getInstance();
+    }
+
+    /**
+     * Return true when {@link #getInstance()} can answer without loading the evaluator first.
+     *
+     * @return boolean ready
+     */
+    static boolean isReady() {
+        return COMPACT.equalsIgnoreCase(System.getProperty(EVALUATOR_PROPERTY, TWO_PLUS_TWO))
+                || TwoPlusTwoHandEvaluator.isReady();
+    }
+
+    /**
+     * The method to evaluate the card on Player's hand
+     *
+     * @param board Board board
+     * @param hand  Hand hand
+     * @return HandRank rank
+     */
+    default HandRank evaluate(Board board, Hand hand) {
+        return new HandRank(evaluateRank(board, hand));
+    }
+
+    /**
+     * Evaluate the cards of the board and the hand without creating a {@link HandRank}.
+     *
+     * @param board Board board
+     * @param hand  Hand hand
+     * @return int raw rank value
+     */
+    int evaluateRank(Board board, Hand hand);
+
+    /**
+     * Evaluate five to seven cards packed in a mask built with {@link com.fcs.pokerserver.Card#getMask()}.
+     *
+     * @param cardMask one bit per card, bit {@code getEvaluation() - 1}
+     * @return int raw rank value
+     */
+    int evaluate(long cardMask);
+
+    /**
+     * Prepare the evaluation of several hands against the same board.
+     *
+     * @param board complete or partial board
+     * @return BoardEvaluation for the board
+     */
+    BoardEvaluation forBoard(Board board);
+}
@@ -0,0 +1,156 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.fcs.pokerserver.holder;
+
+/**
+ * Hand strength of one player, advanced street by street.
+ * <p>
+ * With the {@link TwoPlusTwoHandEvaluator} the table state is kept between streets. The table walk does not
+ * depend on the order of the cards, so {@link #update(Board, Hand)} only walks the cards it has not seen yet.
+ * When a card disappears, for example because the hand or the board was replaced, the walk starts again from
+ * the first card. Other evaluators evaluate the known cards when the rank is asked for.
+ *
+ * @category com > fcs > pokerserver > holder
+ */
+public class HandProgress {
+
+    /**
+     * Bits of the clubs in a card mask, shift by the suit index for the other suits.
+     */
+    private static final long CLUBS = 0x1111111111111L;
+
+    private final HandEvaluator evaluator;
+    private final TwoPlusTwoHandEvaluator table;
+    private long cards;
+    private int count;
+    private int state = 53;
+
+    /**
+     * Create new the HandProgress
+     *
+     * @param evaluator evaluator used for calculating hand rank
+     */
+    public HandProgress(HandEvaluator evaluator) {
+        this.evaluator = evaluator;
+        this.table = evaluator instanceof TwoPlusTwoHandEvaluator ? (TwoPlusTwoHandEvaluator) evaluator : null;
+    }
+
+    /**
+     * Walk the cards of the board and the hand that were not walked yet.
+     *
+     * @param board Board of the game
+     * @param hand  Hand of the player
+     */
+    public void update(Board board, Hand hand) {
+        long mask = board.getMask() | hand.getMask();
+        if (Long.bitCount(mask) > 7) {
+            throw new IllegalArgumentException("Can only evaluate up to 7 cards: " + Long.bitCount(mask));
+        }
+        if ((cards & ~mask) != 0) {
+            reset();
+        }
+        long added = mask & ~cards;
+        while (added != 0) {
+            if (table != null) state = table.next(state, Long.numberOfTrailingZeros(added) + 1);
+            added &= added - 1;
+            count++;
+        }
+        cards = mask;
+    }
+
+    /**
+     * Forget all cards walked so far.
+     */
+    public void reset() {
+        cards = 0;
+        count = 0;
+        state = 53;
+    }
+
+    /**
+     * Return the number of cards walked so far.
+     *
+     * @return int card count
+     */
+    public int getCardCount() {
+        return count;
+    }
+
+    /**
+     * Return the raw rank value of the best hand made so far.
+     *
+     * @return int rank value, 0 before five cards are known
+     */
+    public int getRankValue() {
+        if (count < 5) return 0;
+        return table != null ? table.finish(state, count) : evaluator.evaluate(cards);
+    }
+
+    /**
+     * Return the best hand made so far.
+     *
+     * @return HandRank rank, null before five cards are known
+     */
+    public HandRank getHandRank() {
+        return count < 5 ? null : new HandRank(getRankValue());
+    }
+
+    /**
+     * Return true when four cards of a suit are known, no flush is made and more cards are to come.
+     *
+     * @return boolean flush draw
+     */
+    public boolean hasFlushDraw() {
+        if (count >= 7) return false;
+        boolean draw = false;
+        for (int suit = 0; suit < 4; suit++) {
+            int suited = Long.bitCount(cards & (CLUBS << suit));
+            if (suited >= 5) return false;
+            if (suited == 4) draw = true;
+        }
+        return draw;
+    }
+
+    /**
+     * Return true when one more rank would complete a straight that is not made yet.
+     *
+     * @return boolean straight draw
+     */
+    public boolean hasStraightDraw() {
+        if (count >= 7) return false;
+        int ranks = rankMask();
+        if (HandRankCalculator.straightTop(ranks) >= 0) return false;
+        for (int rank = 0; rank < 13; rank++) {
+            if ((ranks & (1 << rank)) == 0 && HandRankCalculator.straightTop(ranks | (1 << rank)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int rankMask() {
+        int ranks = 0;
+        for (int rank = 0; rank < 13; rank++) {
+            if (((cards >>> (rank * 4)) & 0xF) != 0) ranks |= 1 << rank;
+        }
+        return ranks;
+    }
+}
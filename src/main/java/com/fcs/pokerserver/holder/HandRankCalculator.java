@@ -0,0 +1,259 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.fcs.pokerserver.holder;
+
+/**
+ * Direct evaluation of 5 to 7 cards into the two plus two rank format.
+ * <p>
+ * A rank is {@code (type << 12) + ordinal}, where type is the {@link HandType} ordinal and
+ * ordinal counts upwards from 1 for the weakest hand of that type, so ranks compare the same way
+ * as the values found in the 2+2 lookup table.
+ *
+ * @category com > fcs > pokerserver > holder
+ */
+final class HandRankCalculator {
+
+    private static final int WHEEL = (1 << 12) | 0xF;
+
+    /**
+     * Ordinal of every five distinct ranks that do not make a straight, shared by high card and flush.
+     */
+    private static final short[] FIVE_RANK_ORDINAL = new short[1 << 13];
+
+    private static final int[][] CHOOSE = new int[13][4];
+
+    static {
+        for (int n = 0; n < 13; n++) {
+            for (int k = 1; k < 4; k++) {
+                CHOOSE[n][k] = binomial(n, k);
+            }
+        }
+        short ordinal = 0;
+        for (int mask = 0; mask < FIVE_RANK_ORDINAL.length; mask++) {
+            if (Integer.bitCount(mask) == 5 && straightTop(mask) < 0) {
+                FIVE_RANK_ORDINAL[mask] = ++ordinal;
+            }
+        }
+    }
+
+    private HandRankCalculator() {
+    }
+
+    /**
+     * Evaluate the best five card hand out of the given cards.
+     *
+     * @param ranks card ranks from 0 (two) to 12 (ace)
+     * @param suits card suits from 1 to 4, or 0 for a card that can never be part of a flush
+     * @param count number of cards, from 5 to 7
+     * @return int rank value in the 2+2 format
+     */
+    static int evaluate(int[] ranks, int[] suits, int count) {
+        int ones = 0;
+        int twos = 0;
+        int fours = 0;
+        int suit1 = 0;
+        int suit2 = 0;
+        int suit3 = 0;
+        int suit4 = 0;
+        for (int i = 0; i < count; i++) {
+            int bit = 1 << ranks[i];
+            int carry = ones & bit;
+            ones ^= bit;
+            fours |= twos & carry;
+            twos ^= carry;
+            switch (suits[i]) {
+                case 1:
+                    suit1 |= bit;
+                    break;
+                case 2:
+                    suit2 |= bit;
+                    break;
+                case 3:
+                    suit3 |= bit;
+                    break;
+                case 4:
+                    suit4 |= bit;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return evaluate(ones | twos | fours, ones & ~twos & ~fours, twos & ~ones, ones & twos, fours,
+                flush(suit1, suit2, suit3, suit4));
+    }
+
+    /**
+     * Evaluate the best five card hand out of the cards of a mask built with {@link com.fcs.pokerserver.Card#getMask()}.
+     *
+     * @param cardMask five to seven cards, bit {@code rank * 4 + suit}
+     * @return int rank value in the 2+2 format
+     */
+    static int evaluate(long cardMask) {
+        int ones = 0;
+        int twos = 0;
+        int fours = 0;
+        int suit1 = 0;
+        int suit2 = 0;
+        int suit3 = 0;
+        int suit4 = 0;
+        while (cardMask != 0) {
+            int card = Long.numberOfTrailingZeros(cardMask);
+            cardMask &= cardMask - 1;
+            int bit = 1 << (card >>> 2);
+            int carry = ones & bit;
+            ones ^= bit;
+            fours |= twos & carry;
+            twos ^= carry;
+            switch (card & 3) {
+                case 0:
+                    suit1 |= bit;
+                    break;
+                case 1:
+                    suit2 |= bit;
+                    break;
+                case 2:
+                    suit3 |= bit;
+                    break;
+                default:
+                    suit4 |= bit;
+                    break;
+            }
+        }
+        return evaluate(ones | twos | fours, ones & ~twos & ~fours, twos & ~ones, ones & twos, fours,
+                flush(suit1, suit2, suit3, suit4));
+    }
+
+    /**
+     * Evaluate a hand described by rank bit masks.
+     *
+     * @param all    ranks present at least once
+     * @param singles ranks present exactly once
+     * @param pairs  ranks present exactly twice
+     * @param trips  ranks present exactly three times
+     * @param quads  ranks present four times
+     * @param flush  ranks of the suit holding five or more cards, 0 if there is none
+     * @return int rank value in the 2+2 format
+     */
+    static int evaluate(int all, int singles, int pairs, int trips, int quads, int flush) {
+        if (flush != 0) {
+            int top = straightTop(flush);
+            if (top >= 0) return (HandType.STRAIGHT_FLUSH.ordinal() << 12) + top - 2;
+        }
+        if (quads != 0) {
+            int quad = highest(quads);
+            int kicker = highest(all & ~(1 << quad));
+            return (HandType.FOUR_OF_A_KIND.ordinal() << 12) + quad * 12 + skip(kicker, quad) + 1;
+        }
+        if (trips != 0) {
+            int trip = highest(trips);
+            int rest = (trips & ~(1 << trip)) | pairs;
+            if (rest != 0) {
+                return (HandType.FULL_HOUSE.ordinal() << 12) + trip * 12 + skip(highest(rest), trip) + 1;
+            }
+        }
+        if (flush != 0) {
+            return (HandType.FLUSH.ordinal() << 12) + FIVE_RANK_ORDINAL[keepHighest(flush, 5)];
+        }
+        int top = straightTop(all);
+        if (top >= 0) return (HandType.STRAIGHT.ordinal() << 12) + top - 2;
+        if (trips != 0) {
+            int trip = highest(trips);
+            int kickers = compress(keepHighest(all & ~(1 << trip), 2), trip);
+            return (HandType.THREE_OF_A_KIND.ordinal() << 12) + trip * 66 + colex(kickers) + 1;
+        }
+        if (Integer.bitCount(pairs) >= 2) {
+            int high = highest(pairs);
+            int low = highest(pairs & ~(1 << high));
+            int kicker = highest(all & ~(1 << high) & ~(1 << low));
+            return (HandType.TWO_PAIR.ordinal() << 12) + (colex((1 << high) | (1 << low)) * 11)
+                    + skip(skip(kicker, high), low) + 1;
+        }
+        if (pairs != 0) {
+            int pair = highest(pairs);
+            int kickers = compress(keepHighest(all & ~(1 << pair), 3), pair);
+            return (HandType.PAIR.ordinal() << 12) + pair * 220 + colex(kickers) + 1;
+        }
+        return (HandType.HIGH_CARD.ordinal() << 12) + FIVE_RANK_ORDINAL[keepHighest(singles, 5)];
+    }
+
+    /**
+     * Return the rank of the highest card of the best straight in the mask, 3 for a wheel, or -1.
+     */
+    static int straightTop(int mask) {
+        int runs = mask & (mask << 1) & (mask << 2) & (mask << 3) & (mask << 4);
+        if (runs != 0) return highest(runs);
+        return (mask & WHEEL) == WHEEL ? 3 : -1;
+    }
+
+    private static int flush(int suit1, int suit2, int suit3, int suit4) {
+        if (Integer.bitCount(suit1) >= 5) return suit1;
+        if (Integer.bitCount(suit2) >= 5) return suit2;
+        if (Integer.bitCount(suit3) >= 5) return suit3;
+        if (Integer.bitCount(suit4) >= 5) return suit4;
+        return 0;
+    }
+
+    private static int highest(int mask) {
+        return 31 - Integer.numberOfLeadingZeros(mask);
+    }
+
+    private static int keepHighest(int mask, int count) {
+        while (Integer.bitCount(mask) > count) {
+            mask &= mask - 1;
+        }
+        return mask;
+    }
+
+    /**
+     * Index of a rank once the rank {@code removed} has been taken out of the deck.
+     */
+    private static int skip(int rank, int removed) {
+        return rank < removed ? rank : rank - 1;
+    }
+
+    private static int compress(int mask, int removed) {
+        return (mask & ((1 << removed) - 1)) | ((mask >>> (removed + 1)) << removed);
+    }
+
+    /**
+     * Position of the mask in the colexicographic order of masks with the same number of bits,
+     * which is also the order of the masks as numbers.
+     */
+    private static int colex(int mask) {
+        int index = 0;
+        int k = 1;
+        while (mask != 0) {
+            int bit = Integer.numberOfTrailingZeros(mask);
+            index += CHOOSE[bit][k++];
+            mask &= mask - 1;
+        }
+        return index;
+    }
+
+    private static int binomial(int n, int k) {
+        if (n < k) return 0;
+        int result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,399 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.fcs.pokerserver.holder;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Builds the two plus two state-transition table from first principles, so the evaluator does not
+ * depend on a prebuilt HandRanks.zip.
+ * <p>
+ * Every state is the sorted list of cards seen so far, with the suit stripped from cards that can no
+ * longer take part in a flush. States are numbered in ascending ID order, exactly like the original
+ * generator, and each one owns 53 slots: slot {@code n * 53 + card + 53} leads to the next state
+ * (or to the final rank after the seventh card), and slot {@code n * 53 + 53} holds the rank of a
+ * complete five or six card state.
+ * <p>
+ * The result is written with a CRC32 sidecar file into the cache directory, and later startups only
+ * validate the cached file.
+ *
+ * @category com > fcs > pokerserver > holder
+ */
+public class HandRankTableGenerator {
+
+    private static final Logger log = Logger.getLogger(HandRankTableGenerator.class.getName());
+    private static final String CHECKSUM_SUFFIX = ".crc32";
+    private static final int SPLIT_THRESHOLD = 4096;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Create a generator running on the common fork/join pool.
+     */
+    public HandRankTableGenerator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create a generator running on the given pool.
+     *
+     * @param pool ForkJoinPool used to build the table
+     */
+    public HandRankTableGenerator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Build the complete lookup table.
+     *
+     * @return int[] hand rank lookup values
+     */
+    public int[] generate() {
+        long start = System.currentTimeMillis();
+        long[] level = {0L};
+        long[] ids = level;
+        for (int cards = 1; cards < 7; cards++) {
+            level = pool.invoke(new ExpandTask(level, 0, level.length));
+            ids = merge(ids, level);
+        }
+        int[] table = new int[(ids.length + 1) * 53];
+        pool.invoke(new FillTask(ids, table, 0, ids.length));
+        log.log(Level.INFO, "Generated hand rank table with " + ids.length + " states in "
+                + (System.currentTimeMillis() - start) + " ms");
+        return table;
+    }
+
+    /**
+     * Return the table cached in the given file, generating and caching it when the file is missing or invalid.
+     *
+     * @param file raw little-endian table file
+     * @return int[] hand rank lookup values
+     * @throws IOException
+     */
+    public int[] loadOrGenerate(File file) throws IOException {
+        if (isValid(file)) {
+            return read(file);
+        }
+        int[] table = generate();
+        try {
+            write(table, file);
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Cannot cache hand rank table in " + file, e);
+        }
+        return table;
+    }
+
+    /**
+     * Make sure the given file holds a valid table, generating it when needed.
+     *
+     * @param file raw little-endian table file
+     * @return File the validated file
+     * @throws IOException
+     */
+    public File ensureCached(File file) throws IOException {
+        if (!isValid(file)) {
+            write(generate(), file);
+        }
+        return file;
+    }
+
+    /**
+     * Check that the file exists and matches the checksum recorded next to it.
+     *
+     * @param file raw little-endian table file
+     * @return boolean true when the cached table can be used
+     */
+    public boolean isValid(File file) {
+        File sidecar = checksumFile(file);
+        if (!file.isFile() || !sidecar.isFile() || file.length() % 4 != 0) return false;
+        try {
+            long expected = Long.parseLong(new String(Files.readAllBytes(sidecar.toPath()), StandardCharsets.US_ASCII).trim(), 16);
+            return checksum(file) == expected;
+        } catch (IOException | NumberFormatException e) {
+            log.log(Level.WARNING, "Cannot validate hand rank table " + file, e);
+            return false;
+        }
+    }
+
+    /**
+     * Write the table and its checksum. Both files are renamed into place once complete.
+     *
+     * @param table hand rank lookup values
+     * @param file  raw little-endian table file
+     * @throws IOException
+     */
+    public void write(int[] table, File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("cannot create directory " + dir);
+        }
+        File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+        File tmpSidecar = File.createTempFile(file.getName(), CHECKSUM_SUFFIX + ".tmp", dir);
+        try {
+            CRC32 crc = new CRC32();
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp.toPath()), 1 << 16)) {
+                for (int value : table) {
+                    if (!buffer.hasRemaining()) {
+                        crc.update(buffer.array(), 0, buffer.position());
+                        out.write(buffer.array(), 0, buffer.position());
+                        buffer.clear();
+                    }
+                    buffer.putInt(value);
+                }
+                crc.update(buffer.array(), 0, buffer.position());
+                out.write(buffer.array(), 0, buffer.position());
+            }
+            Files.write(tmpSidecar.toPath(), Long.toHexString(crc.getValue()).getBytes(StandardCharsets.US_ASCII));
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(tmpSidecar.toPath(), checksumFile(file).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.log(Level.INFO, "Cached hand rank table in " + file);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+            Files.deleteIfExists(tmpSidecar.toPath());
+        }
+    }
+
+    /**
+     * Read a raw little-endian table file into memory.
+     *
+     * @param file raw little-endian table file
+     * @return int[] hand rank lookup values
+     * @throws IOException
+     */
+    public int[] read(File file) throws IOException {
+        int[] table = new int[(int) (file.length() / 4)];
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            int index = 0;
+            while (index < table.length && channel.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.remaining() >= 4) {
+                    table[index++] = buffer.getInt();
+                }
+                buffer.compact();
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Compute the CRC32 of a file.
+     *
+     * @param file file to checksum
+     * @return long CRC32 value
+     * @throws IOException
+     */
+    public static long checksum(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            byte[] buffer = new byte[1 << 16];
+            int size;
+            while ((size = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, size);
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static File checksumFile(File file) {
+        return new File(file.getPath() + CHECKSUM_SUFFIX);
+    }
+
+    /**
+     * Add a card (1 to 52, in {@link com.fcs.pokerserver.Card#getEvaluation()} order) to a state ID.
+     * Each byte of an ID holds one card as {@code (rank + 1) << 4 | suit}, sorted in descending order.
+     *
+     * @return long the new state ID, or 0 when the card is already part of the state
+     */
+    static long addCard(long id, int card) {
+        int[] wk = new int[7];
+        int[] suitCount = new int[5];
+        int[] rankCount = new int[14];
+        int newCard = (((card - 1) >> 2) + 1) << 4 | ((card - 1) & 3) + 1;
+        int count = 0;
+        wk[count++] = newCard;
+        for (int i = 0; i < 6; i++) {
+            int existing = (int) ((id >>> (8 * i)) & 0xFF);
+            if (existing == 0) break;
+            if (existing == newCard) return 0;
+            wk[count++] = existing;
+        }
+        for (int i = 0; i < count; i++) {
+            suitCount[wk[i] & 0xF]++;
+            // stripped cards cannot be told apart, so duplicates only show up as a fifth card of a rank
+            if (++rankCount[wk[i] >> 4] > 4) return 0;
+        }
+        // a suit that already fell behind can never make a flush with the cards still to come
+        int needSuited = count - 2;
+        if (needSuited > 1) {
+            for (int i = 0; i < count; i++) {
+                if (suitCount[wk[i] & 0xF] < needSuited) {
+                    wk[i] &= 0xF0;
+                }
+            }
+        }
+        Arrays.sort(wk, 0, count);
+        long result = 0;
+        for (int i = 0; i < count; i++) {
+            result |= (long) wk[count - 1 - i] << (8 * i);
+        }
+        return result;
+    }
+
+    /**
+     * Number of cards in a state ID.
+     */
+    static int cardCount(long id) {
+        return (71 - Long.numberOfLeadingZeros(id)) >> 3;
+    }
+
+    /**
+     * Evaluate a complete five, six or seven card state ID.
+     */
+    static int evaluate(long id) {
+        int[] ranks = new int[7];
+        int[] suits = new int[7];
+        int count = 0;
+        for (; count < 7; count++) {
+            int card = (int) ((id >>> (8 * count)) & 0xFF);
+            if (card == 0) break;
+            ranks[count] = (card >> 4) - 1;
+            suits[count] = card & 0xF;
+        }
+        return HandRankCalculator.evaluate(ranks, suits, count);
+    }
+
+    private static long[] merge(long[] a, long[] b) {
+        long[] merged = new long[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length || j < b.length) {
+            long next;
+            if (j == b.length || (i < a.length && a[i] <= b[j])) {
+                next = a[i++];
+            } else {
+                next = b[j++];
+            }
+            if (n == 0 || merged[n - 1] != next) merged[n++] = next;
+        }
+        return n == merged.length ? merged : Arrays.copyOf(merged, n);
+    }
+
+    /**
+     * Collect the sorted, distinct states reachable by adding one card to a range of states.
+     */
+    private static class ExpandTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+        private final long[] states;
+        private final int from;
+        private final int to;
+
+        ExpandTask(long[] states, int from, int to) {
+            this.states = states;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from > SPLIT_THRESHOLD / 52) {
+                int middle = (from + to) >>> 1;
+                ExpandTask left = new ExpandTask(states, from, middle);
+                left.fork();
+                long[] right = new ExpandTask(states, middle, to).compute();
+                return merge(left.join(), right);
+            }
+            long[] next = new long[(to - from) * 52];
+            int n = 0;
+            for (int i = from; i < to; i++) {
+                for (int card = 1; card <= 52; card++) {
+                    long id = addCard(states[i], card);
+                    if (id != 0) next[n++] = id;
+                }
+            }
+            Arrays.sort(next, 0, n);
+            return merge(new long[0], Arrays.copyOf(next, n));
+        }
+    }
+
+    /**
+     * Fill the 53 table slots of a range of states.
+     */
+    private static class FillTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final long[] ids;
+        private final int[] table;
+        private final int from;
+        private final int to;
+
+        FillTask(long[] ids, int[] table, int from, int to) {
+            this.ids = ids;
+            this.table = table;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new FillTask(ids, table, from, middle), new FillTask(ids, table, middle, to));
+                return;
+            }
+            for (int n = from; n < to; n++) {
+                int count = cardCount(ids[n]);
+                for (int card = 1; card <= 52; card++) {
+                    long id = addCard(ids[n], card);
+                    int slot;
+                    if (count + 1 < 7) {
+                        slot = (id == 0 ? 0 : Arrays.binarySearch(ids, id)) * 53 + 53;
+                    } else {
+                        slot = id == 0 ? 0 : evaluate(id);
+                    }
+                    table[n * 53 + card + 53] = slot;
+                }
+                if (count == 5 || count == 6) {
+                    table[n * 53 + 53] = evaluate(ids[n]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+package com.fcs.pokerserver.holder;
+
+import java.io.File;
+import java.util.List;
+
+import com.fcs.pokerserver.Card;
+
+/**
+ * Preflop all-in equities of the 169 starting hand classes.
+ * <p>
+ * A class is a pair, or two ranks either suited or offsuit. Class {@code high * 13 + low} is suited,
+ * {@code low * 13 + high} is offsuit and {@code rank * 14} is the pair, with ranks from 0 (two) to 12 (ace).
+ * Values are averaged over the suit combinations of the classes, so a lookup for two concrete hands is an
+ * approximation of the exact equity that {@link EquityCalculator} would enumerate.
+ * <p>
+ * {@link #getInstance()} reads {@code PreflopEquity.dat} next to the hand rank table in
+ * {@code pokerserver.handranks.dir} and generates it with {@link PreflopEquityGenerator} on first use.
+ *
+ * @category com > fcs > pokerserver > holder
+ */
+public class PreflopEquity {
+
+    public static final int CLASSES = 169;
+    public static final int MAX_OPPONENTS = 8;
+
+    private static final String EQUITY_FILE = "PreflopEquity.dat";
+
+    private final int samples;
+    private final char[] wins;
+    private final char[] ties;
+    private final char[] random;
+
+    private static volatile PreflopEquity instance;
+
+    PreflopEquity(int samples, char[] wins, char[] ties, char[] random) {
+        this.samples = samples;
+        this.wins = wins;
+        this.ties = ties;
+        this.random = random;
+    }
+
+    /**
+     * Return the shared matrix, loading or generating it on first use.
+     *
+     * @return {@link PreflopEquity} instance
+     */
+    public static PreflopEquity getInstance() {
+        PreflopEquity equity = instance;
+        if (equity == null) {
+            synchronized (PreflopEquity.class) {
+                equity = instance;
+                if (equity == null) {
+                    try {
+                        equity = new PreflopEquityGenerator().loadOrGenerate(getEquityFile());
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                    instance = equity;
+                }
+            }
+        }
+        return equity;
+    }
+
+    /**
+     * Return the shared matrix without waiting for it to be loaded.
+     *
+     * @return {@link PreflopEquity} instance, null while it is not loaded yet
+     */
+    public static PreflopEquity getLoaded() {
+        return instance;
+    }
+
+    /**
+     * Return the file caching the matrix.
+     *
+     * @return File the PreflopEquity.dat inside the hand rank directory
+     */
+    public static File getEquityFile() {
+        return new File(TwoPlusTwoHandEvaluator.getHandRankFile().getParentFile(), EQUITY_FILE);
+    }
+
+    /**
+     * Return the class of two hole cards.
+     *
+     * @param c1 first card
+     * @param c2 second card
+     * @return int class from 0 to 168
+     */
+    public static int classOf(Card c1, Card c2) {
+        int r1 = c1.getRank().ordinal();
+        int r2 = c2.getRank().ordinal();
+        int high = Math.max(r1, r2);
+        int low = Math.min(r1, r2);
+        if (high == low) return high * 14;
+        return c1.getSuit() == c2.getSuit() ? high * 13 + low : low * 13 + high;
+    }
+
+    /**
+     * Return the class of the hole cards of a hand.
+     *
+     * @param hand Hand holding two cards
+     * @return int class from 0 to 168
+     */
+    public static int classOf(Hand hand) {
+        return classOf(hand.getCard(0), hand.getCard(1));
+    }
+
+    /**
+     * Return the heads-up equity of the first class against the second.
+     *
+     * @param hero    class of the first hand
+     * @param villain class of the second hand
+     * @return double equity from 0 to 1
+     */
+    public double getEquity(int hero, int villain) {
+        return getWin(hero, villain) + getTie(hero, villain) / 2;
+    }
+
+    /**
+     * Return the fraction of runouts the first class wins against the second.
+     */
+    public double getWin(int hero, int villain) {
+        return wins[hero * CLASSES + villain] / 65535.0;
+    }
+
+    /**
+     * Return the fraction of runouts the two classes split the pot.
+     */
+    public double getTie(int hero, int villain) {
+        return ties[hero * CLASSES + villain] / 65535.0;
+    }
+
+    /**
+     * Return the equity of the class against random hands.
+     *
+     * @param hero      class of the hand
+     * @param opponents number of random opponents, from 1 to 8
+     * @return double equity from 0 to 1
+     */
+    public double getEquityVersusRandom(int hero, int opponents) {
+        if (opponents < 1 || opponents > MAX_OPPONENTS) {
+            throw new IllegalArgumentException("Opponents must be between 1 and " + MAX_OPPONENTS + ": " + opponents);
+        }
+        return random[hero * MAX_OPPONENTS + opponents - 1] / 65535.0;
+    }
+
+    /**
+     * Return the heads-up preflop equity of two hands, looked up from their classes.
+     *
+     * @param hands two hands holding two cards each
+     * @return EquityResult in the order of the hands
+     */
+    public EquityResult calculate(List<Hand> hands) {
+        if (hands.size() != 2) {
+            throw new IllegalArgumentException("Preflop matrix only holds heads-up equities: " + hands.size());
+        }
+        int hero = classOf(hands.get(0));
+        int villain = classOf(hands.get(1));
+        long[] won = {Math.round(getWin(hero, villain) * samples), Math.round(getWin(villain, hero) * samples)};
+        long tie = Math.round(getTie(hero, villain) * samples);
+        long[] tied = {tie, tie};
+        double[] equity = {getEquity(hero, villain), getEquity(villain, hero)};
+        double error = Math.sqrt(equity[0] * equity[1] / samples);
+        return new EquityResult(samples, won, tied, equity, error, false);
+    }
+
+    /**
+     * Return the number of runouts sampled for every entry.
+     *
+     * @return int samples
+     */
+    public int getSamples() {
+        return samples;
+    }
+
+    char[] wins() {
+        return wins;
+    }
+
+    char[] ties() {
+        return ties;
+    }
+
+    char[] random() {
+        return random;
+    }
+}
@@ -0,0 +1,411 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+
+package com.fcs.pokerserver.holder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Builds the {@link PreflopEquity} matrix by sampling boards for every pair of starting hand classes,
+ * and runouts of every class against one to eight random hands.
+ * <p>
+ * Heads-up entries share their boards: each sampled board is evaluated once for all 1326 starting hands,
+ * and every pair of non-overlapping hands is counted for the pair of classes it belongs to, so each entry
+ * is averaged over all the suit combinations of both classes. {@code pokerserver.preflop.samples} (5,000
+ * by default) is the number of boards, and also the number of runouts of every entry against random hands.
+ * Every board and entry uses its own random stream seeded from its position, so the result does not depend
+ * on how the work is split over the fork/join pool. The file stores the values as unsigned 16 bit fractions
+ * followed by a CRC32 of the content.
+ *
+ * @category com > fcs > pokerserver > holder
+ */
+public class PreflopEquityGenerator {
+
+    public static final String SAMPLES_PROPERTY = "pokerserver.preflop.samples";
+
+    private static final Logger log = Logger.getLogger(PreflopEquityGenerator.class.getName());
+    private static final int MAGIC = 0x50464551;
+    private static final int VERSION = 1;
+    private static final long SEED = 0x2545F4914F6CDD1DL;
+    private static final int CLASSES = PreflopEquity.CLASSES;
+    private static final int OPPONENTS = PreflopEquity.MAX_OPPONENTS;
+    private static final int BOARD_BATCH = 64;
+
+    /**
+     * Two card masks of every combination of each class.
+     */
+    private static final long[][] COMBOS = new long[CLASSES][];
+
+    /**
+     * Two card masks of the 1326 starting hands, grouped by class, and the first index of every class.
+     */
+    private static final long[] HANDS = new long[1326];
+    private static final int[] CLASS_START = new int[CLASSES + 1];
+
+    static {
+        for (int high = 0; high < 13; high++) {
+            for (int low = 0; low <= high; low++) {
+                long[] pairs = new long[high == low ? 6 : 12];
+                long[] suited = new long[4];
+                int p = 0;
+                int s = 0;
+                for (int suit1 = 0; suit1 < 4; suit1++) {
+                    for (int suit2 = 0; suit2 < 4; suit2++) {
+                        long mask = (1L << (high * 4 + suit1)) | (1L << (low * 4 + suit2));
+                        if (high == low) {
+                            if (suit1 < suit2) pairs[p++] = mask;
+                        } else if (suit1 == suit2) {
+                            suited[s++] = mask;
+                        } else {
+                            pairs[p++] = mask;
+                        }
+                    }
+                }
+                if (high == low) {
+                    COMBOS[high * 14] = pairs;
+                } else {
+                    COMBOS[high * 13 + low] = suited;
+                    COMBOS[low * 13 + high] = pairs;
+                }
+            }
+        }
+        int index = 0;
+        for (int handClass = 0; handClass < CLASSES; handClass++) {
+            CLASS_START[handClass] = index;
+            for (long combo : COMBOS[handClass]) {
+                HANDS[index++] = combo;
+            }
+        }
+        CLASS_START[CLASSES] = index;
+    }
+
+    private final HandEvaluator evaluator;
+    private final ForkJoinPool pool;
+    private final int samples;
+
+    /**
+     * Create a generator with the configured evaluator and number of samples on the common pool.
+     */
+    public PreflopEquityGenerator() {
+        this(HandEvaluator.getInstance(), ForkJoinPool.commonPool(), Integer.getInteger(SAMPLES_PROPERTY, 5000));
+    }
+
+    /**
+     * Create a generator.
+     *
+     * @param evaluator evaluator used for calculating hand rank
+     * @param pool      pool running the sampling tasks
+     * @param samples   boards sampled for the heads-up entries and runouts for every entry against random hands
+     */
+    public PreflopEquityGenerator(HandEvaluator evaluator, ForkJoinPool pool, int samples) {
+        this.evaluator = evaluator;
+        this.pool = pool;
+        this.samples = samples;
+    }
+
+    /**
+     * Sample the complete matrix.
+     *
+     * @return PreflopEquity matrix
+     */
+    public PreflopEquity generate() {
+        long start = System.currentTimeMillis();
+        char[] wins = new char[CLASSES * CLASSES];
+        char[] ties = new char[CLASSES * CLASSES];
+        char[] random = new char[CLASSES * OPPONENTS];
+        Showdowns showdowns = pool.invoke(new HeadsUpTask(0, samples));
+        for (int hero = 0; hero < CLASSES; hero++) {
+            for (int villain = hero; villain < CLASSES; villain++) {
+                int index = hero * CLASSES + villain;
+                double dealt = showdowns.dealt[index];
+                long lost = showdowns.dealt[index] - showdowns.won[index] - showdowns.tied[index];
+                wins[index] = fraction(showdowns.won[index] / dealt);
+                wins[villain * CLASSES + hero] = fraction(lost / dealt);
+                ties[index] = fraction(showdowns.tied[index] / dealt);
+                ties[villain * CLASSES + hero] = ties[index];
+            }
+        }
+        pool.invoke(new RandomTask(random, 0, CLASSES * OPPONENTS));
+        log.log(Level.INFO, "Generated preflop equity matrix with " + samples + " samples per entry in "
+                + (System.currentTimeMillis() - start) + " ms");
+        return new PreflopEquity(samples, wins, ties, random);
+    }
+
+    /**
+     * Return the matrix cached in the given file, generating and caching it when the file is missing or invalid.
+     *
+     * @param file matrix file
+     * @return PreflopEquity matrix
+     * @throws IOException
+     */
+    public PreflopEquity loadOrGenerate(File file) throws IOException {
+        if (file.isFile()) {
+            try {
+                return read(file);
+            } catch (IOException e) {
+                log.log(Level.WARNING, "Cannot read preflop equity matrix " + file, e);
+            }
+        }
+        PreflopEquity equity = generate();
+        try {
+            write(equity, file);
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Cannot cache preflop equity matrix in " + file, e);
+        }
+        return equity;
+    }
+
+    /**
+     * Write the matrix, renamed into place once complete.
+     *
+     * @param equity matrix
+     * @param file   matrix file
+     * @throws IOException
+     */
+    public void write(PreflopEquity equity, File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("cannot create directory " + dir);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(equity.getSamples());
+            for (char value : equity.wins()) out.writeChar(value);
+            for (char value : equity.ties()) out.writeChar(value);
+            for (char value : equity.random()) out.writeChar(value);
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            out.writeLong(crc.getValue());
+        }
+        File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+        try {
+            Files.write(tmp.toPath(), bytes.toByteArray());
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.log(Level.INFO, "Cached preflop equity matrix in " + file);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    /**
+     * Read and validate a matrix file.
+     *
+     * @param file matrix file
+     * @return PreflopEquity matrix
+     * @throws IOException when the file is truncated, of another version or fails its checksum
+     */
+    public PreflopEquity read(File file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        int size = 12 + (2 * CLASSES * CLASSES + CLASSES * OPPONENTS) * 2;
+        if (bytes.length != size + 8) {
+            throw new IOException("Unexpected preflop equity file size " + bytes.length);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, size);
+        if (crc.getValue() != ByteBuffer.wrap(bytes, size, 8).getLong()) {
+            throw new IOException("Preflop equity checksum mismatch in " + file);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a preflop equity file " + file);
+            }
+            int fileSamples = in.readInt();
+            char[] wins = new char[CLASSES * CLASSES];
+            char[] ties = new char[CLASSES * CLASSES];
+            char[] random = new char[CLASSES * OPPONENTS];
+            for (int i = 0; i < wins.length; i++) wins[i] = in.readChar();
+            for (int i = 0; i < ties.length; i++) ties[i] = in.readChar();
+            for (int i = 0; i < random.length; i++) random[i] = in.readChar();
+            return new PreflopEquity(fileSamples, wins, ties, random);
+        }
+    }
+
+    private static char fraction(double value) {
+        return (char) Math.round(value * 65535);
+    }
+
+    private static long randomCombo(int handClass, long used, SplittableRandom random) {
+        long[] combos = COMBOS[handClass];
+        long combo;
+        do {
+            combo = combos[random.nextInt(combos.length)];
+        } while ((combo & used) != 0);
+        return combo;
+    }
+
+    private static long randomCards(int count, long used, SplittableRandom random) {
+        long cards = 0;
+        while (count > 0) {
+            long card = 1L << random.nextInt(52);
+            if (((used | cards) & card) == 0) {
+                cards |= card;
+                count--;
+            }
+        }
+        return cards;
+    }
+
+    /**
+     * Heads-up results counted over a number of boards, indexed by {@code hero * 169 + villain} with hero
+     * not above villain.
+     */
+    private static class Showdowns {
+        private final long[] won = new long[CLASSES * CLASSES];
+        private final long[] tied = new long[CLASSES * CLASSES];
+        private final long[] dealt = new long[CLASSES * CLASSES];
+
+        void merge(Showdowns other) {
+            for (int i = 0; i < dealt.length; i++) {
+                won[i] += other.won[i];
+                tied[i] += other.tied[i];
+                dealt[i] += other.dealt[i];
+            }
+        }
+    }
+
+    /**
+     * Count every heads-up showdown of the boards {@code from} to {@code to}.
+     */
+    private class HeadsUpTask extends RecursiveTask<Showdowns> {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+
+        HeadsUpTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Showdowns compute() {
+            if (to - from > BOARD_BATCH) {
+                int middle = (from + to) >>> 1;
+                HeadsUpTask left = new HeadsUpTask(from, middle);
+                left.fork();
+                Showdowns showdowns = new HeadsUpTask(middle, to).compute();
+                showdowns.merge(left.join());
+                return showdowns;
+            }
+            Showdowns showdowns = new Showdowns();
+            int[] ranks = new int[HANDS.length];
+            for (int b = from; b < to; b++) {
+                long board = randomCards(5, 0, new SplittableRandom(SEED + b));
+                for (int h = 0; h < HANDS.length; h++) {
+                    ranks[h] = (HANDS[h] & board) != 0 ? -1 : evaluator.evaluate(board | HANDS[h]);
+                }
+                for (int hero = 0; hero < CLASSES; hero++) {
+                    for (int villain = hero; villain < CLASSES; villain++) {
+                        count(showdowns, hero * CLASSES + villain, hero, villain, ranks);
+                    }
+                }
+            }
+            return showdowns;
+        }
+
+        private void count(Showdowns showdowns, int index, int hero, int villain, int[] ranks) {
+            long won = 0;
+            long tied = 0;
+            long dealt = 0;
+            for (int a = CLASS_START[hero]; a < CLASS_START[hero + 1]; a++) {
+                int heroRank = ranks[a];
+                if (heroRank < 0) continue;
+                long heroCards = HANDS[a];
+                for (int b = CLASS_START[villain]; b < CLASS_START[villain + 1]; b++) {
+                    int villainRank = ranks[b];
+                    if (villainRank < 0 || (HANDS[b] & heroCards) != 0) continue;
+                    dealt++;
+                    if (heroRank > villainRank) won++;
+                    else if (heroRank == villainRank) tied++;
+                }
+            }
+            showdowns.won[index] += won;
+            showdowns.tied[index] += tied;
+            showdowns.dealt[index] += dealt;
+        }
+    }
+
+    /**
+     * Sample the equity of classes against random hands for a range of (class, opponents) entries.
+     */
+    private class RandomTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final char[] equity;
+        private final int from;
+        private final int to;
+
+        RandomTask(char[] equity, int from, int to) {
+            this.equity = equity;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > OPPONENTS) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RandomTask(equity, from, middle), new RandomTask(equity, middle, to));
+                return;
+            }
+            long[] opponents = new long[OPPONENTS];
+            for (int index = from; index < to; index++) {
+                int hero = index / OPPONENTS;
+                int count = index % OPPONENTS + 1;
+                SplittableRandom random = new SplittableRandom(~SEED + index);
+                double share = 0;
+                for (int s = 0; s < samples; s++) {
+                    long heroCards = randomCombo(hero, 0, random);
+                    long used = heroCards;
+                    for (int o = 0; o < count; o++) {
+                        opponents[o] = randomCards(2, used, random);
+                        used |= opponents[o];
+                    }
+                    long board = randomCards(5, used, random);
+                    int heroRank = evaluator.evaluate(board | heroCards);
+                    int winners = 1;
+                    for (int o = 0; o < count && winners > 0; o++) {
+                        int rank = evaluator.evaluate(board | opponents[o]);
+                        if (rank > heroRank) winners = 0;
+                        else if (rank == heroRank) winners++;
+                    }
+                    if (winners > 0) share += 1.0 / winners;
+                }
+                equity[index] = fraction(share / samples);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+
+package com.fcs.pokerserver.holder;
+
+import java.util.List;
+
+import com.fcs.pokerserver.Card;
+
+/**
+ * {@link BoardEvaluation} walking the board through the two plus two table once, so that each hand only
+ * costs its own lookups.
+ *
+ * @category com > fcs > pokerserver > holder
+ */
+class TwoPlusTwoBoardEvaluation extends BoardEvaluation {
+
+    private final TwoPlusTwoHandEvaluator evaluator;
+    private final int prefix;
+    private final int boardCount;
+
+    TwoPlusTwoBoardEvaluation(TwoPlusTwoHandEvaluator evaluator, Board board) {
+        super(evaluator, board);
+        this.evaluator = evaluator;
+        List<Card> cards = board.cards;
+        int p = 53;
+        for (int i = 0, n = cards.size(); i < n; i++) {
+            p = evaluator.next(p, cards.get(i).getEvaluation());
+        }
+        this.prefix = p;
+        this.boardCount = cards.size();
+    }
+
+    @Override
+    int walk(Hand hand) {
+        List<Card> cards = hand.cards;
+        int p = prefix;
+        for (int i = 0, n = cards.size(); i < n; i++) {
+            p = evaluator.next(p, cards.get(i).getEvaluation());
+        }
+        return evaluator.finish(p, boardCount + cards.size());
+    }
+}
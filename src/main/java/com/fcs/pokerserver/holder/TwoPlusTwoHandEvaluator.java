@@ -20,52 +20,104 @@ THE SOFTWARE.
 
 package com.fcs.pokerserver.holder;
 
-import java.util.Iterator;
+import java.io.File;
+import java.nio.IntBuffer;
+import java.util.List;
 
 import com.fcs.pokerserver.Card;
 
 
 /**
  * Poker hand Evaluation algorithm based on the two plus two 7 card hand evaluation algorithm.
+ * <p>
+ * The lookup table is kept on the heap by default. Start the JVM with {@code -Dpokerserver.handranks.mode=mmap}
+ * to extract it once into {@code pokerserver.handranks.dir} (the temp directory by default) and serve lookups
+ * from a read-only memory mapped file instead.
+ * <p>
+ * When {@code HandRanks.zip} is not on the classpath the table is built by {@link HandRankTableGenerator} and
+ * cached as {@code HandRanks.dat} in the same directory, so only the first start pays for the generation.
  *
  * @category com > fcs > pokerserver > holder
  */
-public class TwoPlusTwoHandEvaluator {
+public class TwoPlusTwoHandEvaluator implements HandEvaluator {
 
 
     private static final String HAND_RANKS = "HandRanks.zip";
+    private static final String HAND_RANKS_FILE = "HandRanks.dat";
 
-    private int[] handRanks;
+    public static final String MODE_PROPERTY = "pokerserver.handranks.mode";
+    public static final String DIR_PROPERTY = "pokerserver.handranks.dir";
+    public static final String MODE_HEAP = "heap";
+    public static final String MODE_MMAP = "mmap";
 
-    private static TwoPlusTwoHandEvaluator instance;
+    private IntBuffer handRanks;
+
+    private static volatile TwoPlusTwoHandEvaluator instance;
 
     /**
      * Create new the TwoPlusTwoHandEvaluator
      */
     public TwoPlusTwoHandEvaluator() throws Exception {
         ConfigurationLoader reader = new ConfigurationLoader();
+        boolean mapped = MODE_MMAP.equalsIgnoreCase(System.getProperty(MODE_PROPERTY, MODE_HEAP));
 
-        handRanks = reader.loadHandRankResource(HAND_RANKS);
+        if (!reader.hasResource(HAND_RANKS)) {
+            HandRankTableGenerator generator = new HandRankTableGenerator();
+            if (mapped) {
+                handRanks = reader.mapHandRankFile(generator.ensureCached(getHandRankFile()));
+            } else {
+                handRanks = IntBuffer.wrap(generator.loadOrGenerate(getHandRankFile()));
+            }
+        } else if (mapped) {
+            handRanks = reader.loadMappedHandRankResource(HAND_RANKS, getHandRankFile());
+        } else {
+            handRanks = IntBuffer.wrap(reader.loadHandRankResource(HAND_RANKS));
+        }
+    }
 
+    /**
+     * Return the raw table file used by the memory mapped mode and the generator cache.
+     *
+     * @return File the HandRanks.dat inside the configured directory
+     */
+    public static File getHandRankFile() {
+        return new File(System.getProperty(DIR_PROPERTY, System.getProperty("java.io.tmpdir")), HAND_RANKS_FILE);
     }
 
     /**
      * The two plus two lookup table is very memory intensive.  You should only ever create
      * one instance of the class.  Use this method to keep the singleton pattern.
+     * <p>
+     * Only one thread loads the table, the other callers wait until it is loaded and then share the
+     * same instance. When the load fails the next call tries again.
      *
      * @return {@link TwoPlusTwoHandEvaluator} instance
-     * @throws Exception
      */
     public static TwoPlusTwoHandEvaluator getInstance() {
-        if (instance == null) {
-            try {
-                instance = new TwoPlusTwoHandEvaluator();
-            } catch (Exception e) {
-                // TODO Auto-generated catch block
-                throw new RuntimeException(e);
+        TwoPlusTwoHandEvaluator evaluator = instance;
+        if (evaluator == null) {
+            synchronized (TwoPlusTwoHandEvaluator.class) {
+                evaluator = instance;
+                if (evaluator == null) {
+                    try {
+                        evaluator = new TwoPlusTwoHandEvaluator();
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                    instance = evaluator;
+                }
             }
         }
-        return instance;
+        return evaluator;
+    }
+
+    /**
+     * Return true once the lookup table is loaded, without waiting for it.
+     *
+     * @return boolean ready
+     */
+    public static boolean isReady() {
+        return instance != null;
     }
 
     /**
@@ -74,18 +126,104 @@ public class TwoPlusTwoHandEvaluator {
      * @param Board board, Hand hand
      * @return HandRand
      */
+    @Override
     public HandRank evaluate(Board board, Hand hand) {
-        Iterator<Card> cardIterator = new CardIterator(board, hand);
+        return new HandRank(evaluateRank(board, hand));
+    }
+
+    /**
+     * Evaluate the cards of the board and the hand without creating a {@link HandRank}.
+     *
+     * @param Board board, Hand hand
+     * @return int raw rank value
+     */
+    @Override
+    public int evaluateRank(Board board, Hand hand) {
+        List<Card> boardCards = board.cards;
+        List<Card> handCards = hand.cards;
         int p = 53;
-        while (cardIterator.hasNext()) {
-            Card card = cardIterator.next();
-            p = handRanks[p + card.getEvaluation()];
+        for (int i = 0, n = boardCards.size(); i < n; i++) {
+            p = handRanks.get(p + boardCards.get(i).getEvaluation());
         }
-//        System.out.println("Board flop: " + board.getFlopCards() + " ,turn: " + board.getTurnCard() + " ,river: " + board.getRiverCard());
-//        System.out.println("Hand: " + hand.toString());
-        HandRank hr = new HandRank(p);
-//        System.out.println("handrank: " + hr.getValue());
-        return hr;
+        for (int i = 0, n = handCards.size(); i < n; i++) {
+            p = handRanks.get(p + handCards.get(i).getEvaluation());
+        }
+        return finish(p, boardCards.size() + handCards.size());
+    }
+
+    /**
+     * Evaluate five cards given by their {@link Card#getEvaluation()} index.
+     *
+     * @return int raw rank value
+     */
+    public int evaluate(int c0, int c1, int c2, int c3, int c4) {
+        IntBuffer t = handRanks;
+        return t.get(t.get(t.get(t.get(t.get(t.get(53 + c0) + c1) + c2) + c3) + c4));
+    }
+
+    /**
+     * Evaluate six cards given by their {@link Card#getEvaluation()} index.
+     *
+     * @return int raw rank value
+     */
+    public int evaluate(int c0, int c1, int c2, int c3, int c4, int c5) {
+        IntBuffer t = handRanks;
+        return t.get(t.get(t.get(t.get(t.get(t.get(t.get(53 + c0) + c1) + c2) + c3) + c4) + c5));
+    }
+
+    /**
+     * Evaluate seven cards given by their {@link Card#getEvaluation()} index.
+     *
+     * @return int raw rank value
+     */
+    public int evaluate(int c0, int c1, int c2, int c3, int c4, int c5, int c6) {
+        IntBuffer t = handRanks;
+        return t.get(t.get(t.get(t.get(t.get(t.get(t.get(53 + c0) + c1) + c2) + c3) + c4) + c5) + c6);
+    }
+
+    /**
+     * Evaluate five to seven cards packed in a mask built with {@link Card#getMask()}.
+     *
+     * @param cardMask one bit per card, bit {@code getEvaluation() - 1}
+     * @return int raw rank value
+     */
+    @Override
+    public int evaluate(long cardMask) {
+        int count = Long.bitCount(cardMask);
+        if (count < 5 || count > 7) {
+            throw new IllegalArgumentException("Can only evaluate 5 to 7 cards: " + count);
+        }
+        int p = 53;
+        while (cardMask != 0) {
+            p = handRanks.get(p + Long.numberOfTrailingZeros(cardMask) + 1);
+            cardMask &= cardMask - 1;
+        }
+        return finish(p, count);
+    }
+
+    /**
+     * Prepare the evaluation of several hands against the same board.
+     *
+     * @param board complete or partial board
+     * @return BoardEvaluation with the board cards already walked
+     */
+    @Override
+    public BoardEvaluation forBoard(Board board) {
+        return new TwoPlusTwoBoardEvaluation(this, board);
+    }
+
+    /**
+     * Move from a table state to the state including the given card.
+     */
+    int next(int p, int evaluation) {
+        return handRanks.get(p + evaluation);
+    }
+
+    /**
+     * Five and six card walks stop on a state, one more lookup turns it into a rank.
+     */
+    int finish(int p, int count) {
+        return count < 7 ? handRanks.get(p) : p;
     }
 
     /**
@@ -96,8 +234,6 @@ public class TwoPlusTwoHandEvaluator {
      */
     public static int compare(Hand h1, Hand h2, Board b) {
         TwoPlusTwoHandEvaluator evaluator = TwoPlusTwoHandEvaluator.getInstance();
-        HandRank rank1 = evaluator.evaluate(b, h1);
-        HandRank rank2 = evaluator.evaluate(b, h2);
-        return rank1.compareTo(rank2);
+        return evaluator.evaluateRank(b, h1) - evaluator.evaluateRank(b, h2);
     }
-}
\ No newline at end of file
+}
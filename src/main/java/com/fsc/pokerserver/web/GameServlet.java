@@ -23,6 +23,7 @@ package com.fsc.pokerserver.web;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.io.IOException;
+import java.util.concurrent.Callable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -66,7 +67,7 @@ public class GameServlet extends HttpServlet {
     public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
         doOptions(request, response);
         String method = request.getParameter("method");
-        Player p = null;
+        Player p = (Player) request.getAttribute("player");
         switch (method) {
             case "put":
                 doPut(request, response);
@@ -75,26 +76,31 @@ public class GameServlet extends HttpServlet {
                 doPost(request, response);
                 break;
             case "start":
-                p = (Player) request.getAttribute("player");
-                p.getCurrentGame().setDealer(p);
-                int sizeOfListPlayer = p.getCurrentGame().getListPlayer().size();
-                if (sizeOfListPlayer < 2) {
+                String started = onTable(p, () -> {
+                    Game game = p.getCurrentGame();
+                    game.setDealer(p);
+                    int sizeOfListPlayer = game.getListPlayer().size();
+                    if (sizeOfListPlayer < 2) return null;
+                    game.startGame();
+                    return "Start Game\n\tDealer: " + game.getDealer().getName() + "\n\tSmall Blind: " + game.getSmallBlind().getName() + "\n\tBig Blind: " + game.getBigBlind().getName();
+                });
+                if (started == null) {
                     System.out.println("Cannot start game due to not enough players");
                     response.setStatus(403);
                     response.getWriter().println("{\"error\":\"Not enough player\"}");
                     return;
                 }
-                p.getCurrentGame().startGame();
-                logger.log(Level.INFO, "Start Game\n\tDealer: " + p.getCurrentGame().getDealer().getName() + "\n\tSmall Blind: " + p.getCurrentGame().getSmallBlind().getName() + "\n\tBig Blind: " + p.getCurrentGame().getBigBlind().getName());
+                logger.log(Level.INFO, started);
                 break;
             case "allin":
-                p = (Player) request.getAttribute("player");
-                p.allIn();
+                onTable(p, () -> {
+                    p.allIn();
+                    return null;
+                });
                 break;
             case "bet":
-                p = (Player) request.getAttribute("player");
                 long betValue = Long.parseLong(request.getParameter("value"));
-                if (!p.bet(betValue)) {
+                if (!onTable(p, () -> p.bet(betValue))) {
                     System.out.println("Cannot bet lower than current round bet!");
                     response.getWriter().println("{\"error\":\"Cannot bet lower than current round bet\"");
                     return;
@@ -102,8 +108,7 @@ public class GameServlet extends HttpServlet {
                 logger.log(Level.INFO, "The Player's name : " + p.getName() + "\n\tBet value: " + betValue + "\n\tBalance of Current Player: " + p.getBalance());
                 break;
             case "check":
-                p = (Player) request.getAttribute("player");
-                if (!p.check()) {
+                if (!onTable(p, p::check)) {
                     logger.log(Level.WARNING, "The player cannot check: " + p.getName());
                     response.setStatus(403);
                     response.getWriter().println("{\"error\":\"You can only bet or call!\"}");
@@ -112,8 +117,7 @@ public class GameServlet extends HttpServlet {
                 logger.log(Level.INFO, "The Player checked: " + p.getName());
                 break;
             case "fold":
-                p = (Player) request.getAttribute("player");
-                if (!p.fold()) {
+                if (!onTable(p, p::fold)) {
                     System.out.println("Player " + p.getId() + " Cannot fold due to not his turn");
                     response.setStatus(403);
                     response.getWriter().println("{\"error\":\"Not your turn\"}");
@@ -122,10 +126,23 @@ public class GameServlet extends HttpServlet {
                 logger.log(Level.INFO, "The Player folded: " + p.getName());
                 break;
 
+            case "clientseed":
+                String seed = request.getParameter("value");
+                if (seed != null && !seed.matches("[A-Za-z0-9_-]{1,64}")) {
+                    response.setStatus(400);
+                    response.getWriter().println("{\"error\":\"Client seed must be 1 to 64 letters, digits, '_' or '-'\"}");
+                    break;
+                }
+                onTable(p, () -> {
+                    p.setClientSeed(seed);
+                    return null;
+                });
+                logger.log(Level.INFO, "The Player set the client seed: " + p.getName());
+                break;
+
             case "roundcheck":
-                p = (Player) request.getAttribute("player");
                 response.setContentType("application/json");
-                response.getWriter().println("{\"result\":" + p.getCurrentGame().isNextRoundReady() + "}");
+                response.getWriter().println("{\"result\":" + onTable(p, () -> p.getCurrentGame().isNextRoundReady()) + "}");
                 break;
             case "gamestatus":
                 getGameStatus(request, response);
@@ -141,9 +158,12 @@ public class GameServlet extends HttpServlet {
         String id = request.getParameter("id");
         Room room = server.getRoomByID(Long.parseLong(id));
         checkNotNull(room, "Room " + id + " not found");
-        Game game = room.getCurrentGame();
-        checkNotNull(game, "Game has not created yet.");
-        response.getWriter().println(game.toString());
+        String status = room.getMailbox().call(() -> {
+            Game game = room.getCurrentGame();
+            checkNotNull(game, "Game has not created yet.");
+            return game.toString();
+        });
+        response.getWriter().println(status);
 
     }
 
@@ -157,7 +177,7 @@ public class GameServlet extends HttpServlet {
 
         checkNotNull(room, "Room " + id + " not found");
 
-        room.addPlayer(p);
+        room.getMailbox().run(() -> room.addPlayer(p));
 
         String data = Joiner.on(",").join(this.server.getListPlayer());
 
@@ -173,8 +193,17 @@ public class GameServlet extends HttpServlet {
 
         checkNotNull(room, "Room not found");
 
-        room.createNewGame();
+        Game game = room.getMailbox().call(room::createNewGame);
 
-        response.getWriter().println(room.getCurrentGame().getId());
+        response.getWriter().println(game.getId());
+    }
+
+    /**
+     * Run a command of the player in the mailbox of his room and wait for its result.
+     */
+    private static <T> T onTable(Player p, Callable<T> command) {
+        Room room = p.getCurrentRoom();
+        checkNotNull(room, "Room not found");
+        return room.getMailbox().call(command);
     }
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.fsc.pokerserver.web;
+
+import com.fcs.pokerserver.gameserver.MqttServletGameServer;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Readiness of the server. Answers 200 once the hand evaluator is loaded and 503 while it is still loading,
+ * so a load balancer only sends players to a server that can run a showdown without stalling.
+ *
+ * @category com > fcs > pokerserver > web
+ */
+@WebServlet(
+        name = "HealthServlet",
+        urlPatterns = {"/api/health"}
+)
+
+public class HealthServlet extends HttpServlet {
+
+    @Override
+    protected void doOptions(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setHeader("Access-Control-Allow-Origin", "*");
+        resp.setHeader("Access-Control-Allow-Methods", "GET");
+        resp.setHeader("Access-Control-Allow-Headers", "Content-Type, authorization");
+        resp.setHeader("Access-Control-Max-Age", "86400");
+        resp.setHeader("Cache-Control", "no-cache");
+        // Tell the browser what requests we allow.
+        resp.setHeader("Allow", "GET, HEAD, OPTIONS");
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        doOptions(req, resp);
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+
+        MqttServletGameServer server = MqttServletGameServer.getInstance();
+        boolean evaluator = server.isEvaluatorReady();
+        boolean preflop = server.isPreflopEquityReady();
+        resp.setStatus(evaluator ? HttpServletResponse.SC_OK : HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        resp.getWriter().println("{\"Evaluator\": \"" + (evaluator ? "ready" : "loading")
+                + "\", \"PreflopEquity\": \"" + (preflop ? "ready" : "loading") + "\"}");
+    }
+}
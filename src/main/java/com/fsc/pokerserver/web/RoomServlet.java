@@ -46,6 +46,11 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 @WebServlet(name = "RoomServlet", urlPatterns = {"/api/room"})
 public class RoomServlet extends HttpServlet {
+    /**
+     * Pause before the flop per player, for the animation of the preflop on the clients.
+     */
+    private static final long DEAL_DELAY = 500;
+
     private MqttServletGameServer server = MqttServletGameServer.getInstance();
 
     @Override
@@ -81,6 +86,9 @@ public class RoomServlet extends HttpServlet {
             case "roomstatus":
                 getRoomStatus(request, response);
                 break;
+            case "state":
+                publishState(request, response);
+                break;
             case "buychip":
                 buychip(request, response);
                 break;
@@ -98,7 +106,9 @@ public class RoomServlet extends HttpServlet {
     private void buychip(HttpServletRequest request, HttpServletResponse response) throws IOException {
         Player p = (Player) request.getAttribute("player");
         long amount = Long.parseLong(request.getParameter("amount"));
-        if (!p.buyChip(amount)) {
+        Room room = p.getCurrentRoom();
+        boolean bought = room == null ? p.buyChip(amount) : room.getMailbox().call(() -> p.buyChip(amount));
+        if (!bought) {
             response.setStatus(403);
             response.getWriter().println("{\"error\":\"Cannot buy " + amount + " chip-Not enough global balance!\"}");
             return;
@@ -113,13 +123,28 @@ public class RoomServlet extends HttpServlet {
         String id = request.getParameter("id");
         Room room = server.getRoomByID(Long.parseLong(id));
         checkNotNull(room, "Room " + id + " not found");
-        room.removePlayer(p);
+        room.getMailbox().run(() -> room.removePlayer(p));
     }
 
     private void getRoomStatus(HttpServletRequest request, HttpServletResponse response) throws IOException {
         String id = request.getParameter("id");
         Room room = server.getRoomByID(Long.parseLong(id));
         checkNotNull(room, "Room " + id + " not found");
+        response.getWriter().println(room.getMailbox().call(() -> roomStatus(room)));
+    }
+
+    /**
+     * Publish a snapshot of the players of the room for a client that lost track of the versions.
+     */
+    private void publishState(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String id = request.getParameter("id");
+        Room room = server.getRoomByID(Long.parseLong(id));
+        checkNotNull(room, "Room " + id + " not found");
+        long version = room.getMailbox().call(() -> server.publishState(room));
+        response.getWriter().println("{\"roomId\":\"" + room.getRoomID() + "\",\"version\":" + version + "}");
+    }
+
+    private String roomStatus(Room room) {
         StringBuilder data = new StringBuilder("{\"id\":" + room.getRoomID() + ",\"master\":\"" + room.getMaster().getId() + "\",\"blindLevel\":\""
                 + room.getBlindLevel().toString() + "\",\"players\":");
         StringBuilder builder = new StringBuilder();
@@ -132,25 +157,27 @@ public class RoomServlet extends HttpServlet {
         builder.append("]");
         data.append(builder.toString());
         data.append("}");
-        response.getWriter().println(data.toString());
+        return data.toString();
     }
 
     public void nextGame(HttpServletRequest request, HttpServletResponse response) throws IOException {
         String id = request.getParameter("id");
         Room room = server.getRoomByID(Long.parseLong(id));
         checkNotNull(room, "Room " + id + " not found");
-        /**
-         * Auto Buy-In for testing purpose*/
-        List<Player> list = room.getListPlayer();
+        String data = room.getMailbox().call(() -> {
+            /**
+             * Auto Buy-In for testing purpose*/
+            List<Player> list = room.getListPlayer();
 
-        list.stream().filter(x -> x.getBalance() == 0).forEach(x -> x.buyChip(5000));
+            list.stream().filter(x -> x.getBalance() == 0).forEach(x -> x.buyChip(5000));
 
 
-        room.nextGame();
-        room.getCurrentGame().startGame();
+            room.nextGame();
+            room.getCurrentGame().startGame();
 
-        //TODO return more data ex Blind level ,  player balance  , game status ...
-        String data = Joiner.on(",").join(room.getListPlayer());
+            //TODO return more data ex Blind level ,  player balance  , game status ...
+            return Joiner.on(",").join(room.getListPlayer());
+        });
         response.getWriter().println(data);
     }
 
@@ -160,10 +187,12 @@ public class RoomServlet extends HttpServlet {
         String id = request.getParameter("id");
         Room room = server.getRoomByID(Long.parseLong(id));
         checkNotNull(room, "Room " + id + " not found");
-        room.addPlayer(p);
+        String data = room.getMailbox().call(() -> {
+            room.addPlayer(p);
 
-        //TODO return more data ex Blind level ,  player balance  , game status ...
-        String data = "{\"listPlayers\":[" + Joiner.on(",").join(room.getListPlayer()) + "],\"roomId\":\"" + room.getRoomID() + "\",\"master\":\"" + room.getMaster().getId() + "\"}";
+            //TODO return more data ex Blind level ,  player balance  , game status ...
+            return "{\"listPlayers\":[" + Joiner.on(",").join(room.getListPlayer()) + "],\"roomId\":\"" + room.getRoomID() + "\",\"master\":\"" + room.getMaster().getId() + "\"}";
+        });
         response.getWriter().println(data);
     }
 
@@ -177,8 +206,9 @@ public class RoomServlet extends HttpServlet {
         /**
          * Create new game after adding room to server to guarantee we attached room to his listener(server)*/
         Room room = new Room(p, BlindLevel.BLIND_10_20);
+        room.setDealDelay(DEAL_DELAY);
         server.addRoom(room);
-        room.createNewGame();
+        room.getMailbox().call(room::createNewGame);
         response.getWriter().println(room.getRoomID());
 
     }
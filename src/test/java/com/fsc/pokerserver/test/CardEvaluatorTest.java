@@ -26,7 +26,9 @@ import junit.framework.TestCase;
 import org.junit.Test;
 
 import com.fcs.pokerserver.holder.Board;
+import com.fcs.pokerserver.holder.BoardEvaluation;
 import com.fcs.pokerserver.holder.Hand;
+import com.fcs.pokerserver.holder.HandProgress;
 import com.fcs.pokerserver.holder.HandRank;
 import com.fcs.pokerserver.holder.HandType;
 import com.fcs.pokerserver.holder.TwoPlusTwoHandEvaluator;
@@ -366,6 +368,92 @@ public class CardEvaluatorTest extends TestCase {
         assertEquals(HandType.STRAIGHT_FLUSH, rank.getHandType());
     }
 
+    /**
+     * The method to test the primitive API returns the same rank as the object API.
+     */
+    @Test
+    public void testPrimitiveEvaluate() {
+        Hand h1 = new Hand(Card.JACK_OF_DIAMONDS, Card.NINE_OF_CLUBS);
+        Board b = new Board(Card.TEN_OF_DIAMONDS, Card.THREE_OF_HEARTS, Card.NINE_OF_DIAMONDS,
+                Card.QUEEN_OF_DIAMONDS, Card.EIGHT_OF_DIAMONDS);
+        TwoPlusTwoHandEvaluator evaluator = TwoPlusTwoHandEvaluator.getInstance();
+        int rank = evaluator.evaluate(b, h1).getValue();
+        long mask = 0;
+        for (Card card : b.cards) mask |= card.getMask();
+        for (Card card : h1.cards) mask |= card.getMask();
+        assertEquals(rank, evaluator.evaluate(Card.TEN_OF_DIAMONDS.getEvaluation(), Card.THREE_OF_HEARTS.getEvaluation(),
+                Card.NINE_OF_DIAMONDS.getEvaluation(), Card.QUEEN_OF_DIAMONDS.getEvaluation(),
+                Card.EIGHT_OF_DIAMONDS.getEvaluation(), Card.JACK_OF_DIAMONDS.getEvaluation(),
+                Card.NINE_OF_CLUBS.getEvaluation()));
+        assertEquals(rank, evaluator.evaluate(mask));
+        assertEquals(rank, evaluator.evaluateRank(b, h1));
+    }
+
+    /**
+     * The method to test a five card board is evaluated as a finished hand.
+     */
+    @Test
+    public void testEvaluateFiveCards() {
+        Hand h1 = new Hand(Card.ACE_OF_HEARTS, Card.KING_OF_HEARTS);
+        Board b = new Board();
+        b.addCard(Card.QUEEN_OF_HEARTS, Card.JACK_OF_HEARTS, Card.TEN_OF_HEARTS);
+        TwoPlusTwoHandEvaluator evaluator = TwoPlusTwoHandEvaluator.getInstance();
+        assertEquals(HandType.STRAIGHT_FLUSH, evaluator.evaluate(b, h1).getHandType());
+        assertEquals(evaluator.evaluate(b, h1).getValue(), evaluator.evaluate(Card.QUEEN_OF_HEARTS.getEvaluation(),
+                Card.JACK_OF_HEARTS.getEvaluation(), Card.TEN_OF_HEARTS.getEvaluation(),
+                Card.ACE_OF_HEARTS.getEvaluation(), Card.KING_OF_HEARTS.getEvaluation()));
+    }
+
+    /**
+     * The method to test hands evaluated on a prepared board match the evaluator.
+     */
+    @Test
+    public void testBoardEvaluation() {
+        Hand h1 = new Hand(Card.JACK_OF_DIAMONDS, Card.NINE_OF_CLUBS);
+        Hand h2 = new Hand(Card.KING_OF_DIAMONDS, Card.ACE_OF_DIAMONDS);
+        Board b = new Board(Card.TEN_OF_DIAMONDS, Card.THREE_OF_HEARTS, Card.NINE_OF_DIAMONDS,
+                Card.QUEEN_OF_DIAMONDS, Card.EIGHT_OF_DIAMONDS);
+        TwoPlusTwoHandEvaluator evaluator = TwoPlusTwoHandEvaluator.getInstance();
+        BoardEvaluation showdown = evaluator.forBoard(b);
+        assertEquals(evaluator.evaluate(b, h1), showdown.evaluate(h1));
+        assertEquals(evaluator.evaluate(b, h2), showdown.evaluate(h2));
+        assertTrue(showdown.compare(h2, h1) < 0);
+    }
+
+    /**
+     * The method to test the hand progress follows the board street by street.
+     */
+    @Test
+    public void testHandProgress() {
+        Hand h1 = new Hand(Card.JACK_OF_DIAMONDS, Card.NINE_OF_DIAMONDS);
+        Board b = new Board();
+        TwoPlusTwoHandEvaluator evaluator = TwoPlusTwoHandEvaluator.getInstance();
+        HandProgress progress = new HandProgress(evaluator);
+        progress.update(b, h1);
+        assertNull(progress.getHandRank());
+
+        b.addCard(Card.TEN_OF_DIAMONDS, Card.THREE_OF_HEARTS, Card.NINE_OF_CLUBS);
+        progress.update(b, h1);
+        assertEquals(HandType.PAIR, progress.getHandRank().getHandType());
+        assertFalse(progress.hasFlushDraw());
+        assertFalse(progress.hasStraightDraw());
+
+        b.addCard(Card.QUEEN_OF_DIAMONDS);
+        progress.update(b, h1);
+        assertTrue(progress.hasFlushDraw());
+        assertTrue(progress.hasStraightDraw());
+        assertEquals(evaluator.evaluate(b, h1), progress.getHandRank());
+
+        b.addCard(Card.EIGHT_OF_DIAMONDS);
+        progress.update(b, h1);
+        assertEquals(HandType.STRAIGHT_FLUSH, progress.getHandRank().getHandType());
+        assertEquals(evaluator.evaluate(b, h1), progress.getHandRank());
+
+        Hand h2 = new Hand(Card.TWO_OF_CLUBS, Card.TWO_OF_SPADES);
+        progress.update(b, h2);
+        assertEquals(evaluator.evaluate(b, h2), progress.getHandRank());
+    }
+
     /**
      * The method to compare the 2 hands with the board. Return the hand has bigger value. Compareto equivalent to h1.compareTo(h2) using Two Plus Two Algorithm
      *
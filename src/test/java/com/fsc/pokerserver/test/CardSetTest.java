@@ -0,0 +1,106 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+
+package com.fsc.pokerserver.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.fcs.pokerserver.Card;
+import com.fcs.pokerserver.holder.Board;
+import com.fcs.pokerserver.holder.CardSet;
+import com.fcs.pokerserver.holder.Hand;
+
+/**
+ * The class to test the bit mask card set.
+ *
+ * @category com > fcs > pokerserver > test
+ */
+
+public class CardSetTest {
+
+    /**
+     * The method to test the set operations.
+     */
+    @Test
+    public void setOperations() {
+        CardSet hand = CardSet.of(Card.ACE_OF_SPADES, Card.KING_OF_SPADES);
+        CardSet flop = CardSet.of(Card.TWO_OF_HEARTS, Card.SEVEN_OF_HEARTS, Card.ACE_OF_SPADES);
+        assertEquals(2, hand.size());
+        assertTrue(hand.contains(Card.KING_OF_SPADES));
+        assertFalse(hand.contains(Card.KING_OF_HEARTS));
+        assertTrue(hand.intersects(flop));
+        assertEquals(4, hand.union(flop).size());
+        assertEquals(CardSet.of(Card.KING_OF_SPADES), hand.minus(flop));
+        assertEquals(CardSet.of(Card.ACE_OF_SPADES), hand.intersection(flop));
+        assertEquals(50, hand.complement().size());
+        assertTrue(CardSet.DECK.containsAll(hand));
+        assertSame(CardSet.EMPTY, hand.without(Card.ACE_OF_SPADES).without(Card.KING_OF_SPADES));
+        assertEquals(hand, CardSet.ofMask(Card.ACE_OF_SPADES.getMask() | Card.KING_OF_SPADES.getMask()));
+    }
+
+    /**
+     * The method to test every card of the deck is iterated once, in rank order.
+     */
+    @Test
+    public void iterateDeck() {
+        int count = 0;
+        int previous = 0;
+        for (Card card : CardSet.DECK) {
+            assertTrue(card.getEvaluation() > previous);
+            previous = card.getEvaluation();
+            count++;
+        }
+        assertEquals(52, count);
+        assertEquals(Arrays.asList(Card.TWO_OF_CLUBS, Card.ACE_OF_SPADES),
+                CardSet.of(Card.ACE_OF_SPADES, Card.TWO_OF_CLUBS).toList());
+    }
+
+    /**
+     * The method to test hands and boards keep their set in step with the dealt cards.
+     */
+    @Test
+    public void cardHolderSet() {
+        Hand hand = new Hand(Card.ACE_OF_SPADES, Card.KING_OF_SPADES);
+        assertEquals(CardSet.of(Card.ACE_OF_SPADES, Card.KING_OF_SPADES), hand.getCardSet());
+        Board board = new Board();
+        assertEquals(0, board.getMask());
+        board.addCard(Card.TWO_OF_HEARTS, Card.SEVEN_OF_HEARTS, Card.NINE_OF_CLUBS);
+        board.addCard(Card.TEN_OF_DIAMONDS);
+        assertEquals(4, board.getCardSet().size());
+        assertEquals(Card.TEN_OF_DIAMONDS, board.getTurnCard());
+        assertFalse(board.getCardSet().intersects(hand.getCardSet()));
+    }
+
+    /**
+     * The method to test masks outside of the deck are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidMask() {
+        CardSet.ofMask(1L << 52);
+    }
+}
@@ -22,10 +22,16 @@ package com.fsc.pokerserver.test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumSet;
+import java.util.Set;
 
 import org.junit.Test;
 
+import com.fcs.pokerserver.Card;
 import com.fcs.pokerserver.Deck;
+import com.fcs.pokerserver.DeckRandom;
 
 /**
  * The class to test the connect to the game.
@@ -59,4 +65,53 @@ public class DeckTest {
         assertNotEquals(shuffledDeck.exportDeck(), deck.exportDeck());
     }
 
+    /**
+     * The method to test dealing every card once and reusing the deck.
+     */
+    @Test
+    public void dealAllCards() {
+        Deck deck = new Deck();
+        for (int round = 0; round < 2; round++) {
+            Set<Card> dealt = EnumSet.noneOf(Card.class);
+            for (int i = 0; i < 52; i++) {
+                dealt.add(deck.dealCard());
+            }
+            assertEquals(52, dealt.size());
+            assertEquals(0, deck.remaining());
+            deck.initDeck();
+            deck.shuffleDeck();
+        }
+        Card first = deck.exportDeck().get(0);
+        assertEquals(first, deck.dealCard());
+        assertEquals(51, deck.exportDeck().size());
+    }
+
+    /**
+     * The method to test a seeded deck is reproducible.
+     */
+    @Test
+    public void seededShuffle() {
+        Deck deck = new Deck(DeckRandom.seeded(42), true);
+        Deck same = new Deck(DeckRandom.seeded(42), true);
+        assertEquals(deck.exportDeck(), same.exportDeck());
+        assertNotEquals(new Deck(false).exportDeck(), deck.exportDeck());
+    }
+
+    /**
+     * The method to test every card reaches the top of the deck about equally often.
+     */
+    @Test
+    public void uniformShuffle() {
+        int[] top = new int[52];
+        Deck deck = new Deck(false);
+        for (int i = 0; i < 52000; i++) {
+            deck.initDeck();
+            deck.shuffleDeck();
+            top[deck.dealCard().ordinal()]++;
+        }
+        for (int count : top) {
+            assertTrue("top card count " + count, count > 800 && count < 1200);
+        }
+    }
+
 }
@@ -424,8 +424,8 @@ public class EndGameTest {
 
 
         /**
-         * Dealer will be set on player 2*/
-        assertSame(game.getDealer(), player2);
+         * Folded players keep their seat, so the button moves from player 5 to the master*/
+        assertSame(game.getDealer(), master);
     }
 
     @Test
@@ -541,8 +541,8 @@ public class EndGameTest {
 
 
         /**
-         * Dealer will be set on P5*/
-        assertSame(game.getDealer(), player5);
+         * The button moves from the seat of P3 to the next occupied seat, P4*/
+        assertSame(game.getDealer(), player4);
     }
 
     /**
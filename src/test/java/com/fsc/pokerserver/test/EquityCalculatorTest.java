@@ -0,0 +1,162 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+
+package com.fsc.pokerserver.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.fcs.pokerserver.Card;
+import com.fcs.pokerserver.holder.Board;
+import com.fcs.pokerserver.holder.CanonicalSituation;
+import com.fcs.pokerserver.holder.EquityCalculator;
+import com.fcs.pokerserver.holder.EquityResult;
+import com.fcs.pokerserver.holder.Hand;
+import com.fcs.pokerserver.holder.HandEvaluator;
+
+/**
+ * The class to test the all-in equity calculation.
+ *
+ * @category com > fcs > pokerserver > test
+ */
+
+public class EquityCalculatorTest {
+
+    /**
+     * The method to test the exact preflop equity of aces against kings.
+     */
+    @Test
+    public void exhaustivePreflop() {
+        List<Hand> hands = Arrays.asList(new Hand(Card.ACE_OF_SPADES, Card.ACE_OF_HEARTS),
+                new Hand(Card.KING_OF_SPADES, Card.KING_OF_HEARTS));
+        EquityResult result = EquityCalculator.getInstance().calculate(hands, new Board(), Collections.emptyList());
+        assertTrue(result.isExact());
+        assertEquals(1712304, result.getSamples());
+        assertEquals(0.8264, result.getEquity(0), 0.0001);
+        assertEquals(1.0, result.getEquity(0) + result.getEquity(1), 1e-9);
+    }
+
+    /**
+     * The method to test sampling agrees with the enumeration within its error.
+     */
+    @Test
+    public void monteCarloFlop() {
+        List<Hand> hands = Arrays.asList(new Hand(Card.ACE_OF_SPADES, Card.KING_OF_SPADES),
+                new Hand(Card.TEN_OF_HEARTS, Card.TEN_OF_DIAMONDS), new Hand(Card.SEVEN_OF_CLUBS, Card.EIGHT_OF_CLUBS));
+        Board board = new Board();
+        board.addCard(Card.TEN_OF_SPADES, Card.NINE_OF_CLUBS, Card.TWO_OF_SPADES);
+        EquityResult exact = EquityCalculator.getInstance().calculate(hands, board, Collections.emptyList());
+        EquityResult sampled = new EquityCalculator(HandEvaluator.getInstance(), ForkJoinPool.commonPool(), 0, 0.005)
+                .calculate(hands, board, Collections.emptyList());
+        assertTrue(exact.isExact());
+        assertFalse(sampled.isExact());
+        assertTrue(sampled.getError() <= 0.005);
+        for (int i = 0; i < hands.size(); i++) {
+            assertEquals(exact.getEquity(i), sampled.getEquity(i), 5 * 0.005);
+        }
+    }
+
+    /**
+     * The method to test a complete board gives the pot to the best hand and splits ties.
+     */
+    @Test
+    public void completeBoard() {
+        Board board = new Board(Card.TEN_OF_HEARTS, Card.JACK_OF_HEARTS, Card.QUEEN_OF_HEARTS, Card.KING_OF_HEARTS,
+                Card.TWO_OF_CLUBS);
+        List<Hand> hands = Arrays.asList(new Hand(Card.ACE_OF_HEARTS, Card.THREE_OF_CLUBS),
+                new Hand(Card.ACE_OF_SPADES, Card.THREE_OF_SPADES), new Hand(Card.ACE_OF_CLUBS, Card.THREE_OF_DIAMONDS));
+        EquityResult result = EquityCalculator.getInstance().calculate(hands, board, Collections.emptyList());
+        assertEquals(1.0, result.getEquity(0), 0);
+        assertEquals(1.0, result.getWin(0), 0);
+
+        Board split = new Board(Card.TEN_OF_HEARTS, Card.JACK_OF_HEARTS, Card.QUEEN_OF_HEARTS, Card.KING_OF_HEARTS,
+                Card.NINE_OF_HEARTS);
+        hands = Arrays.asList(new Hand(Card.TWO_OF_SPADES, Card.THREE_OF_SPADES),
+                new Hand(Card.TWO_OF_DIAMONDS, Card.THREE_OF_DIAMONDS), new Hand(Card.FOUR_OF_CLUBS, Card.FIVE_OF_CLUBS));
+        result = EquityCalculator.getInstance().calculate(hands, split, Collections.emptyList());
+        assertEquals(1.0 / 3, result.getEquity(1), 1e-9);
+        assertEquals(1.0, result.getTie(2), 0);
+    }
+
+    /**
+     * The method to test situations that only differ by their suits share a canonical form.
+     */
+    @Test
+    public void canonicalSituation() {
+        Board board = new Board();
+        board.addCard(Card.TWO_OF_HEARTS, Card.SEVEN_OF_HEARTS, Card.NINE_OF_CLUBS);
+        Board relabelled = new Board();
+        relabelled.addCard(Card.NINE_OF_DIAMONDS, Card.SEVEN_OF_SPADES, Card.TWO_OF_SPADES);
+        CanonicalSituation first = CanonicalSituation.of(Arrays.asList(new Hand(Card.ACE_OF_HEARTS, Card.KING_OF_HEARTS),
+                new Hand(Card.QUEEN_OF_SPADES, Card.QUEEN_OF_DIAMONDS)), board, Collections.emptyList());
+        CanonicalSituation second = CanonicalSituation.of(Arrays.asList(new Hand(Card.KING_OF_SPADES, Card.ACE_OF_SPADES),
+                new Hand(Card.QUEEN_OF_CLUBS, Card.QUEEN_OF_HEARTS)), relabelled, Collections.emptyList());
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+
+        CanonicalSituation swapped = CanonicalSituation.of(Arrays.asList(new Hand(Card.QUEEN_OF_SPADES, Card.QUEEN_OF_DIAMONDS),
+                new Hand(Card.ACE_OF_HEARTS, Card.KING_OF_HEARTS)), board, Collections.emptyList());
+        CanonicalSituation offsuit = CanonicalSituation.of(Arrays.asList(new Hand(Card.ACE_OF_HEARTS, Card.KING_OF_CLUBS),
+                new Hand(Card.QUEEN_OF_SPADES, Card.QUEEN_OF_DIAMONDS)), board, Collections.emptyList());
+        assertNotEquals(first, swapped);
+        assertNotEquals(first, offsuit);
+    }
+
+    /**
+     * The method to test isomorphic situations are answered from the cache.
+     */
+    @Test
+    public void cachedResult() {
+        EquityCalculator calculator = new EquityCalculator(HandEvaluator.getInstance(), ForkJoinPool.commonPool(),
+                2000000L, 0.005, 10);
+        Board board = new Board();
+        board.addCard(Card.TWO_OF_HEARTS, Card.SEVEN_OF_HEARTS, Card.NINE_OF_CLUBS);
+        EquityResult first = calculator.calculate(Arrays.asList(new Hand(Card.ACE_OF_HEARTS, Card.KING_OF_HEARTS),
+                new Hand(Card.QUEEN_OF_SPADES, Card.QUEEN_OF_DIAMONDS)), board, Collections.emptyList());
+        Board relabelled = new Board();
+        relabelled.addCard(Card.TWO_OF_SPADES, Card.SEVEN_OF_SPADES, Card.NINE_OF_DIAMONDS);
+        EquityResult second = calculator.calculate(Arrays.asList(new Hand(Card.ACE_OF_SPADES, Card.KING_OF_SPADES),
+                new Hand(Card.QUEEN_OF_HEARTS, Card.QUEEN_OF_CLUBS)), relabelled, Collections.emptyList());
+        assertSame(first, second);
+        assertEquals(1, calculator.getCacheStats().hitCount());
+        assertEquals(1, calculator.getCacheStats().missCount());
+    }
+
+    /**
+     * The method to test a card dealt twice is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateCard() {
+        List<Hand> hands = Arrays.asList(new Hand(Card.ACE_OF_SPADES, Card.ACE_OF_HEARTS),
+                new Hand(Card.KING_OF_SPADES, Card.KING_OF_HEARTS));
+        EquityCalculator.getInstance().calculate(hands, new Board(), Collections.singletonList(Card.ACE_OF_SPADES));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+
+package com.fsc.pokerserver.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.fcs.pokerserver.Card;
+import com.fcs.pokerserver.Deck;
+import com.fcs.pokerserver.FairShuffle;
+import com.fcs.pokerserver.SeedChain;
+
+/**
+ * The class to test the provably fair shuffle.
+ *
+ * @category com > fcs > pokerserver > test
+ */
+
+public class FairShuffleTest {
+
+    /**
+     * The method to test every revealed seed matches its commitment and commits to the next hand.
+     */
+    @Test
+    public void seedChain() {
+        SeedChain chain = new SeedChain(3);
+        String commitment = chain.getNextCommitment();
+        for (int hand = 0; hand < 7; hand++) {
+            FairShuffle shuffle = chain.next("player", hand);
+            assertEquals(commitment, shuffle.getCommitment());
+            assertTrue(FairShuffle.verify(shuffle.getServerSeed(), shuffle.getCommitment()));
+            commitment = chain.getNextCommitment();
+            // within a chain the revealed seed is the commitment of the next hand
+            if (hand % 3 != 2) assertEquals(shuffle.getServerSeed(), commitment);
+            else assertNotEquals(shuffle.getServerSeed(), commitment);
+        }
+    }
+
+    /**
+     * The method to test the dealt deck can be replayed from the revealed seeds.
+     */
+    @Test
+    public void replayDeck() {
+        FairShuffle shuffle = new SeedChain(1).next("alice,bob", 42);
+        Deck deck = new Deck(false);
+        deck.shuffleDeck(shuffle.random());
+        List<Card> cards = deck.exportDeck();
+        assertEquals(52, EnumSet.copyOf(cards).size());
+        assertEquals(cards, FairShuffle.deal(shuffle.getServerSeed(), "alice,bob", 42));
+        assertNotEquals(cards, FairShuffle.deal(shuffle.getServerSeed(), "alice,eve", 42));
+        assertNotEquals(cards, FairShuffle.deal(shuffle.getServerSeed(), "alice,bob", 43));
+    }
+
+    /**
+     * The method to test a seed that does not match the commitment is detected.
+     */
+    @Test
+    public void tamperedSeed() {
+        FairShuffle shuffle = new SeedChain(2).next("", 1);
+        String seed = shuffle.getServerSeed();
+        String tampered = (seed.charAt(0) == '0' ? '1' : '0') + seed.substring(1);
+        assertFalse(FairShuffle.verify(tampered, shuffle.getCommitment()));
+    }
+}
@@ -0,0 +1,140 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+
+package com.fsc.pokerserver.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+import com.fcs.pokerserver.Deck;
+import com.fcs.pokerserver.FairnessMonitor;
+
+/**
+ * The class to test the fairness monitor.
+ *
+ * @category com > fcs > pokerserver > test
+ */
+
+public class FairnessMonitorTest {
+
+    /**
+     * The method to test uniform shuffles do not raise the alert.
+     */
+    @Test
+    public void uniformDeals() {
+        FairnessMonitor monitor = new FairnessMonitor(0, 5, false);
+        SplittableRandom random = new SplittableRandom(7);
+        for (int deck = 0; deck < 20000; deck++) {
+            monitor.record(shuffle(random, 52), 20);
+        }
+        monitor.check();
+        assertEquals(20000, monitor.getDecks());
+        assertEquals(20 * 20000, monitor.getDealtCards());
+        assertTrue(Math.abs(monitor.getChiSquareZ()) < 5);
+        assertTrue(Math.abs(monitor.getRunsZ()) < 5);
+        assertFalse(monitor.isAlert());
+    }
+
+    /**
+     * The method to test a biased shuffle raises the alert once it is checked.
+     */
+    @Test
+    public void biasedDeals() {
+        FairnessMonitor monitor = new FairnessMonitor(5000, 5, false);
+        SplittableRandom random = new SplittableRandom(7);
+        for (int deck = 0; deck < 5000; deck++) {
+            monitor.record(shuffle(random, 52), 20);
+        }
+        assertFalse(monitor.isAlert());
+        for (int deck = 0; deck < 5000; deck++) {
+            byte[] cards = shuffle(random, 52);
+            // the last card never reaches the top of the deck
+            if (cards[0] == 51) {
+                cards[0] = cards[1];
+                cards[1] = 51;
+            }
+            monitor.record(cards, 20);
+        }
+        assertTrue(monitor.isAlert());
+        assertTrue(monitor.getPositionCounts(0)[51] < monitor.getPositionCounts(1)[51]);
+        monitor.reset();
+        assertFalse(monitor.isAlert());
+        assertEquals(0, monitor.getDealtCards());
+    }
+
+    /**
+     * The method to test decks dealt in order fail the runs test.
+     */
+    @Test
+    public void orderedDeals() {
+        FairnessMonitor monitor = new FairnessMonitor(0, 5, false);
+        byte[] cards = new byte[52];
+        for (int i = 0; i < cards.length; i++) {
+            cards[i] = (byte) i;
+        }
+        for (int deck = 0; deck < 100; deck++) {
+            monitor.record(cards, 52);
+        }
+        assertTrue(monitor.getRunsZ() < -5);
+    }
+
+    /**
+     * The method to test only the cards of a shuffled deck reach the shared monitor.
+     */
+    @Test
+    public void onlyShuffledDecks() {
+        FairnessMonitor monitor = FairnessMonitor.getInstance();
+        long decks = monitor.getDecks();
+        Deck deck = new Deck(false);
+        deck.dealCard();
+        deck.initDeck();
+        deck.dealCard();
+        deck.initDeck();
+        assertEquals(decks, monitor.getDecks());
+
+        deck.shuffleDeck();
+        deck.dealCard();
+        deck.initDeck();
+        assertEquals(decks + 1, monitor.getDecks());
+        deck.dealCard();
+        deck.initDeck();
+        assertEquals(decks + 1, monitor.getDecks());
+    }
+
+    private static byte[] shuffle(SplittableRandom random, int size) {
+        byte[] cards = new byte[size];
+        for (int i = 0; i < size; i++) {
+            cards[i] = (byte) i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            byte card = cards[i];
+            cards[i] = cards[j];
+            cards[j] = card;
+        }
+        return cards;
+    }
+}
@@ -22,6 +22,9 @@ package com.fsc.pokerserver.test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import com.fcs.pokerserver.*;
 import org.junit.Test;
@@ -473,5 +476,78 @@ public class FlopAndBetGameTest {
 		assertEquals(game.getPotBalance(), 150);
 	}
 		
+	/**
+	 * The room pauses 20ms per player before the flop. The last preflop action returns at once, nobody is on turn
+	 * while the flop is dealt, then the master after the dealer acts first on the flop.
+	 * */
+	@Test(timeout = 10000)
+	public void testDealDelayBeforeFlop() throws Exception {
+		Player master = new Player("Room master deal delay");
+		master.setGlobalBalance(5000);
+		Room room = new Room(master, BlindLevel.BLIND_10_20);
+		room.setDealDelay(20);
+		Game game = room.createNewGame();
+
+		Player player2 = new Player();
+		player2.setGlobalBalance(5000);
+		room.addPlayer(player2);
+		Player player3 = new Player();
+		player3.setGlobalBalance(5000);
+		room.addPlayer(player3);
+
+		game.setDealer(player3);
+		game.startGame();
+
+		assertTrue(player3.bet(20));
+		assertTrue(master.bet(10));
+		assertTrue(player2.check());
+
+		assertTrue(game.isDealing());
+		assertNull(game.getCurrentPlayer());
+		assertEquals(0, game.getBoard().getCardNumber());
+		assertFalse(player3.bet(20));
+
+		while (room.submit(game::isDealing).get()) {
+			Thread.sleep(10);
+		}
+		assertEquals(GameStatus.FLOP, room.submit(game::getStatus).get());
+		assertEquals(3, game.getBoard().getCardNumber());
+		assertSame(master, game.getCurrentPlayer());
+	}
+
+	/**
+	 * The dealer p4 leaves the room after calling. The flop is still dealt and the master, first after the
+	 * button, acts first on the flop.
+	 * */
+	@Test
+	public void testDealerLeavesBeforeFlop() {
+		Player master = new Player("Room master dealer leaves");
+		master.setGlobalBalance(5000);
+		Room room = new Room(master, BlindLevel.BLIND_10_20);
+		Game game = room.createNewGame();
+
+		Player player2 = new Player();
+		player2.setGlobalBalance(5000);
+		room.addPlayer(player2);
+		Player player3 = new Player();
+		player3.setGlobalBalance(5000);
+		room.addPlayer(player3);
+		Player player4 = new Player();
+		player4.setGlobalBalance(5000);
+		room.addPlayer(player4);
+
+		game.setDealer(player4);
+		game.startGame();
+
+		assertTrue(player3.bet(20));
+		assertTrue(player4.bet(20));
+		room.removePlayer(player4);
+		assertTrue(master.bet(10));
+		assertTrue(player2.check());
+
+		assertEquals(GameStatus.FLOP, game.getStatus());
+		assertEquals(3, game.getBoard().getCardNumber());
+		assertSame(master, game.getCurrentPlayer());
+	}
 }
 
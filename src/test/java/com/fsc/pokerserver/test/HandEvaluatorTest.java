@@ -0,0 +1,216 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+
+package com.fsc.pokerserver.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.fcs.pokerserver.HandType;
+import com.fcs.pokerserver.holder.CompactHandEvaluator;
+import com.fcs.pokerserver.holder.HandEvaluator;
+import com.fcs.pokerserver.holder.TwoPlusTwoHandEvaluator;
+
+/**
+ * The class to test the hand evaluators agree with each other.
+ *
+ * @category com > fcs > pokerserver > test
+ */
+
+public class HandEvaluatorTest {
+
+    /**
+     * Number of 7 card hands of every {@link HandType}, counted independently of the evaluators.
+     */
+    private static final long[] SEVEN_CARD_COUNTS = {0, 23294460, 58627800, 31433400, 6461620, 6180020, 4047644,
+            3473184, 224848, 41584};
+
+    /**
+     * Number of 5 card hands of every {@link HandType}.
+     */
+    private static final long[] FIVE_CARD_COUNTS = {0, 1302540, 1098240, 123552, 54912, 10200, 5108, 3744, 624, 40};
+
+    /**
+     * The method to compare both evaluators on every 7 card combination.
+     */
+    @Test
+    public void compareAllSevenCardHands() {
+        TwoPlusTwoHandEvaluator table = TwoPlusTwoHandEvaluator.getInstance();
+        CompactHandEvaluator compact = CompactHandEvaluator.getInstance();
+        long count = 0;
+        long[] types = new long[HandType.values().length];
+        for (int c0 = 0; c0 < 46; c0++) {
+            for (int c1 = c0 + 1; c1 < 47; c1++) {
+                for (int c2 = c1 + 1; c2 < 48; c2++) {
+                    for (int c3 = c2 + 1; c3 < 49; c3++) {
+                        for (int c4 = c3 + 1; c4 < 50; c4++) {
+                            long mask5 = (1L << c0) | (1L << c1) | (1L << c2) | (1L << c3) | (1L << c4);
+                            for (int c5 = c4 + 1; c5 < 51; c5++) {
+                                for (int c6 = c5 + 1; c6 < 52; c6++) {
+                                    int expected = table.evaluate(c0 + 1, c1 + 1, c2 + 1, c3 + 1, c4 + 1, c5 + 1, c6 + 1);
+                                    int actual = compact.evaluate(mask5 | (1L << c5) | (1L << c6));
+                                    if (expected != actual) {
+                                        assertEquals("cards " + c0 + " " + c1 + " " + c2 + " " + c3 + " " + c4 + " " + c5 + " " + c6,
+                                                expected, actual);
+                                    }
+                                    types[expected >> 12]++;
+                                    count++;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        assertEquals(133784560, count);
+        assertArrayEquals(SEVEN_CARD_COUNTS, types);
+    }
+
+    /**
+     * The method to compare both evaluators on every 5 card combination.
+     */
+    @Test
+    public void compareAllFiveCardHands() {
+        TwoPlusTwoHandEvaluator table = TwoPlusTwoHandEvaluator.getInstance();
+        CompactHandEvaluator compact = CompactHandEvaluator.getInstance();
+        long[] types = new long[HandType.values().length];
+        Set<Integer> ranks = new HashSet<>();
+        for (int c0 = 0; c0 < 48; c0++) {
+            for (int c1 = c0 + 1; c1 < 49; c1++) {
+                for (int c2 = c1 + 1; c2 < 50; c2++) {
+                    for (int c3 = c2 + 1; c3 < 51; c3++) {
+                        for (int c4 = c3 + 1; c4 < 52; c4++) {
+                            long mask = (1L << c0) | (1L << c1) | (1L << c2) | (1L << c3) | (1L << c4);
+                            int rank = table.evaluate(c0 + 1, c1 + 1, c2 + 1, c3 + 1, c4 + 1);
+                            assertEquals(rank, compact.evaluate(mask));
+                            types[rank >> 12]++;
+                            ranks.add(rank);
+                        }
+                    }
+                }
+            }
+        }
+        assertArrayEquals(FIVE_CARD_COUNTS, types);
+        assertEquals(7462, ranks.size());
+    }
+
+    /**
+     * The method to test hands known to beat each other are ranked in that order by both evaluators.
+     */
+    @Test
+    public void knownOrder() {
+        String[][] hands = {
+                {"7c 5d 4h 3s 2c", "HIGH_CARD"},
+                {"Ac Kd Qh Js 9c", "HIGH_CARD"},
+                {"2c 2d 5h 4s 3c", "PAIR"},
+                {"Ac Ad Kh Qs Jc", "PAIR"},
+                {"3c 3d 2h 2s 4c", "TWO_PAIR"},
+                {"Ac Ad Kh Ks Jc", "TWO_PAIR"},
+                {"Ac Ad Kh Ks Qc", "TWO_PAIR"},
+                {"2c 2d 2h 4s 3c", "THREE_OF_A_KIND"},
+                {"Ac 2d 3h 4s 5c", "STRAIGHT"},
+                {"2c 3d 4h 5s 6c", "STRAIGHT"},
+                {"Tc Jd Qh Ks Ac", "STRAIGHT"},
+                {"7c 5c 4c 3c 2c", "FLUSH"},
+                {"Ac Kc Qc Jc 9c", "FLUSH"},
+                {"2c 2d 2h 3s 3c", "FULL_HOUSE"},
+                {"Ac Ad Ah Ks Kc", "FULL_HOUSE"},
+                {"2c 2d 2h 2s 3c", "FOUR_OF_A_KIND"},
+                {"Ac Ad Ah As Kc", "FOUR_OF_A_KIND"},
+                {"Ac 2c 3c 4c 5c", "STRAIGHT_FLUSH"},
+                {"Ts Js Qs Ks As", "STRAIGHT_FLUSH"},
+        };
+        TwoPlusTwoHandEvaluator table = TwoPlusTwoHandEvaluator.getInstance();
+        CompactHandEvaluator compact = CompactHandEvaluator.getInstance();
+        int previous = 0;
+        for (String[] hand : hands) {
+            long mask = mask(hand[0]);
+            int rank = table.evaluate(mask);
+            assertEquals(hand[0], rank, compact.evaluate(mask));
+            assertEquals(hand[0], HandType.valueOf(hand[1]).ordinal(), rank >> 12);
+            assertTrue(hand[0], rank > previous);
+            previous = rank;
+        }
+        // the best five of seven cards: the flush beats the straight, the kicker plays
+        assertTrue(table.evaluate(mask("9h Th Jh Qh 2h Kd 3c")) > table.evaluate(mask("9h Th Jh Qd Kh 2c 3c")));
+        assertEquals(table.evaluate(mask("Ac Ad Kh Ks Qc 2d 3h")), table.evaluate(mask("Ac Ad Kh Ks Qc")));
+    }
+
+    /**
+     * Card mask of cards written like "Ac Td 2h", bit {@code rank * 4 + suit} as in {@link com.fcs.pokerserver.Card}.
+     */
+    private static long mask(String cards) {
+        long mask = 0;
+        for (String card : cards.split(" ")) {
+            mask |= 1L << ("23456789TJQKA".indexOf(card.charAt(0)) * 4 + "cdhs".indexOf(card.charAt(1)));
+        }
+        return mask;
+    }
+
+    /**
+     * The method to select the evaluator with the system property.
+     */
+    @Test
+    public void selectEvaluator() {
+        System.setProperty(HandEvaluator.EVALUATOR_PROPERTY, HandEvaluator.COMPACT);
+        try {
+            assertSame(CompactHandEvaluator.getInstance(), HandEvaluator.getInstance());
+        } finally {
+            System.clearProperty(HandEvaluator.EVALUATOR_PROPERTY);
+        }
+        assertSame(TwoPlusTwoHandEvaluator.getInstance(), HandEvaluator.getInstance());
+    }
+
+    /**
+     * The method to test threads asking for the evaluator at the same time share one instance.
+     */
+    @Test
+    public void concurrentInstance() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<TwoPlusTwoHandEvaluator>> calls = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                calls.add(TwoPlusTwoHandEvaluator::getInstance);
+            }
+            List<Future<TwoPlusTwoHandEvaluator>> results = executor.invokeAll(calls);
+            for (Future<TwoPlusTwoHandEvaluator> result : results) {
+                assertSame(results.get(0).get(), result.get());
+            }
+            assertTrue(TwoPlusTwoHandEvaluator.isReady());
+            assertTrue(HandEvaluator.isReady());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+
+
+package com.fsc.pokerserver.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.fcs.pokerserver.automation.HashedWheelTimer;
+
+/**
+ * The class to test the timer of the action clocks.
+ *
+ * @category com > fcs > pokerserver > test
+ */
+public class HashedWheelTimerTest {
+
+    private final HashedWheelTimer timer = new HashedWheelTimer("test-timer", 5, TimeUnit.MILLISECONDS, 8);
+
+    @After
+    public void stop() {
+        timer.stop();
+    }
+
+    /**
+     * The method to test timeouts fire not before their deadline, also when they need more than one turn of the wheel.
+     */
+    @Test(timeout = 10000)
+    public void fires() throws Exception {
+        CountDownLatch fired = new CountDownLatch(2);
+        long start = System.nanoTime();
+        long[] late = new long[2];
+        HashedWheelTimer.Timeout shortOne = timer.schedule(() -> {
+            late[0] = System.nanoTime() - start;
+            fired.countDown();
+        }, 10, TimeUnit.MILLISECONDS);
+        HashedWheelTimer.Timeout longOne = timer.schedule(() -> {
+            late[1] = System.nanoTime() - start;
+            fired.countDown();
+        }, 200, TimeUnit.MILLISECONDS);
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertTrue(late[0] >= TimeUnit.MILLISECONDS.toNanos(10));
+        assertTrue(late[1] >= TimeUnit.MILLISECONDS.toNanos(200));
+        assertTrue(shortOne.isExpired());
+        assertTrue(longOne.isExpired());
+        assertFalse(longOne.cancel());
+        assertEquals(0, longOne.getRemaining(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * The method to test cancelled timeouts never fire and leave the wheel at the next tick.
+     */
+    @Test(timeout = 10000)
+    public void cancel() throws Exception {
+        AtomicInteger fired = new AtomicInteger();
+        for (int i = 0; i < 1000; i++) {
+            HashedWheelTimer.Timeout timeout = timer.schedule(fired::incrementAndGet, 60, TimeUnit.SECONDS);
+            assertTrue(timeout.cancel());
+            assertFalse(timeout.cancel());
+            assertTrue(timeout.isCancelled());
+        }
+        HashedWheelTimer.Timeout kept = timer.schedule(fired::incrementAndGet, 60, TimeUnit.SECONDS);
+        while (timer.getPending() > 1) Thread.sleep(5);
+        assertTrue(kept.getRemaining(TimeUnit.SECONDS) > 50);
+        CountDownLatch last = new CountDownLatch(1);
+        timer.schedule(last::countDown, 20, TimeUnit.MILLISECONDS);
+        assertTrue(last.await(5, TimeUnit.SECONDS));
+        assertEquals(0, fired.get());
+    }
+}
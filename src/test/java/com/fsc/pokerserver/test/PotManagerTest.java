@@ -0,0 +1,101 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+
+
+package com.fsc.pokerserver.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.fcs.pokerserver.PotManager;
+
+/**
+ * The class to test the layered main and side pots.
+ *
+ * @category com > fcs > pokerserver > test
+ */
+public class PotManagerTest {
+
+    /**
+     * Five all-in players with growing stacks make a main pot and three side pots, the biggest stack gets its
+     * uncalled chips back.
+     */
+    @Test
+    public void layeredAllIn() {
+        PotManager pots = new PotManager();
+        for (int seat = 0; seat < 5; seat++) {
+            pots.bet(seat, 20);
+        }
+        for (int seat = 0; seat < 5; seat++) {
+            pots.allIn(seat, 1000 * (seat + 1));
+        }
+        assertEquals(5, pots.getLayerCount());
+        assertEquals(5100, pots.getLayerAmount(0));
+        assertEquals(4000, pots.getLayerAmount(1));
+        assertEquals(1000, pots.getLayerAmount(4));
+        assertEquals(0x1FL, pots.getEligible(0));
+        assertEquals(0x10L, pots.getEligible(4));
+
+        long[] payouts = new long[5];
+        long[] winners = pots.award(new int[]{50, 40, 30, 20, 10}, 0, payouts);
+        assertArrayEquals(new long[]{5100, 4000, 3000, 2000, 1000}, payouts);
+        assertArrayEquals(new long[]{0x1, 0x2, 0x4, 0x8, 0x10, 0}, winners);
+    }
+
+    /**
+     * An all-in for less than the bet already made splits the existing layer.
+     */
+    @Test
+    public void shortAllInSplitsLayer() {
+        PotManager pots = new PotManager();
+        pots.bet(0, 300);
+        pots.bet(1, 300);
+        pots.allIn(2, 100);
+        assertEquals(300, pots.getLayerAmount(0));
+        assertEquals(100, pots.getLayerCap(0));
+        assertEquals(400, pots.getLayerAmount(1));
+        assertEquals(0x3L, pots.getEligible(1));
+
+        long[] payouts = new long[3];
+        pots.award(new int[]{10, 20, 30}, 0, payouts);
+        assertArrayEquals(new long[]{0, 400, 300}, payouts);
+    }
+
+    /**
+     * Odd chips go to the winners closest to the left of the dealer, folded chips stay in the pot.
+     */
+    @Test
+    public void oddChipsAndFolds() {
+        PotManager pots = new PotManager();
+        pots.bet(0, 100);
+        pots.bet(1, 100);
+        pots.bet(2, 100);
+        pots.bet(3, 101);
+        pots.fold(3);
+        long[] payouts = new long[4];
+        long[] winners = pots.award(new int[]{30, 20, 30, -1}, 2, payouts);
+        assertArrayEquals(new long[]{200, 0, 201, 0}, payouts);
+        assertEquals(0x5L, winners[0]);
+        assertEquals(pots.getTotal(), payouts[0] + payouts[2]);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+
+package com.fsc.pokerserver.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.fcs.pokerserver.Card;
+import com.fcs.pokerserver.holder.CompactHandEvaluator;
+import com.fcs.pokerserver.holder.EquityResult;
+import com.fcs.pokerserver.holder.Hand;
+import com.fcs.pokerserver.holder.PreflopEquity;
+import com.fcs.pokerserver.holder.PreflopEquityGenerator;
+
+/**
+ * The class to test the preflop equity matrix.
+ *
+ * @category com > fcs > pokerserver > test
+ */
+
+public class PreflopEquityTest {
+
+    private static PreflopEquityGenerator generator;
+    private static PreflopEquity equity;
+
+    /**
+     * Generate a small matrix shared by the tests.
+     */
+    @BeforeClass
+    public static void generate() {
+        generator = new PreflopEquityGenerator(CompactHandEvaluator.getInstance(), ForkJoinPool.commonPool(), 500);
+        equity = generator.generate();
+    }
+
+    /**
+     * The method to test the class of two hole cards.
+     */
+    @Test
+    public void classOf() {
+        assertEquals(12 * 14, PreflopEquity.classOf(Card.ACE_OF_SPADES, Card.ACE_OF_HEARTS));
+        assertEquals(12 * 13 + 11, PreflopEquity.classOf(Card.KING_OF_SPADES, Card.ACE_OF_SPADES));
+        assertEquals(11 * 13 + 12, PreflopEquity.classOf(Card.ACE_OF_SPADES, Card.KING_OF_HEARTS));
+        assertEquals(0, PreflopEquity.classOf(new Hand(Card.TWO_OF_CLUBS, Card.TWO_OF_DIAMONDS)));
+    }
+
+    /**
+     * The method to test the looked up equities are plausible and add up.
+     */
+    @Test
+    public void headsUp() {
+        int aces = PreflopEquity.classOf(Card.ACE_OF_SPADES, Card.ACE_OF_HEARTS);
+        int kings = PreflopEquity.classOf(Card.KING_OF_SPADES, Card.KING_OF_HEARTS);
+        assertEquals(0.82, equity.getEquity(aces, kings), 0.05);
+        assertEquals(0.5, equity.getEquity(aces, aces), 0.01);
+        for (int hero = 0; hero < PreflopEquity.CLASSES; hero += 7) {
+            for (int villain = 0; villain < PreflopEquity.CLASSES; villain += 5) {
+                assertEquals(1.0, equity.getEquity(hero, villain) + equity.getEquity(villain, hero), 0.001);
+            }
+        }
+        EquityResult result = equity.calculate(Arrays.asList(new Hand(Card.ACE_OF_SPADES, Card.ACE_OF_HEARTS),
+                new Hand(Card.KING_OF_CLUBS, Card.KING_OF_DIAMONDS)));
+        assertEquals(equity.getEquity(aces, kings), result.getEquity(0), 1e-9);
+        assertEquals(1.0, result.getEquity(0) + result.getEquity(1), 0.001);
+    }
+
+    /**
+     * The method to test equities against random hands fall with more opponents.
+     */
+    @Test
+    public void versusRandom() {
+        int aces = PreflopEquity.classOf(Card.ACE_OF_SPADES, Card.ACE_OF_HEARTS);
+        assertEquals(0.85, equity.getEquityVersusRandom(aces, 1), 0.05);
+        for (int opponents = 2; opponents <= PreflopEquity.MAX_OPPONENTS; opponents++) {
+            assertTrue(equity.getEquityVersusRandom(aces, opponents) < equity.getEquityVersusRandom(aces, opponents - 1));
+        }
+    }
+
+    /**
+     * The method to test the matrix is written and read back unchanged.
+     */
+    @Test
+    public void writeAndRead() throws Exception {
+        File file = File.createTempFile("PreflopEquity", ".dat");
+        try {
+            generator.write(equity, file);
+            PreflopEquity read = generator.read(file);
+            assertEquals(equity.getSamples(), read.getSamples());
+            for (int hero = 0; hero < PreflopEquity.CLASSES; hero++) {
+                for (int villain = 0; villain < PreflopEquity.CLASSES; villain++) {
+                    assertEquals(equity.getEquity(hero, villain), read.getEquity(hero, villain), 0);
+                }
+                double[] expected = new double[PreflopEquity.MAX_OPPONENTS];
+                double[] actual = new double[PreflopEquity.MAX_OPPONENTS];
+                for (int opponents = 1; opponents <= PreflopEquity.MAX_OPPONENTS; opponents++) {
+                    expected[opponents - 1] = equity.getEquityVersusRandom(hero, opponents);
+                    actual[opponents - 1] = read.getEquityVersusRandom(hero, opponents);
+                }
+                assertArrayEquals(expected, actual, 0);
+            }
+        } finally {
+            file.delete();
+        }
+    }
+}
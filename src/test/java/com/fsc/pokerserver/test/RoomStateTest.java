@@ -0,0 +1,107 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+
+
+
+package com.fsc.pokerserver.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.fcs.pokerserver.Player;
+import com.fcs.pokerserver.gameserver.RoomState;
+
+/**
+ * The class to test the versions of the player lists sent to the clients.
+ *
+ * @category com > fcs > pokerserver > test
+ */
+public class RoomStateTest {
+
+    /**
+     * The method to test only the changed fields and the players gone are sent after the first snapshot.
+     */
+    @Test
+    public void deltas() {
+        RoomState state = new RoomState(20);
+        Player p1 = new Player("p1");
+        Player p2 = new Player("p2");
+        p1.setBalance(1000);
+        p2.setBalance(1000);
+
+        RoomState.Update first = state.update(Arrays.asList(p1, p2), false);
+        assertEquals(1, first.getVersion());
+        assertTrue(first.isSnapshot());
+        assertEquals(2, first.getPlayers().size());
+        assertEquals(RoomState.ALL, first.getFields(0));
+        assertTrue(first.toJson().startsWith("[{\"id\":\"" + p1.getId() + "\",\"name\":\"p1\",\"balance\":1000,"));
+
+        RoomState.Update same = state.update(Arrays.asList(p1, p2), false);
+        assertEquals(2, same.getVersion());
+        assertFalse(same.isSnapshot());
+        assertTrue(same.getPlayers().isEmpty());
+        assertEquals("[]", same.toJson());
+
+        p2.setBalance(980);
+        RoomState.Update bet = state.update(Arrays.asList(p1, p2), false);
+        assertEquals(Collections.singletonList(p2), bet.getPlayers());
+        assertEquals(RoomState.BALANCE, bet.getFields(0));
+        assertEquals("[{\"id\":\"" + p2.getId() + "\",\"balance\":980}]", bet.toJson());
+
+        RoomState.Update left = state.update(Collections.singletonList(p1), false);
+        assertTrue(left.getPlayers().isEmpty());
+        assertEquals(Collections.singletonList(p2.getId()), left.getLeft());
+
+        RoomState.Update back = state.update(Arrays.asList(p1, p2), false);
+        assertEquals(Collections.singletonList(p2), back.getPlayers());
+        assertEquals(RoomState.ALL, back.getFields(0));
+        assertTrue(back.toJson().contains("\"name\":\"p2\""));
+    }
+
+    /**
+     * The method to test a snapshot goes out every interval and when asked for.
+     */
+    @Test
+    public void snapshots() {
+        RoomState state = new RoomState(3);
+        Player p1 = new Player("p1");
+        assertTrue(state.update(Collections.singletonList(p1), false).isSnapshot());
+        assertFalse(state.update(Collections.singletonList(p1), false).isSnapshot());
+        assertFalse(state.update(Collections.singletonList(p1), false).isSnapshot());
+        assertTrue(state.update(Collections.singletonList(p1), false).isSnapshot());
+
+        RoomState.Update asked = state.snapshot(Collections.singletonList(p1), false);
+        assertEquals(5, asked.getVersion());
+        assertTrue(asked.isSnapshot());
+        assertEquals(1, asked.getPlayers().size());
+        assertFalse(state.update(Collections.singletonList(p1), false).isSnapshot());
+
+        RoomState every = new RoomState(1);
+        assertTrue(every.update(Collections.singletonList(p1), false).isSnapshot());
+        assertTrue(every.update(Collections.singletonList(p1), false).isSnapshot());
+    }
+}
@@ -144,4 +144,35 @@ public class RoomTest {
 		Assert.assertSame(player2, candidatePlayer);
 
 	}
+
+	/**
+	 * The method to test a disconnected player keeps his seat until the grace period runs out
+	 * */
+	@Test(timeout = 10000)
+	public void testDisconnectGrace() throws InterruptedException {
+		System.setProperty(Player.DISCONNECT_GRACE_PROPERTY, "300");
+		try {
+			Player master = new Player("master");
+			Player player2 = new Player("Player 2");
+			Player player3 = new Player("Player 3");
+			master.setGlobalBalance(5000);
+			player2.setGlobalBalance(5000);
+			player3.setGlobalBalance(5000);
+			Room room = new Room(master,BlindLevel.BLIND_10_20);
+			room.addPlayer(player2);
+			room.addPlayer(player3);
+			
+			player2.disconnected();
+			player3.disconnected();
+			player3.reconnected();
+			Assert.assertTrue(room.getMailbox().call(() -> room.getListPlayer().contains(player2)));
+			
+			while (room.getMailbox().call(() -> room.getListPlayer().contains(player2))) {
+				Thread.sleep(50);
+			}
+			Assert.assertTrue(room.getMailbox().call(() -> room.getListPlayer().contains(player3)));
+		} finally {
+			System.clearProperty(Player.DISCONNECT_GRACE_PROPERTY);
+		}
+	}
 }
@@ -0,0 +1,111 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+
+
+package com.fsc.pokerserver.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.fcs.pokerserver.Player;
+import com.fcs.pokerserver.SeatRing;
+
+/**
+ * The class to test the seats of a table.
+ *
+ * @category com > fcs > pokerserver > test
+ */
+public class SeatRingTest {
+
+    /**
+     * The method to test players keep their seat and the list follows the seats.
+     */
+    @Test
+    public void seatsAreStable() {
+        SeatRing seats = new SeatRing(4);
+        Player p1 = new Player("p1");
+        Player p2 = new Player("p2");
+        Player p3 = new Player("p3");
+        assertEquals(0, seats.sit(p1));
+        assertEquals(1, seats.sit(p2));
+        assertEquals(2, seats.sit(p3));
+        assertEquals(1, seats.sit(p2));
+
+        seats.players().remove(p2);
+        assertEquals(2, seats.players().size());
+        assertSame(p3, seats.players().get(1));
+        assertEquals(2, seats.seatOf(p3));
+        assertEquals(2, seats.nextOccupied(0));
+
+        Player p4 = new Player("p4");
+        assertEquals(1, seats.sit(p4));
+        assertEquals(3, seats.sit(new Player("p5")));
+        assertEquals(-1, seats.sit(new Player("p6")));
+        assertEquals(0, seats.nextOccupied(3));
+    }
+
+    /**
+     * The method to test the next player skips folded seats and nobody left is not an endless loop.
+     */
+    @Test
+    public void nextActive() {
+        SeatRing seats = new SeatRing(6);
+        for (int i = 0; i < 4; i++) {
+            seats.setActive(seats.sit(new Player("p" + i)), true);
+        }
+        assertEquals(1, seats.nextActive(0));
+        seats.setActive(1, false);
+        assertEquals(2, seats.nextActive(0));
+        assertEquals(0, seats.nextActive(3));
+        assertEquals(3, seats.getActiveCount());
+        seats.setActive(0, false);
+        seats.setActive(2, false);
+        assertEquals(3, seats.nextActive(3));
+        seats.setActive(3, false);
+        assertEquals(-1, seats.nextActive(3));
+    }
+
+    /**
+     * The method to test a raise reopens the betting for everybody who is not all-in.
+     */
+    @Test
+    public void roundComplete() {
+        SeatRing seats = new SeatRing(6);
+        for (int i = 0; i < 3; i++) {
+            seats.setActive(seats.sit(new Player("p" + i)), true);
+        }
+        seats.act(0);
+        seats.allIn(1);
+        seats.raise(1);
+        assertFalse(seats.isRoundComplete());
+        seats.act(2);
+        assertFalse(seats.isRoundComplete());
+        seats.raise(0);
+        seats.act(2);
+        assertTrue(seats.isRoundComplete());
+        seats.newStreet();
+        assertFalse(seats.isRoundComplete());
+    }
+}
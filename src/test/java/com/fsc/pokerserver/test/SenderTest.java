@@ -0,0 +1,198 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+
+
+package com.fsc.pokerserver.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.junit.Test;
+
+import com.fcs.pokerserver.gameserver.MessagePriority;
+import com.fcs.pokerserver.gameserver.Publisher;
+import com.fcs.pokerserver.gameserver.Sender;
+
+/**
+ * The class to test the messages sent to the broker.
+ *
+ * @category com > fcs > pokerserver > test
+ */
+public class SenderTest {
+
+    /**
+     * The broker acknowledges a message when the test says so.
+     */
+    private final BlockingQueue<Object[]> published = new LinkedBlockingQueue<>();
+
+    private final IMqttAsyncClient client = (IMqttAsyncClient) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[]{IMqttAsyncClient.class}, (proxy, method, args) -> {
+                if (method.getName().equals("publish") && args.length == 6) {
+                    published.add(args);
+                    return null;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+
+    /**
+     * The method to test the sender sleeps on an empty queue and keeps no more messages in flight than allowed.
+     */
+    @Test(timeout = 10000)
+    public void window() throws Exception {
+        Sender sender = new Sender(client, 2);
+        try {
+            waitForState(sender, Thread.State.WAITING);
+            for (int i = 0; i < 5; i++) sender.add("/pokerserver/test", "m" + i);
+
+            Object[] first = published.take();
+            Object[] second = published.take();
+            assertEquals("/pokerserver/test", first[0]);
+            assertEquals("m0", new String((byte[]) first[1], "UTF-8"));
+            assertEquals("m1", new String((byte[]) second[1], "UTF-8"));
+            waitForState(sender, Thread.State.WAITING);
+            assertEquals(2, sender.getInFlight());
+            assertEquals(0, published.size());
+
+            ((IMqttActionListener) first[5]).onSuccess(null);
+            ((IMqttActionListener) published.take()[5]).onFailure(null, new Exception("broker gone"));
+            ((IMqttActionListener) second[5]).onSuccess(null);
+            ((IMqttActionListener) published.take()[5]).onSuccess(null);
+            ((IMqttActionListener) published.take()[5]).onSuccess(null);
+
+            assertEquals(0, sender.getInFlight());
+            assertEquals(0, sender.getQueueDepth());
+            assertEquals(4, sender.getPublished());
+            assertEquals(1, sender.getErrors());
+            assertEquals(0, published.size());
+        } finally {
+            sender.close();
+        }
+    }
+
+    /**
+     * The method to test a room waiting for the broker does not hold back a room of another partition, and the
+     * messages of a room keep their order.
+     */
+    @Test(timeout = 10000)
+    public void partitions() throws Exception {
+        Publisher publisher = new Publisher(client, 2, 1);
+        try {
+            long slowRoom = 1;
+            long otherRoom = 2;
+            while (publisher.partitionOf(otherRoom) == publisher.partitionOf(slowRoom)) otherRoom++;
+            assertNotEquals(publisher.partitionOf(slowRoom), publisher.partitionOf(otherRoom));
+
+            for (int i = 0; i < 3; i++) publisher.add(slowRoom, "/room/" + slowRoom, "m" + i);
+            Object[] slow = published.take();
+            assertEquals("m0", new String((byte[]) slow[1], "UTF-8"));
+
+            publisher.add(otherRoom, "/room/" + otherRoom, "other");
+            Object[] other = published.take();
+            assertEquals("/room/" + otherRoom, other[0]);
+            ((IMqttActionListener) other[5]).onSuccess(null);
+
+            for (int i = 1; i < 3; i++) {
+                ((IMqttActionListener) slow[5]).onSuccess(null);
+                slow = published.take();
+                assertEquals("m" + i, new String((byte[]) slow[1], "UTF-8"));
+            }
+            ((IMqttActionListener) slow[5]).onSuccess(null);
+            assertEquals(3, publisher.getPartition(publisher.partitionOf(slowRoom)).getPublished());
+            assertEquals(1, publisher.getPartition(publisher.partitionOf(otherRoom)).getPublished());
+        } finally {
+            publisher.close();
+        }
+    }
+
+    /**
+     * The method to test a full queue keeps the latest snapshot, sheds the lowest priority first and keeps the
+     * order of the messages it keeps.
+     */
+    @Test(timeout = 10000)
+    public void shedding() throws Exception {
+        Sender sender = new Sender(client, 1, 3, "test-sender");
+        try {
+            sender.add("/room/1", "m0");
+            Object[] inFlight = published.take();
+            sender.add("/room/1", "m1");
+            while (sender.getQueueDepth() > 0) TimeUnit.MILLISECONDS.sleep(5);
+            waitForState(sender, Thread.State.WAITING);
+
+            assertTrue(sender.add("/room/1", "turn1", MessagePriority.DROPPABLE, null));
+            assertTrue(sender.add("/room/1", "equity1", MessagePriority.SNAPSHOT, "equity"));
+            assertTrue(sender.add("/room/1", "flop", MessagePriority.CRITICAL, null));
+            assertTrue(sender.add("/room/1", "equity2", MessagePriority.SNAPSHOT, "equity"));
+            assertEquals(3, sender.getQueueDepth());
+            assertTrue(sender.add("/room/1", "turn", MessagePriority.CRITICAL, null));
+            assertTrue(sender.add("/room/1", "joined", MessagePriority.NORMAL, null));
+            assertFalse(sender.add("/room/1", "turn2", MessagePriority.DROPPABLE, null));
+            assertEquals(3, sender.getQueueDepth());
+
+            for (String expected : new String[]{"m1", "flop", "turn", "joined"}) {
+                ((IMqttActionListener) inFlight[5]).onSuccess(null);
+                inFlight = published.take();
+                assertEquals(expected, new String((byte[]) inFlight[1], "UTF-8"));
+            }
+            ((IMqttActionListener) inFlight[5]).onSuccess(null);
+            assertEquals(1, sender.getCoalesced());
+            assertEquals(2, sender.getShed(MessagePriority.DROPPABLE));
+            assertEquals(1, sender.getShed(MessagePriority.SNAPSHOT));
+            assertEquals(0, sender.getShed(MessagePriority.NORMAL));
+            assertEquals(0, sender.getShed(MessagePriority.CRITICAL));
+        } finally {
+            sender.close();
+        }
+    }
+
+    /**
+     * The method to test the critical messages go with their own QoS, the others with the default one.
+     */
+    @Test(timeout = 10000)
+    public void qos() throws Exception {
+        Sender sender = new Sender(client, 3);
+        try {
+            sender.add("/room/1", "turn", MessagePriority.DROPPABLE, null);
+            sender.add("/room/1", "joined", MessagePriority.NORMAL, null);
+            sender.add("/room/1", "flop", MessagePriority.CRITICAL, null);
+
+            assertEquals(Sender.QOS, published.take()[2]);
+            assertEquals(Sender.QOS, published.take()[2]);
+            assertEquals(Sender.CRITICAL_QOS, published.take()[2]);
+            assertEquals(1, Sender.QOS);
+            assertEquals(2, Sender.CRITICAL_QOS);
+        } finally {
+            sender.close();
+        }
+    }
+
+    private static void waitForState(Thread thread, Thread.State state) throws InterruptedException {
+        while (thread.getState() != state) TimeUnit.MILLISECONDS.sleep(5);
+    }
+}
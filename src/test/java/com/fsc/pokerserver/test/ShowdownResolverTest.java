@@ -0,0 +1,116 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+
+
+package com.fsc.pokerserver.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.fcs.pokerserver.Card;
+import com.fcs.pokerserver.Player;
+import com.fcs.pokerserver.PotManager;
+import com.fcs.pokerserver.ShowdownResolver;
+import com.fcs.pokerserver.ShowdownResult;
+import com.fcs.pokerserver.holder.Board;
+import com.fcs.pokerserver.holder.BoardEvaluation;
+import com.fcs.pokerserver.holder.CardSet;
+import com.fcs.pokerserver.holder.Hand;
+import com.fcs.pokerserver.holder.HandType;
+import com.fcs.pokerserver.holder.TwoPlusTwoHandEvaluator;
+
+/**
+ * The class to test the showdown settles the main pot and the side pots.
+ *
+ * @category com > fcs > pokerserver > test
+ */
+public class ShowdownResolverTest {
+
+    private final Board board = new Board(Card.TWO_OF_SPADES, Card.THREE_OF_CLUBS, Card.FOUR_OF_SPADES,
+            Card.FIVE_OF_DIAMONDS, Card.KING_OF_CLUBS);
+
+    /**
+     * The short stack with the best hand wins the main pot, the side pot goes to the next best hand.
+     */
+    @Test
+    public void mainAndSidePots() {
+        Player short1 = player("short", Card.ACE_OF_HEARTS, Card.SIX_OF_CLUBS);
+        Player big1 = player("big1", Card.KING_OF_DIAMONDS, Card.KING_OF_HEARTS);
+        Player big2 = player("big2", Card.QUEEN_OF_DIAMONDS, Card.QUEEN_OF_HEARTS);
+        List<Player> seats = Arrays.asList(short1, big1, big2);
+
+        PotManager pots = new PotManager();
+        pots.allIn(0, 101);
+        pots.bet(1, 500);
+        pots.bet(2, 500);
+
+        BoardEvaluation showdown = TwoPlusTwoHandEvaluator.getInstance().forBoard(board);
+        ShowdownResult result = new ShowdownResolver(showdown).resolve(seats, 0x7, pots, 1);
+        assertEquals(2, result.getPots().size());
+
+        ShowdownResult.Pot main = result.getPots().get(0);
+        assertEquals(Arrays.asList(short1), main.getWinners());
+        assertEquals(303, main.getAmount());
+        assertEquals(HandType.STRAIGHT, main.getRank().getHandType());
+        assertEquals(CardSet.of(Card.TWO_OF_SPADES, Card.THREE_OF_CLUBS, Card.FOUR_OF_SPADES,
+                Card.FIVE_OF_DIAMONDS, Card.SIX_OF_CLUBS), main.getBestFive().get(0));
+
+        ShowdownResult.Pot side = result.getPots().get(1);
+        assertEquals(Arrays.asList(big1), side.getWinners());
+        assertEquals(798, side.getAmount(0));
+        assertEquals(HandType.THREE_OF_A_KIND, side.getRank().getHandType());
+        assertEquals(pots.getTotal(), result.getPayout(0) + result.getPayout(1) + result.getPayout(2));
+    }
+
+    /**
+     * A split pot pays the odd chip to the first winner on the left of the dealer.
+     */
+    @Test
+    public void splitPot() {
+        Player p1 = player("p1", Card.ACE_OF_HEARTS, Card.SEVEN_OF_CLUBS);
+        Player p2 = player("p2", Card.KING_OF_DIAMONDS, Card.KING_OF_HEARTS);
+        Player p3 = player("p3", Card.ACE_OF_DIAMONDS, Card.SEVEN_OF_HEARTS);
+        List<Player> seats = Arrays.asList(p1, p2, p3);
+
+        PotManager pots = new PotManager();
+        pots.bet(0, 100);
+        pots.bet(1, 100);
+        pots.bet(2, 101);
+
+        BoardEvaluation showdown = TwoPlusTwoHandEvaluator.getInstance().forBoard(board);
+        ShowdownResult result = new ShowdownResolver(showdown).resolve(seats, 0x7, pots, 2);
+        ShowdownResult.Pot main = result.getPots().get(0);
+        assertEquals(Arrays.asList(p1, p3), main.getWinners());
+        assertEquals(150, main.getAmount(0));
+        assertEquals(151, main.getAmount(1));
+        assertEquals(0, result.getPayout(1));
+    }
+
+    private static Player player(String name, Card c1, Card c2) {
+        Player p = new Player(name);
+        p.setPlayerHand(new Hand(c1, c2));
+        return p;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 by Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+
+
+package com.fsc.pokerserver.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.fcs.pokerserver.TableMailbox;
+
+/**
+ * The class to test the commands of a table run one at a time and in order.
+ *
+ * @category com > fcs > pokerserver > test
+ */
+public class TableMailboxTest {
+
+    /**
+     * The method to test commands from many threads never overlap and keep the order of each thread.
+     */
+    @Test(timeout = 20000)
+    public void serialized() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            TableMailbox mailbox = new TableMailbox(pool);
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger overlaps = new AtomicInteger();
+            int[] last = new int[4];
+            List<CompletableFuture<?>> done = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int caller = t;
+                done.add(CompletableFuture.runAsync(() -> {
+                    for (int i = 1; i <= 1000; i++) {
+                        int n = i;
+                        mailbox.execute(() -> {
+                            if (running.incrementAndGet() != 1) overlaps.incrementAndGet();
+                            if (last[caller] != n - 1) overlaps.incrementAndGet();
+                            last[caller] = n;
+                            running.decrementAndGet();
+                        });
+                    }
+                }, callers));
+            }
+            CompletableFuture.allOf(done.toArray(new CompletableFuture<?>[0])).join();
+            assertEquals(Integer.valueOf(4000), mailbox.submit(() -> last[0] + last[1] + last[2] + last[3]).get());
+            assertEquals(0, overlaps.get());
+        } finally {
+            pool.shutdownNow();
+            callers.shutdownNow();
+        }
+    }
+
+    /**
+     * The method to test a command waiting for another command of its table and a failing command.
+     */
+    @Test(timeout = 20000)
+    public void callAndFailure() throws Exception {
+        TableMailbox mailbox = new TableMailbox();
+        assertFalse(mailbox.isDraining());
+        assertEquals("inner", mailbox.call(() -> {
+            assertTrue(mailbox.isDraining());
+            return mailbox.call(() -> "inner");
+        }));
+
+        IllegalStateException error = new IllegalStateException("broken");
+        CompletableFuture<Object> failed = mailbox.submit(() -> {
+            throw error;
+        });
+        try {
+            failed.join();
+        } catch (CompletionException e) {
+            assertSame(error, e.getCause());
+        }
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals("after", mailbox.submit(() -> "after").get());
+    }
+}
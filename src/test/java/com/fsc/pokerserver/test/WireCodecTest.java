@@ -0,0 +1,231 @@
+/*
+The MIT License (MIT)
+Copyright (c) 2018 Ngocbd
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+
+
+
+
+package com.fsc.pokerserver.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.fcs.pokerserver.BlindLevel;
+import com.fcs.pokerserver.Game;
+import com.fcs.pokerserver.Player;
+import com.fcs.pokerserver.Room;
+import com.fcs.pokerserver.events.AbstractRoomEvent;
+import com.fcs.pokerserver.gameserver.RoomState;
+import com.fcs.pokerserver.gameserver.WireDecoder;
+import com.fcs.pokerserver.gameserver.WireEncoder;
+
+/**
+ * The class to test the binary messages of the room events.
+ *
+ * @category com > fcs > pokerserver > test
+ */
+public class WireCodecTest {
+
+    /**
+     * The method to test the events of a game decode to what happened, in sequence.
+     */
+    @Test
+    public void roundTrip() {
+        WireEncoder encoder = new WireEncoder();
+        WireDecoder decoder = new WireDecoder();
+        List<WireDecoder.Message> messages = new ArrayList<>();
+        List<AbstractRoomEvent> events = new ArrayList<>();
+
+        Player master = new Player("Room master wire");
+        master.setGlobalBalance(5000);
+        Room room = new Room(master, BlindLevel.BLIND_10_20);
+        room.addRoomListener(e -> {
+            byte[] bytes = encoder.toBytes(e);
+            if (bytes != null) messages.add(decoder.decode(bytes));
+            events.add(e);
+        });
+        Game game = room.createNewGame();
+        Player player2 = new Player();
+        player2.setGlobalBalance(5000);
+        room.addPlayer(player2);
+        Player player3 = new Player();
+        player3.setGlobalBalance(5000);
+        room.addPlayer(player3);
+        game.setDealer(player3);
+        master.setBalance(1000);
+        player2.setBalance(1000);
+        player3.setBalance(1000);
+        game.startGame();
+        player3.bet(20);
+        master.bet(10);
+        player2.check();
+
+        assertEquals(events.size(), messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            assertEquals(i + 1, messages.get(i).getSequence());
+            assertEquals(room.getRoomID(), messages.get(i).getRoomId());
+        }
+        assertEquals(0, decoder.getMissed());
+
+        assertEquals(WireEncoder.Type.GAME, messages.get(0).getType());
+        WireDecoder.Message joined = messages.get(1);
+        assertEquals(WireEncoder.Type.PLAYER_JOINED, joined.getType());
+        assertEquals(player2.getId(), joined.get("pid"));
+        assertEquals(5000L, joined.get("balance"));
+
+        WireDecoder.Message preflop = find(messages, WireEncoder.Type.PREFLOP);
+        List<?> players = (List<?>) preflop.get("listPlayers");
+        assertEquals(3, players.size());
+        for (int i = 0; i < players.size(); i++) {
+            Map<?, ?> p = (Map<?, ?>) players.get(i);
+            assertEquals(game.getListPlayer().get(i).getId(), p.get("id"));
+            assertEquals(game.getListPlayer().get(i).getEncryptedHand(), p.get("hand"));
+        }
+        assertEquals(game.getId(), preflop.getGameId());
+
+        WireDecoder.Message bet = null;
+        for (WireDecoder.Message m : messages) {
+            if (m.getType() == WireEncoder.Type.PLAYER_ACTION && "bet".equals(m.get("playeraction"))
+                    && player3.getId().equals(m.get("pid"))) bet = m;
+        }
+        assertNotNull(bet);
+        assertEquals(20L, bet.get("amount"));
+
+        WireDecoder.Message flop = find(messages, WireEncoder.Type.FLOP);
+        assertEquals(game.getBoard().getFlopCards(), flop.get("flopcard"));
+    }
+
+    /**
+     * The method to test a player seen before costs one byte and the buffer is reused.
+     */
+    @Test
+    public void compact() {
+        WireEncoder encoder = new WireEncoder();
+        List<AbstractRoomEvent> events = new ArrayList<>();
+        Player master = new Player("Room master wire 2");
+        master.setGlobalBalance(5000);
+        Room room = new Room(master, BlindLevel.BLIND_10_20);
+        room.addRoomListener(events::add);
+        Player player2 = new Player();
+        player2.setGlobalBalance(5000);
+        room.addPlayer(player2);
+        room.removePlayer(player2);
+
+        ByteBuffer joined = encoder.encode(events.get(0));
+        assertTrue(joined.isDirect());
+        assertTrue(joined.remaining() > WireEncoder.HEADER_SIZE + 1 + player2.getId().length());
+        ByteBuffer left = encoder.encode(events.get(1));
+        assertSame(joined, left);
+        assertEquals(WireEncoder.HEADER_SIZE + 1, left.remaining());
+    }
+
+    /**
+     * The method to test a delta carries the changed field only and the decoder rebuilds the whole list.
+     */
+    @Test
+    public void deltas() {
+        WireEncoder encoder = new WireEncoder();
+        WireDecoder decoder = new WireDecoder();
+        RoomState state = new RoomState(20);
+        Player p1 = new Player("p1");
+        Player p2 = new Player("p2");
+        p1.setBalance(1000);
+        p2.setBalance(1000);
+        List<Player> players = Arrays.asList(p1, p2);
+
+        WireDecoder.Message snapshot = decoder.decode(encoder.toBytes(7, 0, state.snapshot(players, false), null));
+        assertEquals(2, ((List<?>) snapshot.get("listPlayers")).size());
+        assertEquals("p2", ((Map<?, ?>) ((List<?>) snapshot.get("listPlayers")).get(1)).get("name"));
+        assertEquals(1L, decoder.getVersion(7));
+
+        p2.setBalance(980);
+        byte[] delta = encoder.toBytes(7, 0, state.update(players, false), null);
+        // version, flags, count, player, fields, two bytes of balance, count of players gone, empty commitment
+        assertEquals(WireEncoder.HEADER_SIZE + 9, delta.length);
+        WireDecoder.Message m = decoder.decode(delta);
+        assertEquals(1, ((List<?>) m.get("delta")).size());
+        List<?> list = (List<?>) m.get("listPlayers");
+        assertEquals(p1.getId(), ((Map<?, ?>) list.get(0)).get("id"));
+        assertEquals(1000L, ((Map<?, ?>) list.get(0)).get("balance"));
+        assertEquals(980L, ((Map<?, ?>) list.get(1)).get("balance"));
+        assertEquals(2L, decoder.getVersion(7));
+
+        state.update(players, false);
+        p1.setBalance(990);
+        m = decoder.decode(encoder.toBytes(7, 0, state.update(players, false), null));
+        assertNull(m.get("listPlayers"));
+        assertEquals(0L, decoder.getVersion(7));
+    }
+
+    /**
+     * The method to test the commitment of the first hand of a room is published by the snapshot and the
+     * WAITING message, before the hand is shuffled, and is the commitment of the shuffle of the hand.
+     */
+    @Test
+    public void commitmentBeforeHand() {
+        WireEncoder encoder = new WireEncoder();
+        WireDecoder decoder = new WireDecoder();
+        List<WireDecoder.Message> messages = new ArrayList<>();
+
+        Player master = new Player("Room master wire 3");
+        master.setGlobalBalance(5000);
+        Room room = new Room(master, BlindLevel.BLIND_10_20);
+        room.addRoomListener(e -> {
+            byte[] bytes = encoder.toBytes(e);
+            if (bytes != null) messages.add(decoder.decode(bytes));
+        });
+        Game game = room.createNewGame();
+        Player player2 = new Player();
+        player2.setGlobalBalance(5000);
+        room.addPlayer(player2);
+        game.setDealer(player2);
+        master.setBalance(1000);
+        player2.setBalance(1000);
+
+        RoomState state = new RoomState();
+        WireDecoder.Message snapshot = decoder.decode(encoder.toBytes(room.getRoomID(), game.getId(),
+                state.snapshot(game.getListPlayer(), false), room.getNextCommitment()));
+        assertNull(game.getShuffleCommitment());
+        game.startGame();
+
+        String commitment = game.getShuffleCommitment();
+        assertNotNull(commitment);
+        assertEquals(commitment, snapshot.get("commitment"));
+        assertEquals(commitment, find(messages, WireEncoder.Type.WAITING).get("commitment"));
+        assertEquals(commitment, find(messages, WireEncoder.Type.PREFLOP).get("commitment"));
+    }
+
+    private static WireDecoder.Message find(List<WireDecoder.Message> messages, WireEncoder.Type type) {
+        for (WireDecoder.Message m : messages) {
+            if (m.getType() == type) return m;
+        }
+        throw new AssertionError("No " + type + " message");
+    }
+}